@@ -0,0 +1,279 @@
+// Copyright 2023 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.firebase.firestore;
+
+import androidx.annotation.NonNull;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import io.flutter.plugins.firebase.firestore.utils.ExceptionConverter;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs Firestore operations on a small, bounded pool of worker threads.
+ *
+ * <p>Workers never wait for a Firestore {@link Task}. An operation only starts its task on a
+ * worker; the result is converted and sent in a continuation once the task completes. Each {@link
+ * OperationType} can be limited to a number of operations in flight, in which case further
+ * operations of that type wait in order until one completes.
+ */
+public class FlutterFirebaseFirestoreExecutor implements Executor {
+
+  /** The kinds of operations that are limited and measured separately. */
+  public enum OperationType {
+    /** Document reads. */
+    READ,
+    /** Query reads, including named queries. */
+    QUERY,
+    /** Aggregate queries. */
+    AGGREGATE,
+    /**
+     * Document and batch writes, and waiting for pending writes. Unlimited by default, as writes do
+     * not complete while offline and later writes would otherwise not reach the local cache.
+     */
+    WRITE,
+    /**
+     * Everything else, such as network and persistence settings. Unlimited by default, so that
+     * enabling the network or terminating never waits for operations that only complete online.
+     */
+    OTHER
+  }
+
+  /** Starts an operation. Called on a worker thread. */
+  public interface Operation<T> {
+    @NonNull
+    Task<T> start() throws Exception;
+  }
+
+  /** Converts the result of a task. Called on a worker thread. */
+  public interface Converter<T, R> {
+    R convert(T value) throws Exception;
+  }
+
+  /** Counters and timings of one {@link OperationType}. */
+  public static class OperationStats {
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /** The number of operations waiting for a slot. */
+    public int getWaiting() {
+      return waiting.get();
+    }
+
+    /** The number of operations started but not completed. */
+    public int getInFlight() {
+      return inFlight.get();
+    }
+
+    /** The number of operations that completed successfully. */
+    public long getCompletedCount() {
+      return completedCount.get();
+    }
+
+    /** The number of operations that failed. */
+    public long getFailedCount() {
+      return failedCount.get();
+    }
+
+    /** The time all finished operations waited for a slot and a worker, in nanoseconds. */
+    public long getTotalWaitNanos() {
+      return totalWaitNanos.get();
+    }
+
+    /** The time all finished operations took from start to completion, in nanoseconds. */
+    public long getTotalLatencyNanos() {
+      return totalLatencyNanos.get();
+    }
+
+    /** The longest time an operation took from start to completion, in nanoseconds. */
+    public long getMaxLatencyNanos() {
+      return maxLatencyNanos.get();
+    }
+
+    void finished(long waitNanos, long latencyNanos, boolean successful) {
+      inFlight.decrementAndGet();
+      (successful ? completedCount : failedCount).incrementAndGet();
+      totalWaitNanos.addAndGet(waitNanos);
+      totalLatencyNanos.addAndGet(latencyNanos);
+      long max;
+      do {
+        max = maxLatencyNanos.get();
+      } while (latencyNanos > max && !maxLatencyNanos.compareAndSet(max, latencyNanos));
+    }
+  }
+
+  private static final int DEFAULT_CONCURRENCY_LIMIT = 32;
+
+  private final ThreadPoolExecutor workers;
+  private final Map<OperationType, Limiter> limiters = new EnumMap<>(OperationType.class);
+
+  public FlutterFirebaseFirestoreExecutor() {
+    this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+  }
+
+  public FlutterFirebaseFirestoreExecutor(int workerCount) {
+    AtomicInteger threadCount = new AtomicInteger();
+    workers =
+        new ThreadPoolExecutor(
+            workerCount,
+            workerCount,
+            30,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "FLTFirestore-worker-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    workers.allowCoreThreadTimeOut(true);
+    for (OperationType type : OperationType.values()) {
+      boolean unlimited = type == OperationType.WRITE || type == OperationType.OTHER;
+      limiters.put(type, new Limiter(unlimited ? 0 : DEFAULT_CONCURRENCY_LIMIT));
+    }
+  }
+
+  /**
+   * Sets the maximum number of operations of a type in flight at once.
+   *
+   * @param limit the limit, or 0 for no limit
+   */
+  public void setConcurrencyLimit(@NonNull OperationType type, int limit) {
+    limiters.get(type).setLimit(limit);
+  }
+
+  @NonNull
+  public OperationStats getStats(@NonNull OperationType type) {
+    return limiters.get(type).stats;
+  }
+
+  /** The number of tasks waiting for a worker thread. */
+  public int getQueuedTaskCount() {
+    return workers.getQueue().size();
+  }
+
+  /** Runs a task on a worker thread. */
+  @Override
+  public void execute(@NonNull Runnable command) {
+    workers.execute(command);
+  }
+
+  /** Converts the result of a successful task on a worker thread. Failures are passed on as is. */
+  public <T, R> Task<R> convert(Task<T> task, Converter<T, R> converter) {
+    return task.onSuccessTask(workers, value -> Tasks.forResult(converter.convert(value)));
+  }
+
+  /**
+   * Starts the operation once its type has a free slot, and sends the result of its task when it
+   * completes.
+   */
+  public <T> void run(
+      @NonNull OperationType type,
+      @NonNull Operation<T> operation,
+      @NonNull GeneratedAndroidFirebaseFirestore.Result<T> result) {
+    Limiter limiter = limiters.get(type);
+    OperationStats stats = limiter.stats;
+    long queuedAt = System.nanoTime();
+    stats.waiting.incrementAndGet();
+    limiter.submit(
+        () -> {
+          stats.waiting.decrementAndGet();
+          stats.inFlight.incrementAndGet();
+          long startedAt = System.nanoTime();
+          Task<T> task;
+          try {
+            task = operation.start();
+          } catch (Exception e) {
+            stats.finished(startedAt - queuedAt, System.nanoTime() - startedAt, false);
+            limiter.release();
+            sendError(result, e);
+            return;
+          }
+          task.addOnCompleteListener(
+              workers,
+              completedTask -> {
+                stats.finished(
+                    startedAt - queuedAt,
+                    System.nanoTime() - startedAt,
+                    completedTask.isSuccessful());
+                limiter.release();
+                if (completedTask.isSuccessful()) {
+                  result.success(completedTask.getResult());
+                } else {
+                  sendError(result, completedTask.getException());
+                }
+              });
+        });
+  }
+
+  private static void sendError(GeneratedAndroidFirebaseFirestore.Result<?> result, Exception e) {
+    if (e instanceof GeneratedAndroidFirebaseFirestore.FlutterError) {
+      result.error(e);
+    } else {
+      ExceptionConverter.sendErrorToFlutter(result, e);
+    }
+  }
+
+  /** Admits at most {@code limit} operations of one type into the worker pool at a time. */
+  private class Limiter {
+    final OperationStats stats = new OperationStats();
+    private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    private int limit;
+    private int running;
+
+    Limiter(int limit) {
+      this.limit = limit;
+    }
+
+    void setLimit(int limit) {
+      ArrayDeque<Runnable> admitted = new ArrayDeque<>();
+      synchronized (this) {
+        this.limit = limit;
+        while (!waiting.isEmpty() && (limit <= 0 || running < limit)) {
+          running++;
+          admitted.add(waiting.poll());
+        }
+      }
+      for (Runnable runnable : admitted) {
+        workers.execute(runnable);
+      }
+    }
+
+    void submit(Runnable runnable) {
+      synchronized (this) {
+        if (limit > 0 && running >= limit) {
+          waiting.add(runnable);
+          return;
+        }
+        running++;
+      }
+      workers.execute(runnable);
+    }
+
+    void release() {
+      Runnable next;
+      synchronized (this) {
+        next = limit > 0 && running > limit ? null : waiting.poll();
+        if (next == null) {
+          running--;
+          return;
+        }
+      }
+      workers.execute(next);
+    }
+  }
+}
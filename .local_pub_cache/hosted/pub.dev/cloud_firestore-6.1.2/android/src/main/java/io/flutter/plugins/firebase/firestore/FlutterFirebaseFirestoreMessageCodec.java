@@ -29,7 +29,6 @@ import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -58,9 +57,101 @@ class FlutterFirebaseFirestoreMessageCodec extends StandardMessageCodec {
   private static final byte DATA_TYPE_FIRESTORE_SETTINGS = (byte) 198;
   private static final byte DATA_TYPE_VECTOR_VALUE = (byte) 199;
 
+  // The types StandardMessageCodec uses for lists and maps.
+  private static final byte LIST = 12;
+  private static final byte MAP = 13;
+
+  // Encoding buffers are kept per thread and reused, unless they grew larger than this.
+  private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+  private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private static final ThreadLocal<ReusableOutputStream> reusableStream = new ThreadLocal<>();
+
+  /** A {@link ByteArrayOutputStream} that exposes its buffer, so that it can be copied once. */
+  private static final class ReusableOutputStream extends ByteArrayOutputStream {
+    ReusableOutputStream() {
+      super(INITIAL_BUFFER_SIZE);
+    }
+
+    byte[] buffer() {
+      return buf;
+    }
+  }
+
+  private static ReusableOutputStream acquireStream() {
+    ReusableOutputStream stream = reusableStream.get();
+    if (stream == null) {
+      return new ReusableOutputStream();
+    }
+    // Taken out while in use, in case an encoding is started from within another one.
+    reusableStream.set(null);
+    return stream;
+  }
+
+  private static void releaseStream(ReusableOutputStream stream) {
+    if (stream.buffer().length <= MAX_RETAINED_BUFFER_SIZE) {
+      stream.reset();
+      reusableStream.set(stream);
+    }
+  }
+
+  /**
+   * A value encoded by {@link #encodeAhead(Object)}. The bytes start with a placeholder for the
+   * envelope byte that precedes the value in a success envelope, so that the alignment padding
+   * inside the value matches the position it is written at.
+   */
+  static final class EncodedValue {
+    final Object value;
+    final byte[] bytes;
+
+    EncodedValue(Object value, byte[] bytes) {
+      this.value = value;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Encodes a value ahead of sending it as an event, so that the expensive part of the encoding
+   * can happen off the main thread. Sending the returned value only copies its bytes.
+   */
+  Object encodeAhead(Object value) {
+    ReusableOutputStream stream = acquireStream();
+    try {
+      stream.write(0);
+      writeValue(stream, value);
+      return new EncodedValue(value, stream.toByteArray());
+    } finally {
+      releaseStream(stream);
+    }
+  }
+
+  @Override
+  public ByteBuffer encodeMessage(Object message) {
+    if (message == null) {
+      return null;
+    }
+    ReusableOutputStream stream = acquireStream();
+    try {
+      writeValue(stream, message);
+      ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
+      buffer.put(stream.buffer(), 0, stream.size());
+      return buffer;
+    } finally {
+      releaseStream(stream);
+    }
+  }
+
   @Override
   protected void writeValue(ByteArrayOutputStream stream, Object value) {
-    if (value instanceof Date) {
+    if (value instanceof EncodedValue) {
+      EncodedValue encodedValue = (EncodedValue) value;
+      if (stream.size() % 8 == 1) {
+        stream.write(encodedValue.bytes, 1, encodedValue.bytes.length - 1);
+      } else {
+        // The padding would not line up, e.g. if the value is nested in another one
+        writeValue(stream, encodedValue.value);
+      }
+    } else if (value instanceof Date) {
       stream.write(DATA_TYPE_DATE_TIME);
       writeLong(stream, ((Date) value).getTime());
     } else if (value instanceof Timestamp) {
@@ -81,13 +172,10 @@ class FlutterFirebaseFirestoreMessageCodec extends StandardMessageCodec {
       String appName = firestore.getApp().getName();
       writeValue(stream, appName);
       writeValue(stream, ((DocumentReference) value).getPath());
-      String databaseURL;
       // There is no way of getting database URL from Firebase android SDK API so we cache it ourselves
-      synchronized (FlutterFirebaseFirestorePlugin.firestoreInstanceCache) {
-        databaseURL =
-            FlutterFirebaseFirestorePlugin.getCachedFirebaseFirestoreInstanceForKey(firestore)
-                .getDatabaseURL();
-      }
+      String databaseURL =
+          FlutterFirebaseFirestorePlugin.getCachedFirebaseFirestoreInstanceForKey(firestore)
+              .getDatabaseURL();
       writeValue(stream, databaseURL);
     } else if (value instanceof DocumentSnapshot) {
       writeDocumentSnapshot(stream, (DocumentSnapshot) value);
@@ -118,16 +206,30 @@ class FlutterFirebaseFirestoreMessageCodec extends StandardMessageCodec {
     }
   }
 
+  // Snapshots are written as maps entry by entry, without building the maps first.
+
+  private void writeMapHeader(ByteArrayOutputStream stream, int size) {
+    stream.write(MAP);
+    writeSize(stream, size);
+  }
+
+  private void writeListHeader(ByteArrayOutputStream stream, int size) {
+    stream.write(LIST);
+    writeSize(stream, size);
+  }
+
+  private void writeEntry(ByteArrayOutputStream stream, String key, Object value) {
+    writeValue(stream, key);
+    writeValue(stream, value);
+  }
+
   private void writeSnapshotMetadata(ByteArrayOutputStream stream, SnapshotMetadata value) {
-    Map<String, Boolean> metadataMap = new HashMap<>();
-    metadataMap.put("hasPendingWrites", value.hasPendingWrites());
-    metadataMap.put("isFromCache", value.isFromCache());
-    writeValue(stream, metadataMap);
+    writeMapHeader(stream, 2);
+    writeEntry(stream, "hasPendingWrites", value.hasPendingWrites());
+    writeEntry(stream, "isFromCache", value.isFromCache());
   }
 
   private void writeDocumentChange(ByteArrayOutputStream stream, DocumentChange value) {
-    Map<String, Object> changeMap = new HashMap<>();
-
     String type = null;
     switch (value.getType()) {
       case ADDED:
@@ -141,54 +243,52 @@ class FlutterFirebaseFirestoreMessageCodec extends StandardMessageCodec {
         break;
     }
 
-    changeMap.put("type", type);
-    changeMap.put("data", value.getDocument().getData());
-    changeMap.put("path", value.getDocument().getReference().getPath());
-    changeMap.put("oldIndex", value.getOldIndex());
-    changeMap.put("newIndex", value.getNewIndex());
-    changeMap.put("metadata", value.getDocument().getMetadata());
-
-    writeValue(stream, changeMap);
+    writeMapHeader(stream, 6);
+    writeEntry(stream, "type", type);
+    writeEntry(stream, "data", value.getDocument().getData());
+    writeEntry(stream, "path", value.getDocument().getReference().getPath());
+    writeEntry(stream, "oldIndex", value.getOldIndex());
+    writeEntry(stream, "newIndex", value.getNewIndex());
+    writeEntry(stream, "metadata", value.getDocument().getMetadata());
   }
 
   private void writeQuerySnapshot(ByteArrayOutputStream stream, QuerySnapshot value) {
-    List<String> paths = new ArrayList<>();
-    Map<String, Object> querySnapshotMap = new HashMap<>();
-    List<Map<String, Object>> documents = new ArrayList<>();
-    List<SnapshotMetadata> metadatas = new ArrayList<>();
-
     DocumentSnapshot.ServerTimestampBehavior serverTimestampBehavior =
         FlutterFirebaseFirestorePlugin.serverTimestampBehaviorHashMap.get(value.hashCode());
+    List<DocumentSnapshot> documents = value.getDocuments();
 
-    for (DocumentSnapshot document : value.getDocuments()) {
-      paths.add(document.getReference().getPath());
+    writeMapHeader(stream, 5);
+
+    writeValue(stream, "paths");
+    writeListHeader(stream, documents.size());
+    for (DocumentSnapshot document : documents) {
+      writeValue(stream, document.getReference().getPath());
+    }
+
+    writeValue(stream, "documents");
+    writeListHeader(stream, documents.size());
+    for (DocumentSnapshot document : documents) {
       if (serverTimestampBehavior != null) {
-        documents.add(document.getData(serverTimestampBehavior));
+        writeValue(stream, document.getData(serverTimestampBehavior));
       } else {
-        documents.add(document.getData());
+        writeValue(stream, document.getData());
       }
-      metadatas.add(document.getMetadata());
     }
 
-    querySnapshotMap.put("paths", paths);
-    querySnapshotMap.put("documents", documents);
-    querySnapshotMap.put("metadatas", metadatas);
-    querySnapshotMap.put("documentChanges", value.getDocumentChanges());
-    querySnapshotMap.put("metadata", value.getMetadata());
+    writeValue(stream, "metadatas");
+    writeListHeader(stream, documents.size());
+    for (DocumentSnapshot document : documents) {
+      writeSnapshotMetadata(stream, document.getMetadata());
+    }
+
+    writeEntry(stream, "documentChanges", value.getDocumentChanges());
+    writeEntry(stream, "metadata", value.getMetadata());
 
     FlutterFirebaseFirestorePlugin.serverTimestampBehaviorHashMap.remove(value.hashCode());
-    writeValue(stream, querySnapshotMap);
   }
 
   private void writeLoadBundleTaskProgress(
       ByteArrayOutputStream stream, LoadBundleTaskProgress snapshot) {
-    Map<String, Object> snapshotMap = new HashMap<>();
-
-    snapshotMap.put("bytesLoaded", snapshot.getBytesLoaded());
-    snapshotMap.put("documentsLoaded", snapshot.getDocumentsLoaded());
-    snapshotMap.put("totalBytes", snapshot.getTotalBytes());
-    snapshotMap.put("totalDocuments", snapshot.getTotalDocuments());
-
     LoadBundleTaskProgress.TaskState taskState = snapshot.getTaskState();
     String convertedState = "running";
 
@@ -204,33 +304,34 @@ class FlutterFirebaseFirestoreMessageCodec extends StandardMessageCodec {
         break;
     }
 
-    snapshotMap.put("taskState", convertedState);
-
-    writeValue(stream, snapshotMap);
+    writeMapHeader(stream, 5);
+    writeEntry(stream, "bytesLoaded", snapshot.getBytesLoaded());
+    writeEntry(stream, "documentsLoaded", snapshot.getDocumentsLoaded());
+    writeEntry(stream, "totalBytes", snapshot.getTotalBytes());
+    writeEntry(stream, "totalDocuments", snapshot.getTotalDocuments());
+    writeEntry(stream, "taskState", convertedState);
   }
 
   @SuppressWarnings("ConstantConditions")
   private void writeDocumentSnapshot(ByteArrayOutputStream stream, DocumentSnapshot value) {
-    Map<String, Object> snapshotMap = new HashMap<>();
-
-    snapshotMap.put("path", value.getReference().getPath());
+    writeMapHeader(stream, 3);
+    writeEntry(stream, "path", value.getReference().getPath());
 
     if (value.exists()) {
       DocumentSnapshot.ServerTimestampBehavior serverTimestampBehavior =
           FlutterFirebaseFirestorePlugin.serverTimestampBehaviorHashMap.get(value.hashCode());
       if (serverTimestampBehavior != null) {
-        snapshotMap.put("data", value.getData(serverTimestampBehavior));
+        writeEntry(stream, "data", value.getData(serverTimestampBehavior));
       } else {
-        snapshotMap.put("data", value.getData());
+        writeEntry(stream, "data", value.getData());
       }
     } else {
-      snapshotMap.put("data", null);
+      writeEntry(stream, "data", null);
     }
 
-    snapshotMap.put("metadata", value.getMetadata());
+    writeEntry(stream, "metadata", value.getMetadata());
 
     FlutterFirebaseFirestorePlugin.serverTimestampBehaviorHashMap.remove(value.hashCode());
-    writeValue(stream, snapshotMap);
   }
 
   @Override
@@ -302,8 +403,16 @@ class FlutterFirebaseFirestoreMessageCodec extends StandardMessageCodec {
     String appName = (String) readValue(buffer);
     String databaseURL = (String) readValue(buffer);
     FirebaseFirestoreSettings settings = (FirebaseFirestoreSettings) readValue(buffer);
+    FirebaseFirestore cachedFirestoreInstance =
+        FlutterFirebaseFirestorePlugin.getFirestoreInstanceByNameAndDatabaseUrl(
+            appName, databaseURL);
+    if (cachedFirestoreInstance != null) {
+      return cachedFirestoreInstance;
+    }
+
     synchronized (FlutterFirebaseFirestorePlugin.firestoreInstanceCache) {
-      FirebaseFirestore cachedFirestoreInstance =
+      // Another thread may have created the instance in the meantime.
+      cachedFirestoreInstance =
           FlutterFirebaseFirestorePlugin.getFirestoreInstanceByNameAndDatabaseUrl(
               appName, databaseURL);
       if (cachedFirestoreInstance != null) {
@@ -20,6 +20,7 @@ import com.google.firebase.FirebaseApp;
 import com.google.firebase.firestore.AggregateField;
 import com.google.firebase.firestore.AggregateQuery;
 import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldPath;
@@ -33,7 +34,6 @@ import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.Source;
 import com.google.firebase.firestore.Transaction;
-import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.firestore.remote.FirestoreChannel;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
@@ -44,6 +44,7 @@ import io.flutter.plugin.common.EventChannel.StreamHandler;
 import io.flutter.plugin.common.StandardMethodCodec;
 import io.flutter.plugins.firebase.core.FlutterFirebasePlugin;
 import io.flutter.plugins.firebase.core.FlutterFirebasePluginRegistry;
+import io.flutter.plugins.firebase.firestore.streamhandler.BulkWriteStreamHandler;
 import io.flutter.plugins.firebase.firestore.streamhandler.DocumentSnapshotsStreamHandler;
 import io.flutter.plugins.firebase.firestore.streamhandler.LoadBundleStreamHandler;
 import io.flutter.plugins.firebase.firestore.streamhandler.OnTransactionResultListener;
@@ -59,6 +60,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class FlutterFirebaseFirestorePlugin
@@ -66,8 +68,16 @@ public class FlutterFirebaseFirestorePlugin
         FlutterPlugin,
         ActivityAware,
         GeneratedAndroidFirebaseFirestore.FirebaseFirestoreHostApi {
-  protected static final HashMap<FirebaseFirestore, FlutterFirebaseFirestoreExtension>
-      firestoreInstanceCache = new HashMap<>();
+  // The instance cache is indexed both ways so that lookups never take a lock. Changes are made
+  // while synchronized on firestoreInstanceCache, which is also held while creating an instance so
+  // that it is only created and configured once.
+  protected static final ConcurrentHashMap<FirebaseFirestore, FlutterFirebaseFirestoreExtension>
+      firestoreInstanceCache = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, FlutterFirebaseFirestoreExtension>
+      firestoreInstancesByName = new ConcurrentHashMap<>();
+  // Runs the operations of all engines, so that the limits apply to the process as a whole.
+  private static final FlutterFirebaseFirestoreExecutor operationExecutor =
+      new FlutterFirebaseFirestoreExecutor();
   public static final String TAG = "FlutterFirestorePlugin";
   public static final String DEFAULT_ERROR_CODE = "firebase_firestore";
 
@@ -92,9 +102,7 @@ public class FlutterFirebaseFirestorePlugin
 
   protected static FlutterFirebaseFirestoreExtension getCachedFirebaseFirestoreInstanceForKey(
       FirebaseFirestore firestore) {
-    synchronized (firestoreInstanceCache) {
-      return firestoreInstanceCache.get(firestore);
-    }
+    return firestoreInstanceCache.get(firestore);
   }
 
   protected static void setCachedFirebaseFirestoreInstanceForKey(
@@ -102,31 +110,40 @@ public class FlutterFirebaseFirestorePlugin
     synchronized (firestoreInstanceCache) {
       FlutterFirebaseFirestoreExtension existingInstance = firestoreInstanceCache.get(firestore);
       if (existingInstance == null) {
-        firestoreInstanceCache.put(
-            firestore, new FlutterFirebaseFirestoreExtension(firestore, databaseURL));
+        FlutterFirebaseFirestoreExtension extension =
+            new FlutterFirebaseFirestoreExtension(firestore, databaseURL);
+        firestoreInstanceCache.put(firestore, extension);
+        firestoreInstancesByName.put(
+            instanceName(firestore.getApp().getName(), databaseURL), extension);
       }
     }
   }
 
   protected static FirebaseFirestore getFirestoreInstanceByNameAndDatabaseUrl(
       String appName, String databaseURL) {
-    synchronized (firestoreInstanceCache) {
-      for (Map.Entry<FirebaseFirestore, FlutterFirebaseFirestoreExtension> entry :
-          firestoreInstanceCache.entrySet()) {
-        if (entry.getValue().getInstance().getApp().getName().equals(appName)
-            && entry.getValue().getDatabaseURL().equals(databaseURL)) {
-          return entry.getKey();
-        }
-      }
-    }
-    return null;
+    FlutterFirebaseFirestoreExtension extension =
+        firestoreInstancesByName.get(instanceName(appName, databaseURL));
+    return extension != null ? extension.getInstance() : null;
+  }
+
+  private static String instanceName(String appName, String databaseURL) {
+    // Prefixed with the length, as app names may contain any character.
+    return appName.length() + ":" + appName + databaseURL;
+  }
+
+  /** The executor running Firestore operations, for tuning limits and reading metrics. */
+  public static FlutterFirebaseFirestoreExecutor getOperationExecutor() {
+    return operationExecutor;
   }
 
   private static void destroyCachedFirebaseFirestoreInstanceForKey(FirebaseFirestore firestore) {
     synchronized (firestoreInstanceCache) {
       FlutterFirebaseFirestoreExtension existingInstance = firestoreInstanceCache.get(firestore);
       if (existingInstance != null) {
+        firestoreInstancesByName.remove(
+            instanceName(firestore.getApp().getName(), existingInstance.getDatabaseURL()));
         firestoreInstanceCache.remove(firestore);
+        PigeonParser.getQueryCache().invalidate(firestore);
       }
     }
   }
@@ -319,8 +336,16 @@ public class FlutterFirebaseFirestorePlugin
 
   public static FirebaseFirestore getFirestoreFromPigeon(
       GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp pigeonApp) {
+    FirebaseFirestore cachedFirestoreInstance =
+        getFirestoreInstanceByNameAndDatabaseUrl(
+            pigeonApp.getAppName(), pigeonApp.getDatabaseURL());
+    if (cachedFirestoreInstance != null) {
+      return cachedFirestoreInstance;
+    }
+
     synchronized (FlutterFirebaseFirestorePlugin.firestoreInstanceCache) {
-      FirebaseFirestore cachedFirestoreInstance =
+      // Another thread may have created the instance in the meantime.
+      cachedFirestoreInstance =
           FlutterFirebaseFirestorePlugin.getFirestoreInstanceByNameAndDatabaseUrl(
               pigeonApp.getAppName(), pigeonApp.getDatabaseURL());
       if (cachedFirestoreInstance != null) {
@@ -348,6 +373,17 @@ public class FlutterFirebaseFirestorePlugin
             new LoadBundleStreamHandler(getFirestoreFromPigeon(app), bundle)));
   }
 
+  @Override
+  public void loadBundleFromFile(
+      @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
+      @NonNull String path,
+      @NonNull GeneratedAndroidFirebaseFirestore.Result<String> result) {
+    result.success(
+        registerEventChannel(
+            METHOD_CHANNEL_NAME + "/loadBundle",
+            new LoadBundleStreamHandler(getFirestoreFromPigeon(app), path)));
+  }
+
   @Override
   public void namedQueryGet(
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
@@ -358,112 +394,92 @@ public class FlutterFirebaseFirestorePlugin
                   GeneratedAndroidFirebaseFirestore.PigeonQuerySnapshot>
               result) {
 
-    cachedThreadPool.execute(
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.QUERY,
         () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            Query query = Tasks.await(firestore.getNamedQuery(name));
-
-            if (query == null) {
-              result.error(
-                  new NullPointerException(
-                      "Named query has not been found. Please check it has been loaded properly via loadBundle()."));
-              return;
-            }
-
-            final QuerySnapshot querySnapshot =
-                Tasks.await(query.get(PigeonParser.parsePigeonSource(options.getSource())));
-
-            result.success(
-                PigeonParser.toPigeonQuerySnapshot(
-                    querySnapshot,
-                    PigeonParser.parsePigeonServerTimestampBehavior(
-                        options.getServerTimestampBehavior())));
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+          FirebaseFirestore firestore = getFirestoreFromPigeon(app);
+          Task<QuerySnapshot> queryTask =
+              firestore
+                  .getNamedQuery(name)
+                  .onSuccessTask(
+                      operationExecutor,
+                      query -> {
+                        if (query == null) {
+                          throw new GeneratedAndroidFirebaseFirestore.FlutterError(
+                              DEFAULT_ERROR_CODE,
+                              "Named query has not been found. Please check it has been loaded properly via loadBundle().",
+                              null);
+                        }
+                        return query.get(PigeonParser.parsePigeonSource(options.getSource()));
+                      });
+
+          return operationExecutor.convert(
+              queryTask,
+              querySnapshot ->
+                  PigeonParser.toPigeonQuerySnapshot(
+                      querySnapshot,
+                      PigeonParser.parsePigeonServerTimestampBehavior(
+                          options.getServerTimestampBehavior())));
+        },
+        result);
   }
 
   @Override
   public void clearPersistence(
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
-        () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            Tasks.await(firestore.clearPersistence());
-            result.success(null);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.OTHER,
+        () -> getFirestoreFromPigeon(app).clearPersistence(),
+        result);
   }
 
   @Override
   public void disableNetwork(
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
-        () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            Tasks.await(firestore.disableNetwork());
-            result.success(null);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.OTHER,
+        () -> getFirestoreFromPigeon(app).disableNetwork(),
+        result);
   }
 
   @Override
   public void enableNetwork(
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
-        () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            Tasks.await(firestore.enableNetwork());
-            result.success(null);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.OTHER,
+        () -> getFirestoreFromPigeon(app).enableNetwork(),
+        result);
   }
 
   @Override
   public void terminate(
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.OTHER,
         () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            Tasks.await(firestore.terminate());
-            destroyCachedFirebaseFirestoreInstanceForKey(firestore);
-            result.success(null);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+          FirebaseFirestore firestore = getFirestoreFromPigeon(app);
+          return operationExecutor.convert(
+              firestore.terminate(),
+              unused -> {
+                destroyCachedFirebaseFirestoreInstanceForKey(firestore);
+                return null;
+              });
+        },
+        result);
   }
 
   @Override
   public void waitForPendingWrites(
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
-        () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            Tasks.await(firestore.waitForPendingWrites());
-            result.success(null);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.WRITE,
+        () -> getFirestoreFromPigeon(app).waitForPendingWrites(),
+        result);
   }
 
   @Override
@@ -473,17 +489,10 @@ public class FlutterFirebaseFirestorePlugin
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull String indexConfiguration,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
-        () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            Tasks.await(firestore.setIndexConfiguration(indexConfiguration));
-
-            result.success(null);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.OTHER,
+        () -> getFirestoreFromPigeon(app).setIndexConfiguration(indexConfiguration),
+        result);
   }
 
   @Override
@@ -491,7 +500,7 @@ public class FlutterFirebaseFirestorePlugin
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.PersistenceCacheIndexManagerRequest request,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
+    operationExecutor.execute(
         () -> {
           PersistentCacheIndexManager indexManager =
               getFirestoreFromPigeon(app).getPersistentCacheIndexManager();
@@ -519,7 +528,7 @@ public class FlutterFirebaseFirestorePlugin
   public void setLoggingEnabled(
       @NonNull Boolean loggingEnabled,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
+    operationExecutor.execute(
         () -> {
           try {
             FirebaseFirestore.setLoggingEnabled(loggingEnabled);
@@ -584,6 +593,22 @@ public class FlutterFirebaseFirestorePlugin
           GeneratedAndroidFirebaseFirestore.Result<
                   GeneratedAndroidFirebaseFirestore.PigeonDocumentSnapshot>
               result) {
+    OnTransactionResultListener handler = transactionHandlers.get(transactionId);
+    if (handler instanceof TransactionStreamHandler
+        && ((TransactionStreamHandler) handler).isOptimistic()) {
+      operationExecutor.run(
+          FlutterFirebaseFirestoreExecutor.OperationType.READ,
+          () ->
+              operationExecutor.convert(
+                  ((TransactionStreamHandler) handler)
+                      .get(getFirestoreFromPigeon(app).document(path)),
+                  documentSnapshot ->
+                      PigeonParser.toPigeonDocumentSnapshot(
+                          documentSnapshot, DocumentSnapshot.ServerTimestampBehavior.NONE)),
+          result);
+      return;
+    }
+
     cachedThreadPool.execute(
         () -> {
           try {
@@ -614,33 +639,27 @@ public class FlutterFirebaseFirestorePlugin
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.DocumentReferenceRequest request,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.WRITE,
         () -> {
-          try {
-            DocumentReference documentReference =
-                getFirestoreFromPigeon(app).document(request.getPath());
-
-            Map<Object, Object> data = Objects.requireNonNull(request.getData());
-
-            Task<Void> setTask;
-
-            assert request.getOption() != null;
-            if (request.getOption().getMerge() != null && request.getOption().getMerge()) {
-              setTask = documentReference.set(data, SetOptions.merge());
-            } else if (request.getOption().getMergeFields() != null) {
-              List<List<String>> fieldList =
-                  Objects.requireNonNull(request.getOption().getMergeFields());
-              List<FieldPath> fieldPathList = PigeonParser.parseFieldPath(fieldList);
-              setTask = documentReference.set(data, SetOptions.mergeFieldPaths(fieldPathList));
-            } else {
-              setTask = documentReference.set(data);
-            }
-
-            result.success(Tasks.await(setTask));
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
+          DocumentReference documentReference =
+              getFirestoreFromPigeon(app).document(request.getPath());
+
+          Map<Object, Object> data = Objects.requireNonNull(request.getData());
+
+          assert request.getOption() != null;
+          if (request.getOption().getMerge() != null && request.getOption().getMerge()) {
+            return documentReference.set(data, SetOptions.merge());
+          } else if (request.getOption().getMergeFields() != null) {
+            List<List<String>> fieldList =
+                Objects.requireNonNull(request.getOption().getMergeFields());
+            List<FieldPath> fieldPathList = PigeonParser.parseFieldPath(fieldList);
+            return documentReference.set(data, SetOptions.mergeFieldPaths(fieldPathList));
+          } else {
+            return documentReference.set(data);
           }
-        });
+        },
+        result);
   }
 
   @Override
@@ -648,45 +667,41 @@ public class FlutterFirebaseFirestorePlugin
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.DocumentReferenceRequest request,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.WRITE,
         () -> {
-          try {
-            DocumentReference documentReference =
-                getFirestoreFromPigeon(app).document(request.getPath());
-            Map<Object, Object> dataWithString = Objects.requireNonNull(request.getData());
-
-            Map<FieldPath, Object> data = new HashMap<>();
-            for (Object key : dataWithString.keySet()) {
-              if (key instanceof String) {
-                data.put(FieldPath.of((String) key), dataWithString.get(key));
-              } else if (key instanceof FieldPath) {
-                data.put((FieldPath) key, dataWithString.get(key));
-              } else {
-                throw new IllegalArgumentException(
-                    "Invalid key type in update data. Supported types are String and FieldPath.");
-              }
+          DocumentReference documentReference =
+              getFirestoreFromPigeon(app).document(request.getPath());
+          Map<Object, Object> dataWithString = Objects.requireNonNull(request.getData());
+
+          Map<FieldPath, Object> data = new HashMap<>();
+          for (Object key : dataWithString.keySet()) {
+            if (key instanceof String) {
+              data.put(FieldPath.of((String) key), dataWithString.get(key));
+            } else if (key instanceof FieldPath) {
+              data.put((FieldPath) key, dataWithString.get(key));
+            } else {
+              throw new IllegalArgumentException(
+                  "Invalid key type in update data. Supported types are String and FieldPath.");
             }
+          }
 
-            // Due to the signature of the function, I extract the first element of the map and
-            // pass the rest of the map as an array of alternating keys and values.
-            FieldPath firstFieldPath = data.keySet().iterator().next();
-            Object firstObject = data.get(firstFieldPath);
+          // Due to the signature of the function, I extract the first element of the map and
+          // pass the rest of the map as an array of alternating keys and values.
+          FieldPath firstFieldPath = data.keySet().iterator().next();
+          Object firstObject = data.get(firstFieldPath);
 
-            ArrayList<Object> flattenData = new ArrayList<>();
-            for (FieldPath fieldPath : data.keySet()) {
-              if (fieldPath.equals(firstFieldPath)) {
-                continue;
-              }
-              flattenData.add(fieldPath);
-              flattenData.add(data.get(fieldPath));
+          ArrayList<Object> flattenData = new ArrayList<>();
+          for (FieldPath fieldPath : data.keySet()) {
+            if (fieldPath.equals(firstFieldPath)) {
+              continue;
             }
-            result.success(
-                Tasks.await(
-                    documentReference.update(firstFieldPath, firstObject, flattenData.toArray())));
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
+            flattenData.add(fieldPath);
+            flattenData.add(data.get(fieldPath));
           }
-        });
+          return documentReference.update(firstFieldPath, firstObject, flattenData.toArray());
+        },
+        result);
   }
 
   @Override
@@ -697,26 +712,24 @@ public class FlutterFirebaseFirestorePlugin
           GeneratedAndroidFirebaseFirestore.Result<
                   GeneratedAndroidFirebaseFirestore.PigeonDocumentSnapshot>
               result) {
-    cachedThreadPool.execute(
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.READ,
         () -> {
-          try {
-            assert request.getSource() != null;
-            Source source = PigeonParser.parsePigeonSource(request.getSource());
-            DocumentReference documentReference =
-                getFirestoreFromPigeon(app).document(request.getPath());
-
-            final DocumentSnapshot documentSnapshot = Tasks.await(documentReference.get(source));
-
-            assert request.getServerTimestampBehavior() != null;
-            result.success(
-                PigeonParser.toPigeonDocumentSnapshot(
-                    documentSnapshot,
-                    PigeonParser.parsePigeonServerTimestampBehavior(
-                        request.getServerTimestampBehavior())));
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+          assert request.getSource() != null;
+          Source source = PigeonParser.parsePigeonSource(request.getSource());
+          DocumentReference documentReference =
+              getFirestoreFromPigeon(app).document(request.getPath());
+
+          assert request.getServerTimestampBehavior() != null;
+          return operationExecutor.convert(
+              documentReference.get(source),
+              documentSnapshot ->
+                  PigeonParser.toPigeonDocumentSnapshot(
+                      documentSnapshot,
+                      PigeonParser.parsePigeonServerTimestampBehavior(
+                          request.getServerTimestampBehavior())));
+        },
+        result);
   }
 
   @Override
@@ -724,17 +737,10 @@ public class FlutterFirebaseFirestorePlugin
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull GeneratedAndroidFirebaseFirestore.DocumentReferenceRequest request,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
-        () -> {
-          try {
-            DocumentReference documentReference =
-                getFirestoreFromPigeon(app).document(request.getPath());
-
-            result.success(Tasks.await(documentReference.delete()));
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.WRITE,
+        () -> getFirestoreFromPigeon(app).document(request.getPath()).delete(),
+        result);
   }
 
   @Override
@@ -748,33 +754,30 @@ public class FlutterFirebaseFirestorePlugin
           GeneratedAndroidFirebaseFirestore.Result<
                   GeneratedAndroidFirebaseFirestore.PigeonQuerySnapshot>
               result) {
-    cachedThreadPool.execute(
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.QUERY,
         () -> {
-          try {
-            Source source = PigeonParser.parsePigeonSource(options.getSource());
-            Query query =
-                PigeonParser.parseQuery(
-                    getFirestoreFromPigeon(app), path, isCollectionGroup, parameters);
-
-            if (query == null) {
-              result.error(
-                  new GeneratedAndroidFirebaseFirestore.FlutterError(
-                      "invalid_query",
-                      "An error occurred while parsing query arguments, see native logs for more information. Please report this issue.",
-                      null));
-              return;
-            }
-            final QuerySnapshot querySnapshot = Tasks.await(query.get(source));
-
-            result.success(
-                PigeonParser.toPigeonQuerySnapshot(
-                    querySnapshot,
-                    PigeonParser.parsePigeonServerTimestampBehavior(
-                        options.getServerTimestampBehavior())));
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
+          Source source = PigeonParser.parsePigeonSource(options.getSource());
+          Query query =
+              PigeonParser.parseQuery(
+                  getFirestoreFromPigeon(app), path, isCollectionGroup, parameters);
+
+          if (query == null) {
+            throw new GeneratedAndroidFirebaseFirestore.FlutterError(
+                "invalid_query",
+                "An error occurred while parsing query arguments, see native logs for more information. Please report this issue.",
+                null);
           }
-        });
+
+          return operationExecutor.convert(
+              query.get(source),
+              querySnapshot ->
+                  PigeonParser.toPigeonQuerySnapshot(
+                      querySnapshot,
+                      PigeonParser.parsePigeonServerTimestampBehavior(
+                          options.getServerTimestampBehavior())));
+        },
+        result);
   }
 
   @Override
@@ -789,10 +792,84 @@ public class FlutterFirebaseFirestorePlugin
           GeneratedAndroidFirebaseFirestore.Result<
                   List<GeneratedAndroidFirebaseFirestore.AggregateQueryResponse>>
               result) {
-    Query query =
-        PigeonParser.parseQuery(getFirestoreFromPigeon(app), path, isCollectionGroup, parameters);
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.AGGREGATE,
+        () -> {
+          Query query =
+              PigeonParser.parseQuery(
+                  getFirestoreFromPigeon(app), path, isCollectionGroup, parameters);
+
+          if (query == null) {
+            throw new GeneratedAndroidFirebaseFirestore.FlutterError(
+                "invalid_query",
+                "An error occurred while parsing query arguments, see native logs for more information. Please report this issue.",
+                null);
+          }
+
+          return operationExecutor.convert(
+              toAggregateQuery(query, queries).get(PigeonParser.parseAggregateSource(source)),
+              aggregateQuerySnapshot ->
+                  toAggregateQueryResponses(aggregateQuerySnapshot, queries));
+        },
+        result);
+  }
 
-    AggregateQuery aggregateQuery;
+  @Override
+  public void aggregateQueries(
+      @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
+      @NonNull List<String> paths,
+      @NonNull List<GeneratedAndroidFirebaseFirestore.PigeonQueryParameters> parameters,
+      @NonNull List<Boolean> isCollectionGroup,
+      @NonNull List<List<GeneratedAndroidFirebaseFirestore.AggregateQuery>> queries,
+      @NonNull GeneratedAndroidFirebaseFirestore.AggregateSource source,
+      @NonNull
+          GeneratedAndroidFirebaseFirestore.Result<
+                  List<List<GeneratedAndroidFirebaseFirestore.AggregateQueryResponse>>>
+              result) {
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.AGGREGATE,
+        () -> {
+          FirebaseFirestore firestore = getFirestoreFromPigeon(app);
+          AggregateSource aggregateSource = PigeonParser.parseAggregateSource(source);
+
+          // All queries are parsed and started before waiting for any of them, so that they run
+          // concurrently.
+          List<Task<AggregateQuerySnapshot>> tasks = new ArrayList<>(paths.size());
+          for (int i = 0; i < paths.size(); i++) {
+            Query query =
+                PigeonParser.parseQuery(
+                    firestore, paths.get(i), isCollectionGroup.get(i), parameters.get(i));
+
+            if (query == null) {
+              throw new GeneratedAndroidFirebaseFirestore.FlutterError(
+                  "invalid_query",
+                  "An error occurred while parsing query arguments, see native logs for more information. Please report this issue.",
+                  null);
+            }
+
+            tasks.add(toAggregateQuery(query, queries.get(i)).get(aggregateSource));
+          }
+
+          return operationExecutor.convert(
+              Tasks.whenAllComplete(tasks),
+              completedTasks -> {
+                List<List<GeneratedAndroidFirebaseFirestore.AggregateQueryResponse>> responses =
+                    new ArrayList<>(tasks.size());
+                for (int i = 0; i < tasks.size(); i++) {
+                  Task<AggregateQuerySnapshot> task = tasks.get(i);
+                  if (!task.isSuccessful()) {
+                    throw Objects.requireNonNull(task.getException());
+                  }
+                  responses.add(toAggregateQueryResponses(task.getResult(), queries.get(i)));
+                }
+                return responses;
+              });
+        },
+        result);
+  }
+
+  private static AggregateQuery toAggregateQuery(
+      Query query, List<GeneratedAndroidFirebaseFirestore.AggregateQuery> queries) {
     ArrayList<AggregateField> aggregateFields = new ArrayList<>();
 
     for (GeneratedAndroidFirebaseFirestore.AggregateQuery queryRequest : queries) {
@@ -811,63 +888,55 @@ public class FlutterFirebaseFirestorePlugin
       }
     }
 
-    assert query != null;
-    aggregateQuery =
-        query.aggregate(
-            aggregateFields.get(0),
-            aggregateFields.subList(1, aggregateFields.size()).toArray(new AggregateField[0]));
+    return query.aggregate(
+        aggregateFields.get(0),
+        aggregateFields.subList(1, aggregateFields.size()).toArray(new AggregateField[0]));
+  }
 
-    cachedThreadPool.execute(
-        () -> {
-          try {
-            AggregateQuerySnapshot aggregateQuerySnapshot =
-                Tasks.await(aggregateQuery.get(PigeonParser.parseAggregateSource(source)));
-
-            ArrayList<GeneratedAndroidFirebaseFirestore.AggregateQueryResponse> aggregateResponse =
-                new ArrayList<>();
-            for (GeneratedAndroidFirebaseFirestore.AggregateQuery queryRequest : queries) {
-              switch (queryRequest.getType()) {
-                case COUNT:
-                  GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder builder =
-                      new GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder();
-                  builder.setType(GeneratedAndroidFirebaseFirestore.AggregateType.COUNT);
-                  builder.setValue((double) aggregateQuerySnapshot.getCount());
-
-                  aggregateResponse.add(builder.build());
-                  break;
-                case SUM:
-                  assert queryRequest.getField() != null;
-                  GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder builderSum =
-                      new GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder();
-                  builderSum.setType(GeneratedAndroidFirebaseFirestore.AggregateType.SUM);
-                  builderSum.setValue(
-                      ((Number)
-                              Objects.requireNonNull(
-                                  aggregateQuerySnapshot.get(sum(queryRequest.getField()))))
-                          .doubleValue());
-                  builderSum.setField(queryRequest.getField());
-
-                  aggregateResponse.add(builderSum.build());
-                  break;
-                case AVERAGE:
-                  assert queryRequest.getField() != null;
-                  GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder builderAverage =
-                      new GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder();
-                  builderAverage.setType(GeneratedAndroidFirebaseFirestore.AggregateType.AVERAGE);
-                  builderAverage.setValue(
-                      aggregateQuerySnapshot.get(average(queryRequest.getField())));
-                  builderAverage.setField(queryRequest.getField());
-
-                  aggregateResponse.add(builderAverage.build());
-                  break;
-              }
-            }
+  private static List<GeneratedAndroidFirebaseFirestore.AggregateQueryResponse>
+      toAggregateQueryResponses(
+          AggregateQuerySnapshot aggregateQuerySnapshot,
+          List<GeneratedAndroidFirebaseFirestore.AggregateQuery> queries) {
+    ArrayList<GeneratedAndroidFirebaseFirestore.AggregateQueryResponse> aggregateResponse =
+        new ArrayList<>();
+    for (GeneratedAndroidFirebaseFirestore.AggregateQuery queryRequest : queries) {
+      switch (queryRequest.getType()) {
+        case COUNT:
+          GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder builder =
+              new GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder();
+          builder.setType(GeneratedAndroidFirebaseFirestore.AggregateType.COUNT);
+          builder.setValue((double) aggregateQuerySnapshot.getCount());
 
-            result.success(aggregateResponse);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+          aggregateResponse.add(builder.build());
+          break;
+        case SUM:
+          assert queryRequest.getField() != null;
+          GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder builderSum =
+              new GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder();
+          builderSum.setType(GeneratedAndroidFirebaseFirestore.AggregateType.SUM);
+          builderSum.setValue(
+              ((Number)
+                      Objects.requireNonNull(
+                          aggregateQuerySnapshot.get(sum(queryRequest.getField()))))
+                  .doubleValue());
+          builderSum.setField(queryRequest.getField());
+
+          aggregateResponse.add(builderSum.build());
+          break;
+        case AVERAGE:
+          assert queryRequest.getField() != null;
+          GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder builderAverage =
+              new GeneratedAndroidFirebaseFirestore.AggregateQueryResponse.Builder();
+          builderAverage.setType(GeneratedAndroidFirebaseFirestore.AggregateType.AVERAGE);
+          builderAverage.setValue(aggregateQuerySnapshot.get(average(queryRequest.getField())));
+          builderAverage.setField(queryRequest.getField());
+
+          aggregateResponse.add(builderAverage.build());
+          break;
+      }
+    }
+
+    return aggregateResponse;
   }
 
   @Override
@@ -875,57 +944,28 @@ public class FlutterFirebaseFirestorePlugin
       @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
       @NonNull List<GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand> writes,
       @NonNull GeneratedAndroidFirebaseFirestore.Result<Void> result) {
-    cachedThreadPool.execute(
+    operationExecutor.run(
+        FlutterFirebaseFirestoreExecutor.OperationType.WRITE,
         () -> {
-          try {
-            FirebaseFirestore firestore = getFirestoreFromPigeon(app);
-            WriteBatch batch = firestore.batch();
-
-            for (GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand write : writes) {
-              GeneratedAndroidFirebaseFirestore.PigeonTransactionType type =
-                  Objects.requireNonNull(write.getType());
-              String path = Objects.requireNonNull(write.getPath());
-              Map<String, Object> data = write.getData();
-
-              DocumentReference documentReference = firestore.document(path);
-
-              switch (type) {
-                case DELETE_TYPE:
-                  batch = batch.delete(documentReference);
-                  break;
-                case UPDATE:
-                  batch = batch.update(documentReference, Objects.requireNonNull(data));
-                  break;
-                case SET:
-                  GeneratedAndroidFirebaseFirestore.PigeonDocumentOption options =
-                      Objects.requireNonNull(write.getOption());
-
-                  if (options.getMerge() != null && options.getMerge()) {
-                    batch =
-                        batch.set(
-                            documentReference, Objects.requireNonNull(data), SetOptions.merge());
-                  } else if (options.getMergeFields() != null) {
-                    List<FieldPath> fieldPathList =
-                        PigeonParser.parseFieldPath(
-                            Objects.requireNonNull(options.getMergeFields()));
-                    batch =
-                        batch.set(
-                            documentReference,
-                            Objects.requireNonNull(data),
-                            SetOptions.mergeFieldPaths(fieldPathList));
-                  } else {
-                    batch = batch.set(documentReference, Objects.requireNonNull(data));
-                  }
-                  break;
-              }
-            }
+          FirebaseFirestore firestore = getFirestoreFromPigeon(app);
+          return PigeonParser.parseWriteBatch(firestore, writes).commit();
+        },
+        result);
+  }
 
-            Tasks.await(batch.commit());
-            result.success(null);
-          } catch (Exception e) {
-            ExceptionConverter.sendErrorToFlutter(result, e);
-          }
-        });
+  @Override
+  public void writeBatchCommitBulk(
+      @NonNull GeneratedAndroidFirebaseFirestore.FirestorePigeonFirebaseApp app,
+      @NonNull List<GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand> writes,
+      @NonNull Long maxInFlight,
+      @NonNull GeneratedAndroidFirebaseFirestore.Result<String> result) {
+    FirebaseFirestore firestore = getFirestoreFromPigeon(app);
+
+    result.success(
+        registerEventChannel(
+            METHOD_CHANNEL_NAME + "/bulkWrite",
+            new BulkWriteStreamHandler(
+                firestore, writes, maxInFlight.intValue(), operationExecutor)));
   }
 
   @Override
@@ -958,7 +998,8 @@ public class FlutterFirebaseFirestorePlugin
                 includeMetadataChanges,
                 PigeonParser.parsePigeonServerTimestampBehavior(
                     options.getServerTimestampBehavior()),
-                PigeonParser.parseListenSource(source))));
+                PigeonParser.parseListenSource(source),
+                operationExecutor)));
   }
 
   @Override
@@ -981,6 +1022,7 @@ public class FlutterFirebaseFirestorePlugin
                 includeMetadataChanges,
                 PigeonParser.parsePigeonServerTimestampBehavior(
                     parameters.getServerTimestampBehavior()),
-                PigeonParser.parseListenSource(source))));
+                PigeonParser.parseListenSource(source),
+                operationExecutor)));
   }
 }
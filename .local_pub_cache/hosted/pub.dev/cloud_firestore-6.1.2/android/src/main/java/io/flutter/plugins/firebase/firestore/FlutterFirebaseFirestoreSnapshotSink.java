@@ -0,0 +1,159 @@
+// Copyright 2023 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.firebase.firestore;
+
+import static io.flutter.plugins.firebase.firestore.FlutterFirebaseFirestorePlugin.DEFAULT_ERROR_CODE;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the snapshots of one listener to an {@link EventSink}, converting and encoding them on a
+ * background executor so that the main thread only has to copy the encoded bytes.
+ *
+ * <p>At most one snapshot is being converted or waiting to be sent at a time. Snapshots arriving in
+ * the meantime replace each other, so that only the latest one is sent when the main thread has
+ * caught up.
+ */
+public class FlutterFirebaseFirestoreSnapshotSink<T> {
+
+  /** Converts a snapshot to the event sent to Dart. */
+  public interface Converter<T> {
+    /**
+     * @param coalesced whether earlier snapshots were replaced by this one and never converted
+     */
+    Object convert(@NonNull T snapshot, boolean coalesced);
+  }
+
+  private final Executor executor;
+  private final EventSink events;
+  private final Converter<T> converter;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  private T pending;
+  private boolean coalesced;
+  private boolean busy;
+  private volatile boolean closed;
+
+  private final AtomicLong sentCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong totalEncodeNanos = new AtomicLong();
+  private volatile long lastEncodeNanos;
+
+  public FlutterFirebaseFirestoreSnapshotSink(
+      Executor executor, EventSink events, Converter<T> converter) {
+    this.executor = executor;
+    this.events = events;
+    this.converter = converter;
+  }
+
+  /** Queues a snapshot, replacing the queued one if it has not been converted yet. */
+  public void success(@NonNull T snapshot) {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (pending != null) {
+        coalesced = true;
+        coalescedCount.incrementAndGet();
+      }
+      pending = snapshot;
+      if (busy) {
+        return;
+      }
+      busy = true;
+    }
+    executor.execute(this::encodeNext);
+  }
+
+  /** Discards the queued snapshot. Snapshots that are already encoded are not sent either. */
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      pending = null;
+    }
+  }
+
+  /** The number of snapshots converting or waiting to be converted, at most two. */
+  public synchronized int getQueueDepth() {
+    return (busy ? 1 : 0) + (pending != null ? 1 : 0);
+  }
+
+  /** The number of snapshots that were replaced by a later one before they were converted. */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /** The number of snapshots that were converted and sent. */
+  public long getSentCount() {
+    return sentCount.get();
+  }
+
+  /** The time it took to convert and encode the last snapshot, in nanoseconds. */
+  public long getLastEncodeNanos() {
+    return lastEncodeNanos;
+  }
+
+  /** The time it took to convert and encode all sent snapshots, in nanoseconds. */
+  public long getTotalEncodeNanos() {
+    return totalEncodeNanos.get();
+  }
+
+  private void encodeNext() {
+    T snapshot;
+    boolean wasCoalesced;
+    synchronized (this) {
+      snapshot = pending;
+      wasCoalesced = coalesced;
+      pending = null;
+      coalesced = false;
+      if (snapshot == null) {
+        busy = false;
+        return;
+      }
+    }
+
+    long start = System.nanoTime();
+    Object event;
+    try {
+      event =
+          FlutterFirebaseFirestoreMessageCodec.INSTANCE.encodeAhead(
+              converter.convert(snapshot, wasCoalesced));
+    } catch (RuntimeException e) {
+      Log.e(FlutterFirebaseFirestorePlugin.TAG, "Failed to encode snapshot", e);
+      close();
+      mainHandler.post(
+          () -> {
+            events.error(DEFAULT_ERROR_CODE, e.getMessage(), null);
+            events.endOfStream();
+          });
+      return;
+    }
+    lastEncodeNanos = System.nanoTime() - start;
+    totalEncodeNanos.addAndGet(lastEncodeNanos);
+
+    mainHandler.post(
+        () -> {
+          if (!closed) {
+            events.success(event);
+            sentCount.incrementAndGet();
+          }
+          // Only start on the next snapshot once this one is sent, so that snapshots coalesce
+          // while the main thread is busy.
+          synchronized (this) {
+            if (pending == null) {
+              busy = false;
+              return;
+            }
+          }
+          executor.execute(this::encodeNext);
+        });
+  }
+}
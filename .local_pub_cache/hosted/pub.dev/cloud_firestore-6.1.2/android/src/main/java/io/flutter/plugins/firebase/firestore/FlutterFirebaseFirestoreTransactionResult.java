@@ -11,12 +11,17 @@ public class FlutterFirebaseFirestoreTransactionResult {
 
   public final @Nullable Exception exception;
 
+  /** Whether documents read by the transaction had changed, so that nothing was written. */
+  public final boolean conflict;
+
   private FlutterFirebaseFirestoreTransactionResult(@NonNull Exception failureException) {
     exception = failureException;
+    conflict = false;
   }
 
-  private FlutterFirebaseFirestoreTransactionResult() {
+  private FlutterFirebaseFirestoreTransactionResult(boolean conflict) {
     exception = null;
+    this.conflict = conflict;
   }
 
   public static FlutterFirebaseFirestoreTransactionResult failed(@NonNull Exception exception) {
@@ -24,6 +29,10 @@ public class FlutterFirebaseFirestoreTransactionResult {
   }
 
   public static FlutterFirebaseFirestoreTransactionResult complete() {
-    return new FlutterFirebaseFirestoreTransactionResult();
+    return new FlutterFirebaseFirestoreTransactionResult(false);
+  }
+
+  public static FlutterFirebaseFirestoreTransactionResult conflicted() {
+    return new FlutterFirebaseFirestoreTransactionResult(true);
   }
 }
@@ -1727,6 +1727,11 @@ public class GeneratedAndroidFirebaseFirestore {
         @NonNull byte[] bundle,
         @NonNull Result<String> result);
 
+    void loadBundleFromFile(
+        @NonNull FirestorePigeonFirebaseApp app,
+        @NonNull String path,
+        @NonNull Result<String> result);
+
     void namedQueryGet(
         @NonNull FirestorePigeonFirebaseApp app,
         @NonNull String name,
@@ -1809,11 +1814,26 @@ public class GeneratedAndroidFirebaseFirestore {
         @NonNull Boolean isCollectionGroup,
         @NonNull Result<List<AggregateQueryResponse>> result);
 
+    void aggregateQueries(
+        @NonNull FirestorePigeonFirebaseApp app,
+        @NonNull List<String> paths,
+        @NonNull List<PigeonQueryParameters> parameters,
+        @NonNull List<Boolean> isCollectionGroup,
+        @NonNull List<List<AggregateQuery>> queries,
+        @NonNull AggregateSource source,
+        @NonNull Result<List<List<AggregateQueryResponse>>> result);
+
     void writeBatchCommit(
         @NonNull FirestorePigeonFirebaseApp app,
         @NonNull List<PigeonTransactionCommand> writes,
         @NonNull Result<Void> result);
 
+    void writeBatchCommitBulk(
+        @NonNull FirestorePigeonFirebaseApp app,
+        @NonNull List<PigeonTransactionCommand> writes,
+        @NonNull Long maxInFlight,
+        @NonNull Result<String> result);
+
     void querySnapshot(
         @NonNull FirestorePigeonFirebaseApp app,
         @NonNull String path,
@@ -1878,6 +1898,38 @@ public class GeneratedAndroidFirebaseFirestore {
           channel.setMessageHandler(null);
         }
       }
+      {
+        BasicMessageChannel<Object> channel =
+            new BasicMessageChannel<>(
+                binaryMessenger,
+                "dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.loadBundleFromFile",
+                getCodec());
+        if (api != null) {
+          channel.setMessageHandler(
+              (message, reply) -> {
+                ArrayList<Object> wrapped = new ArrayList<Object>();
+                ArrayList<Object> args = (ArrayList<Object>) message;
+                FirestorePigeonFirebaseApp appArg = (FirestorePigeonFirebaseApp) args.get(0);
+                String pathArg = (String) args.get(1);
+                Result<String> resultCallback =
+                    new Result<String>() {
+                      public void success(String result) {
+                        wrapped.add(0, result);
+                        reply.reply(wrapped);
+                      }
+
+                      public void error(Throwable error) {
+                        ArrayList<Object> wrappedError = wrapError(error);
+                        reply.reply(wrappedError);
+                      }
+                    };
+
+                api.loadBundleFromFile(appArg, pathArg, resultCallback);
+              });
+        } else {
+          channel.setMessageHandler(null);
+        }
+      }
       {
         BasicMessageChannel<Object> channel =
             new BasicMessageChannel<>(
@@ -2478,6 +2530,50 @@ public class GeneratedAndroidFirebaseFirestore {
           channel.setMessageHandler(null);
         }
       }
+      {
+        BasicMessageChannel<Object> channel =
+            new BasicMessageChannel<>(
+                binaryMessenger,
+                "dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries",
+                getCodec());
+        if (api != null) {
+          channel.setMessageHandler(
+              (message, reply) -> {
+                ArrayList<Object> wrapped = new ArrayList<Object>();
+                ArrayList<Object> args = (ArrayList<Object>) message;
+                FirestorePigeonFirebaseApp appArg = (FirestorePigeonFirebaseApp) args.get(0);
+                List<String> pathsArg = (List<String>) args.get(1);
+                List<PigeonQueryParameters> parametersArg =
+                    (List<PigeonQueryParameters>) args.get(2);
+                List<Boolean> isCollectionGroupArg = (List<Boolean>) args.get(3);
+                List<List<AggregateQuery>> queriesArg = (List<List<AggregateQuery>>) args.get(4);
+                AggregateSource sourceArg = AggregateSource.values()[(int) args.get(5)];
+                Result<List<List<AggregateQueryResponse>>> resultCallback =
+                    new Result<List<List<AggregateQueryResponse>>>() {
+                      public void success(List<List<AggregateQueryResponse>> result) {
+                        wrapped.add(0, result);
+                        reply.reply(wrapped);
+                      }
+
+                      public void error(Throwable error) {
+                        ArrayList<Object> wrappedError = wrapError(error);
+                        reply.reply(wrappedError);
+                      }
+                    };
+
+                api.aggregateQueries(
+                    appArg,
+                    pathsArg,
+                    parametersArg,
+                    isCollectionGroupArg,
+                    queriesArg,
+                    sourceArg,
+                    resultCallback);
+              });
+        } else {
+          channel.setMessageHandler(null);
+        }
+      }
       {
         BasicMessageChannel<Object> channel =
             new BasicMessageChannel<>(
@@ -2511,6 +2607,44 @@ public class GeneratedAndroidFirebaseFirestore {
           channel.setMessageHandler(null);
         }
       }
+      {
+        BasicMessageChannel<Object> channel =
+            new BasicMessageChannel<>(
+                binaryMessenger,
+                "dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommitBulk",
+                getCodec());
+        if (api != null) {
+          channel.setMessageHandler(
+              (message, reply) -> {
+                ArrayList<Object> wrapped = new ArrayList<Object>();
+                ArrayList<Object> args = (ArrayList<Object>) message;
+                FirestorePigeonFirebaseApp appArg = (FirestorePigeonFirebaseApp) args.get(0);
+                List<PigeonTransactionCommand> writesArg =
+                    (List<PigeonTransactionCommand>) args.get(1);
+                Number maxInFlightArg = (Number) args.get(2);
+                Result<String> resultCallback =
+                    new Result<String>() {
+                      public void success(String result) {
+                        wrapped.add(0, result);
+                        reply.reply(wrapped);
+                      }
+
+                      public void error(Throwable error) {
+                        ArrayList<Object> wrappedError = wrapError(error);
+                        reply.reply(wrappedError);
+                      }
+                    };
+
+                api.writeBatchCommitBulk(
+                    appArg,
+                    writesArg,
+                    (maxInFlightArg == null) ? null : maxInFlightArg.longValue(),
+                    resultCallback);
+              });
+        } else {
+          channel.setMessageHandler(null);
+        }
+      }
       {
         BasicMessageChannel<Object> channel =
             new BasicMessageChannel<>(
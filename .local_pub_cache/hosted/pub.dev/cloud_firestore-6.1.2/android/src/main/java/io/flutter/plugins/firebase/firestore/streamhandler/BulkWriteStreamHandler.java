@@ -0,0 +1,372 @@
+/*
+ * Copyright 2023, the Chromium project authors.  Please see the AUTHORS file
+ * for details. All rights reserved. Use of this source code is governed by a
+ * BSD-style license that can be found in the LICENSE file.
+ */
+
+package io.flutter.plugins.firebase.firestore.streamhandler;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.Nullable;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import io.flutter.plugin.common.EventChannel.StreamHandler;
+import io.flutter.plugins.firebase.firestore.GeneratedAndroidFirebaseFirestore;
+import io.flutter.plugins.firebase.firestore.GeneratedAndroidFirebaseFirestore.PigeonDocumentOption;
+import io.flutter.plugins.firebase.firestore.GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand;
+import io.flutter.plugins.firebase.firestore.GeneratedAndroidFirebaseFirestore.PigeonTransactionType;
+import io.flutter.plugins.firebase.firestore.utils.ExceptionConverter;
+import io.flutter.plugins.firebase.firestore.utils.PigeonParser;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Commits a large list of writes as several write batches.
+ *
+ * <p>Writes to the same document are coalesced first where the result is the same: a set without
+ * merge or a delete replaces all earlier writes to the document, consecutive updates with distinct
+ * fields become one update, and consecutive merging sets become one set. The remaining writes are
+ * split into chunks of at most {@link #MAX_CHUNK_SIZE} writes, keeping the writes to one document
+ * in the same chunk where possible, and at most {@code maxInFlight} chunks are committed at once.
+ *
+ * <p>Each chunk is atomic, the whole list is not. After each chunk an event is sent with the
+ * {@code "chunk"} index, the {@code "chunkCount"}, the chunk's {@code "writeCount"}, the {@code
+ * "committedWriteCount"} so far, the {@code "totalWriteCount"} after coalescing, the number of
+ * writes removed by coalescing as {@code "coalescedWriteCount"} and, if the chunk failed, the
+ * {@code "error"}. The stream ends after the last chunk.
+ */
+public class BulkWriteStreamHandler implements StreamHandler {
+
+  /** The maximum number of writes in a single write batch. */
+  public static final int MAX_CHUNK_SIZE = 500;
+
+  private static class Chunk {
+    final List<PigeonTransactionCommand> writes = new ArrayList<>();
+    // Whether this chunk continues the writes to a document of the previous chunk, and so must
+    // only be committed once the previous chunk is.
+    boolean dependsOnPrevious;
+  }
+
+  final FirebaseFirestore firestore;
+  final List<PigeonTransactionCommand> writes;
+  final int maxInFlight;
+  final Executor executor;
+
+  final Handler mainLooper = new Handler(Looper.getMainLooper());
+
+  // Guarded by this.
+  private EventSink events;
+  private List<Chunk> chunks;
+  private boolean[] committed;
+  private int nextChunk;
+  private int inFlight;
+  private int completedChunks;
+  private int committedWriteCount;
+  private int coalescedWriteCount;
+  private boolean cancelled;
+
+  public BulkWriteStreamHandler(
+      FirebaseFirestore firestore,
+      List<PigeonTransactionCommand> writes,
+      int maxInFlight,
+      Executor executor) {
+    this.firestore = firestore;
+    this.writes = writes;
+    this.maxInFlight = Math.max(1, maxInFlight);
+    this.executor = executor;
+  }
+
+  @Override
+  public void onListen(Object arguments, EventSink events) {
+    synchronized (this) {
+      this.events = events;
+    }
+    executor.execute(
+        () -> {
+          List<PigeonTransactionCommand> coalesced = coalesce(writes);
+          List<Chunk> chunks = split(coalesced);
+          synchronized (this) {
+            this.chunks = chunks;
+            this.committed = new boolean[chunks.size()];
+            this.coalescedWriteCount = writes.size() - coalesced.size();
+          }
+          if (chunks.isEmpty()) {
+            mainLooper.post(events::endOfStream);
+            return;
+          }
+          commitChunks();
+        });
+  }
+
+  @Override
+  public void onCancel(Object arguments) {
+    synchronized (this) {
+      cancelled = true;
+    }
+  }
+
+  private void commitChunks() {
+    List<Integer> toCommit = new ArrayList<>();
+    synchronized (this) {
+      while (!cancelled && inFlight < maxInFlight && nextChunk < chunks.size()) {
+        if (chunks.get(nextChunk).dependsOnPrevious && !committed[nextChunk - 1]) {
+          break;
+        }
+        toCommit.add(nextChunk++);
+        inFlight++;
+      }
+    }
+
+    for (int index : toCommit) {
+      Chunk chunk = chunks.get(index);
+      PigeonParser.parseWriteBatch(firestore, chunk.writes)
+          .commit()
+          .addOnCompleteListener(
+              executor,
+              task -> {
+                onChunkCommitted(index, task.isSuccessful() ? null : task.getException());
+                commitChunks();
+              });
+    }
+  }
+
+  private void onChunkCommitted(int index, @Nullable Exception exception) {
+    final Map<String, Object> event = new HashMap<>();
+    final EventSink events;
+    final boolean done;
+    synchronized (this) {
+      Chunk chunk = chunks.get(index);
+      inFlight--;
+      completedChunks++;
+      // A failed chunk does not hold back the chunk depending on it, which then most likely fails
+      // as well; the caller sees both errors.
+      committed[index] = true;
+      if (exception == null) {
+        committedWriteCount += chunk.writes.size();
+      }
+
+      event.put("chunk", index);
+      event.put("chunkCount", chunks.size());
+      event.put("writeCount", chunk.writes.size());
+      event.put("committedWriteCount", committedWriteCount);
+      event.put("totalWriteCount", writes.size() - coalescedWriteCount);
+      event.put("coalescedWriteCount", coalescedWriteCount);
+      if (exception != null) {
+        event.put("error", ExceptionConverter.createDetails(exception));
+      }
+
+      events = this.events;
+      done = completedChunks == chunks.size() || (cancelled && inFlight == 0);
+      if (cancelled) {
+        return;
+      }
+    }
+
+    mainLooper.post(
+        () -> {
+          events.success(event);
+          if (done) {
+            events.endOfStream();
+          }
+        });
+  }
+
+  /** Removes writes that are superseded by, or can be combined with, a later write. */
+  static List<PigeonTransactionCommand> coalesce(List<PigeonTransactionCommand> writes) {
+    Map<String, List<PigeonTransactionCommand>> byPath = groupByPath(writes);
+    List<PigeonTransactionCommand> result = new ArrayList<>(writes.size());
+    for (List<PigeonTransactionCommand> documentWrites : byPath.values()) {
+      List<PigeonTransactionCommand> coalesced = new ArrayList<>();
+      for (PigeonTransactionCommand write : documentWrites) {
+        if (write.getType() == PigeonTransactionType.DELETE_TYPE || isOverwrite(write)) {
+          coalesced.clear();
+          coalesced.add(write);
+          continue;
+        }
+        PigeonTransactionCommand combined =
+            coalesced.isEmpty() ? null : combine(coalesced.get(coalesced.size() - 1), write);
+        if (combined != null) {
+          coalesced.set(coalesced.size() - 1, combined);
+        } else {
+          coalesced.add(write);
+        }
+      }
+      result.addAll(coalesced);
+    }
+    return result;
+  }
+
+  /**
+   * Splits the writes into chunks. The writes to a document are only split across chunks if there
+   * are more than fit into one.
+   */
+  static List<Chunk> split(List<PigeonTransactionCommand> writes) {
+    List<Chunk> chunks = new ArrayList<>();
+    Chunk chunk = new Chunk();
+    for (List<PigeonTransactionCommand> documentWrites : groupByPath(writes).values()) {
+      if (chunk.writes.size() + documentWrites.size() > MAX_CHUNK_SIZE
+          && !chunk.writes.isEmpty()) {
+        chunks.add(chunk);
+        chunk = new Chunk();
+      }
+      for (PigeonTransactionCommand write : documentWrites) {
+        if (chunk.writes.size() == MAX_CHUNK_SIZE) {
+          chunks.add(chunk);
+          chunk = new Chunk();
+          chunk.dependsOnPrevious = true;
+        }
+        chunk.writes.add(write);
+      }
+    }
+    if (!chunk.writes.isEmpty()) {
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+  private static Map<String, List<PigeonTransactionCommand>> groupByPath(
+      List<PigeonTransactionCommand> writes) {
+    Map<String, List<PigeonTransactionCommand>> byPath = new LinkedHashMap<>();
+    for (PigeonTransactionCommand write : writes) {
+      List<PigeonTransactionCommand> documentWrites = byPath.get(write.getPath());
+      if (documentWrites == null) {
+        documentWrites = new ArrayList<>();
+        byPath.put(write.getPath(), documentWrites);
+      }
+      documentWrites.add(write);
+    }
+    return byPath;
+  }
+
+  private static boolean isOverwrite(PigeonTransactionCommand write) {
+    return write.getType() == PigeonTransactionType.SET
+        && !isMerge(write)
+        && (write.getOption() == null || write.getOption().getMergeFields() == null);
+  }
+
+  private static boolean isMerge(PigeonTransactionCommand write) {
+    PigeonDocumentOption option = write.getOption();
+    return write.getType() == PigeonTransactionType.SET
+        && option != null
+        && option.getMerge() != null
+        && option.getMerge();
+  }
+
+  /** Returns a single write with the effect of both, or null if there is none. */
+  @Nullable
+  private static PigeonTransactionCommand combine(
+      PigeonTransactionCommand first, PigeonTransactionCommand second) {
+    Map<String, Object> data;
+    if (first.getType() == PigeonTransactionType.UPDATE
+        && second.getType() == PigeonTransactionType.UPDATE) {
+      data = combineUpdates(first.getData(), second.getData());
+    } else if (isMerge(second) && (isMerge(first) || isOverwrite(first))) {
+      // A set without merge must not contain sentinels such as FieldValue.delete().
+      if (isOverwrite(first) && containsFieldValue(second.getData())) {
+        return null;
+      }
+      data = mergeData(first.getData(), second.getData());
+    } else {
+      return null;
+    }
+    if (data == null) {
+      return null;
+    }
+    return new PigeonTransactionCommand.Builder()
+        .setType(first.getType())
+        .setPath(first.getPath())
+        .setData(data)
+        .setOption(first.getOption())
+        .build();
+  }
+
+  /**
+   * Combines the fields of two updates, or returns null if they change the same field with a
+   * sentinel or one changes a field nested in a field changed by the other.
+   */
+  @Nullable
+  private static Map<String, Object> combineUpdates(
+      @Nullable Map<String, Object> first, @Nullable Map<String, Object> second) {
+    if (first == null || second == null) {
+      return null;
+    }
+    for (Object key : first.keySet()) {
+      // Field paths given as FieldPath rather than as a dotted string are not compared.
+      if (!(key instanceof String)) {
+        return null;
+      }
+    }
+    for (Object secondKey : second.keySet()) {
+      if (!(secondKey instanceof String)) {
+        return null;
+      }
+      for (String firstKey : first.keySet()) {
+        if (firstKey.equals(secondKey)) {
+          if (first.get(firstKey) instanceof FieldValue
+              || second.get(secondKey) instanceof FieldValue) {
+            return null;
+          }
+        } else if (firstKey.startsWith(secondKey + ".")
+            || ((String) secondKey).startsWith(firstKey + ".")) {
+          return null;
+        }
+      }
+    }
+    Map<String, Object> combined = new HashMap<>(first);
+    combined.putAll(second);
+    return combined;
+  }
+
+  /**
+   * Merges the second set's data into the first one the way a merging set does, or returns null if
+   * a sentinel would replace or be replaced by another value.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> mergeData(
+      @Nullable Map<String, Object> first, @Nullable Map<String, Object> second) {
+    if (first == null || second == null) {
+      return null;
+    }
+    Map<String, Object> merged = new HashMap<>(first);
+    for (Map.Entry<String, Object> entry : second.entrySet()) {
+      Object existing = merged.get(entry.getKey());
+      Object value = entry.getValue();
+      if (existing instanceof Map && value instanceof Map) {
+        Map<String, Object> nested =
+            mergeData((Map<String, Object>) existing, (Map<String, Object>) value);
+        if (nested == null) {
+          return null;
+        }
+        merged.put(entry.getKey(), nested);
+      } else if (existing instanceof FieldValue || value instanceof FieldValue) {
+        if (merged.containsKey(entry.getKey())) {
+          return null;
+        }
+        merged.put(entry.getKey(), value);
+      } else {
+        merged.put(entry.getKey(), value);
+      }
+    }
+    return merged;
+  }
+
+  private static boolean containsFieldValue(@Nullable Map<?, ?> data) {
+    if (data == null) {
+      return false;
+    }
+    for (Object value : data.values()) {
+      if (value instanceof FieldValue
+          || (value instanceof Map && containsFieldValue((Map<?, ?>) value))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
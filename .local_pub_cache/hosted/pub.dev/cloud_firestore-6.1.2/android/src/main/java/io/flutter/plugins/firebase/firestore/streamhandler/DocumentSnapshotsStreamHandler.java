@@ -17,9 +17,11 @@ import com.google.firebase.firestore.MetadataChanges;
 import com.google.firebase.firestore.SnapshotListenOptions;
 import io.flutter.plugin.common.EventChannel.EventSink;
 import io.flutter.plugin.common.EventChannel.StreamHandler;
+import io.flutter.plugins.firebase.firestore.FlutterFirebaseFirestoreSnapshotSink;
 import io.flutter.plugins.firebase.firestore.utils.ExceptionConverter;
 import io.flutter.plugins.firebase.firestore.utils.PigeonParser;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class DocumentSnapshotsStreamHandler implements StreamHandler {
 
@@ -31,22 +33,36 @@ public class DocumentSnapshotsStreamHandler implements StreamHandler {
   DocumentSnapshot.ServerTimestampBehavior serverTimestampBehavior;
   ListenSource source;
 
+  final Executor executor;
+  FlutterFirebaseFirestoreSnapshotSink<DocumentSnapshot> snapshotSink;
+
   public DocumentSnapshotsStreamHandler(
       FirebaseFirestore firestore,
       DocumentReference documentReference,
       Boolean includeMetadataChanges,
       DocumentSnapshot.ServerTimestampBehavior serverTimestampBehavior,
-      ListenSource source) {
+      ListenSource source,
+      Executor executor) {
     this.firestore = firestore;
     this.documentReference = documentReference;
     this.metadataChanges =
         includeMetadataChanges ? MetadataChanges.INCLUDE : MetadataChanges.EXCLUDE;
     this.serverTimestampBehavior = serverTimestampBehavior;
     this.source = source;
+    this.executor = executor;
   }
 
   @Override
   public void onListen(Object arguments, EventSink events) {
+    snapshotSink =
+        new FlutterFirebaseFirestoreSnapshotSink<>(
+            executor,
+            events,
+            (documentSnapshot, coalesced) ->
+                PigeonParser.toPigeonDocumentSnapshot(documentSnapshot, serverTimestampBehavior)
+                    .toList());
+    FlutterFirebaseFirestoreSnapshotSink<DocumentSnapshot> sink = snapshotSink;
+
     SnapshotListenOptions.Builder optionsBuilder = new SnapshotListenOptions.Builder();
     optionsBuilder.setMetadataChanges(metadataChanges);
     optionsBuilder.setSource(source);
@@ -62,15 +78,22 @@ public class DocumentSnapshotsStreamHandler implements StreamHandler {
 
                 onCancel(null);
               } else {
-                events.success(
-                    PigeonParser.toPigeonDocumentSnapshot(documentSnapshot, serverTimestampBehavior)
-                        .toList());
+                sink.success(documentSnapshot);
               }
             });
   }
 
+  /** The sink converting the snapshots of the current listener, or null if not listening. */
+  public FlutterFirebaseFirestoreSnapshotSink<DocumentSnapshot> getSnapshotSink() {
+    return snapshotSink;
+  }
+
   @Override
   public void onCancel(Object arguments) {
+    if (snapshotSink != null) {
+      snapshotSink.close();
+      snapshotSink = null;
+    }
     if (listenerRegistration != null) {
       listenerRegistration.remove();
       listenerRegistration = null;
@@ -8,31 +8,78 @@ package io.flutter.plugins.firebase.firestore.streamhandler;
 
 import static io.flutter.plugins.firebase.firestore.FlutterFirebaseFirestorePlugin.DEFAULT_ERROR_CODE;
 
+import android.os.SystemClock;
+import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.LoadBundleTask;
+import com.google.firebase.firestore.LoadBundleTaskProgress;
 import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugins.firebase.firestore.FlutterFirebaseFirestorePlugin;
 import io.flutter.plugins.firebase.firestore.utils.ExceptionConverter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 public class LoadBundleStreamHandler implements EventChannel.StreamHandler {
+  /** Send a progress event once at least this many more bytes are loaded. */
+  public static final String ARGUMENT_PROGRESS_BYTES = "progressBytes";
+  /** Send a progress event once at least this many milliseconds have passed. */
+  public static final String ARGUMENT_PROGRESS_INTERVAL_MILLIS = "progressIntervalMillis";
 
   public LoadBundleStreamHandler(FirebaseFirestore firestore, @NonNull byte[] bundle) {
     this.firestore = firestore;
     this.bundle = bundle;
+    this.bundlePath = null;
+  }
+
+  /** Loads the bundle by streaming it from a file, without reading it into memory first. */
+  public LoadBundleStreamHandler(FirebaseFirestore firestore, @NonNull String bundlePath) {
+    this.firestore = firestore;
+    this.bundle = null;
+    this.bundlePath = bundlePath;
   }
 
   private EventChannel.EventSink eventSink;
 
   private final FirebaseFirestore firestore;
-  private final @NonNull byte[] bundle;
+  private final @Nullable byte[] bundle;
+  private final @Nullable String bundlePath;
+
+  private long progressBytes;
+  private long progressIntervalMillis;
+  private long lastSentBytes;
+  private long lastSentTime;
+  private boolean sentAny;
 
   @Override
   public void onListen(Object arguments, EventChannel.EventSink events) {
     eventSink = events;
-    LoadBundleTask task = firestore.loadBundle(bundle);
+    readThrottle(arguments);
+
+    LoadBundleTask task;
+    InputStream stream = null;
+    if (bundlePath != null) {
+      try {
+        stream = new FileInputStream(bundlePath);
+      } catch (IOException exception) {
+        events.error(DEFAULT_ERROR_CODE, exception.getMessage(), null);
+        onCancel(null);
+        return;
+      }
+      task = firestore.loadBundle(stream);
+    } else {
+      task = firestore.loadBundle(bundle);
+    }
 
-    task.addOnProgressListener(events::success);
+    task.addOnProgressListener(
+        progress -> {
+          if (shouldSend(progress)) {
+            events.success(progress);
+          }
+        });
 
     task.addOnFailureListener(
         exception -> {
@@ -40,10 +87,57 @@ public class LoadBundleStreamHandler implements EventChannel.StreamHandler {
           events.error(DEFAULT_ERROR_CODE, exception.getMessage(), exceptionDetails);
           onCancel(null);
         });
+
+    if (stream != null) {
+      InputStream bundleStream = stream;
+      task.addOnCompleteListener(
+          completedTask -> {
+            try {
+              bundleStream.close();
+            } catch (IOException e) {
+              Log.w(FlutterFirebaseFirestorePlugin.TAG, "Failed to close bundle file", e);
+            }
+          });
+    }
   }
 
   @Override
   public void onCancel(Object arguments) {
     eventSink.endOfStream();
   }
+
+  private void readThrottle(Object arguments) {
+    if (!(arguments instanceof Map)) {
+      return;
+    }
+    Map<?, ?> argumentsMap = (Map<?, ?>) arguments;
+    Object bytes = argumentsMap.get(ARGUMENT_PROGRESS_BYTES);
+    if (bytes instanceof Number) {
+      progressBytes = ((Number) bytes).longValue();
+    }
+    Object intervalMillis = argumentsMap.get(ARGUMENT_PROGRESS_INTERVAL_MILLIS);
+    if (intervalMillis instanceof Number) {
+      progressIntervalMillis = ((Number) intervalMillis).longValue();
+    }
+  }
+
+  /**
+   * Whether a progress update is sent. Without a throttle all updates are sent. Otherwise the first
+   * and the final update are always sent, and a running update once either threshold is reached.
+   */
+  private boolean shouldSend(LoadBundleTaskProgress progress) {
+    long now = SystemClock.elapsedRealtime();
+    boolean send =
+        !sentAny
+            || (progressBytes <= 0 && progressIntervalMillis <= 0)
+            || progress.getTaskState() != LoadBundleTaskProgress.TaskState.RUNNING
+            || (progressBytes > 0 && progress.getBytesLoaded() - lastSentBytes >= progressBytes)
+            || (progressIntervalMillis > 0 && now - lastSentTime >= progressIntervalMillis);
+    if (send) {
+      sentAny = true;
+      lastSentBytes = progress.getBytesLoaded();
+      lastSentTime = now;
+    }
+    return send;
+  }
 }
@@ -14,16 +14,40 @@ import com.google.firebase.firestore.ListenSource;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.MetadataChanges;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SnapshotListenOptions;
+import com.google.firebase.firestore.SnapshotMetadata;
 import io.flutter.plugin.common.EventChannel.EventSink;
 import io.flutter.plugin.common.EventChannel.StreamHandler;
+import io.flutter.plugins.firebase.firestore.FlutterFirebaseFirestoreSnapshotSink;
 import io.flutter.plugins.firebase.firestore.utils.ExceptionConverter;
 import io.flutter.plugins.firebase.firestore.utils.PigeonParser;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+/**
+ * Streams the snapshots of a query to Dart.
+ *
+ * <p>Each event is a list of {@code [documents, documentChanges, metadata]}. If the listen
+ * arguments contain {@code "deltas": true}, only the first snapshot is sent in full; subsequent
+ * events are {@code [null, documentChanges, metadata, documentCount, applyChanges]} and the Dart
+ * side keeps the document list up to date itself. {@code applyChanges} is {@code null} unless some
+ * documents only had their metadata changed, in which case it holds the changes to apply to the
+ * list, including those metadata-only changes. Without {@code includeMetadataChanges} those changes
+ * are not available, so a full snapshot is sent whenever documents may have had their metadata
+ * changed. A full snapshot is also sent instead of a delta whenever it would not be larger, after
+ * snapshots were coalesced and after {@link #requestFullSnapshot()}.
+ * To resync, the Dart side listens again, which starts over with a full snapshot.
+ *
+ * <p>Snapshots are converted off the main thread, see {@link FlutterFirebaseFirestoreSnapshotSink}.
+ */
 public class QuerySnapshotsStreamHandler implements StreamHandler {
 
+  /** The listen argument that enables delta events. */
+  public static final String ARGUMENT_DELTAS = "deltas";
+
   ListenerRegistration listenerRegistration;
 
   Query query;
@@ -32,20 +56,46 @@ public class QuerySnapshotsStreamHandler implements StreamHandler {
 
   ListenSource source;
 
+  final Executor executor;
+  FlutterFirebaseFirestoreSnapshotSink<QuerySnapshot> snapshotSink;
+
+  private volatile boolean deltas;
+  private volatile boolean fullSnapshotRequired;
+  private volatile SnapshotMetadata lastMetadata;
+
   public QuerySnapshotsStreamHandler(
       Query query,
       Boolean includeMetadataChanges,
       DocumentSnapshot.ServerTimestampBehavior serverTimestampBehavior,
-      ListenSource source) {
+      ListenSource source,
+      Executor executor) {
     this.query = query;
     this.metadataChanges =
         includeMetadataChanges ? MetadataChanges.INCLUDE : MetadataChanges.EXCLUDE;
     this.serverTimestampBehavior = serverTimestampBehavior;
     this.source = source;
+    this.executor = executor;
   }
 
   @Override
   public void onListen(Object arguments, EventSink events) {
+    deltas =
+        arguments instanceof Map
+            && Boolean.TRUE.equals(((Map<?, ?>) arguments).get(ARGUMENT_DELTAS));
+    fullSnapshotRequired = true;
+    lastMetadata = null;
+    snapshotSink =
+        new FlutterFirebaseFirestoreSnapshotSink<>(
+            executor,
+            events,
+            (querySnapshot, coalesced) -> {
+              if (coalesced) {
+                requestFullSnapshot();
+              }
+              return toEvent(querySnapshot);
+            });
+    FlutterFirebaseFirestoreSnapshotSink<QuerySnapshot> sink = snapshotSink;
+
     SnapshotListenOptions.Builder optionsBuilder = new SnapshotListenOptions.Builder();
     optionsBuilder.setMetadataChanges(metadataChanges);
     optionsBuilder.setSource(source);
@@ -61,34 +111,93 @@ public class QuerySnapshotsStreamHandler implements StreamHandler {
 
                 onCancel(null);
               } else {
-                ArrayList<Object> toListResult = new ArrayList<Object>(3);
-                ArrayList<Object> documents =
-                    new ArrayList<Object>(querySnapshot.getDocuments().size());
-                ArrayList<Object> documentChanges =
-                    new ArrayList<Object>(querySnapshot.getDocumentChanges().size());
-                for (DocumentSnapshot documentSnapshot : querySnapshot.getDocuments()) {
-                  documents.add(
-                      PigeonParser.toPigeonDocumentSnapshot(
-                              documentSnapshot, serverTimestampBehavior)
-                          .toList());
-                }
-                for (DocumentChange documentChange : querySnapshot.getDocumentChanges()) {
-                  documentChanges.add(
-                      PigeonParser.toPigeonDocumentChange(documentChange, serverTimestampBehavior)
-                          .toList());
-                }
-                toListResult.add(documents);
-                toListResult.add(documentChanges);
-                toListResult.add(
-                    PigeonParser.toPigeonSnapshotMetadata(querySnapshot.getMetadata()).toList());
-
-                events.success(toListResult);
+                sink.success(querySnapshot);
               }
             });
   }
 
+  /** The sink converting the snapshots of the current listener, or null if not listening. */
+  public FlutterFirebaseFirestoreSnapshotSink<QuerySnapshot> getSnapshotSink() {
+    return snapshotSink;
+  }
+
+  /** Makes the next event a full snapshot, e.g. after an earlier delta could not be delivered. */
+  public void requestFullSnapshot() {
+    fullSnapshotRequired = true;
+  }
+
+  ArrayList<Object> toEvent(QuerySnapshot querySnapshot) {
+    SnapshotMetadata previousMetadata = lastMetadata;
+    lastMetadata = querySnapshot.getMetadata();
+    List<DocumentChange> changes = querySnapshot.getDocumentChanges();
+    if (!deltas
+        || fullSnapshotRequired
+        || changes.size() >= querySnapshot.size()
+        || (metadataChanges != MetadataChanges.INCLUDE
+            && mayHaveMetadataChanges(previousMetadata, querySnapshot.getMetadata()))) {
+      fullSnapshotRequired = false;
+      return toFullEvent(querySnapshot);
+    }
+
+    ArrayList<Object> toListResult = new ArrayList<Object>(5);
+    toListResult.add(null);
+    toListResult.add(toPigeonDocumentChanges(changes));
+    toListResult.add(PigeonParser.toPigeonSnapshotMetadata(querySnapshot.getMetadata()).toList());
+    toListResult.add(querySnapshot.size());
+
+    // Metadata-only changes are not reported to the user but still have to be applied to the list
+    // kept by the Dart side. They are a superset of the changes above, so equal sizes mean equal
+    // lists. Snapshots only carry them if the listener includes metadata changes.
+    List<DocumentChange> applyChanges =
+        metadataChanges == MetadataChanges.INCLUDE
+            ? querySnapshot.getDocumentChanges(MetadataChanges.INCLUDE)
+            : changes;
+    toListResult.add(
+        applyChanges.size() == changes.size() ? null : toPigeonDocumentChanges(applyChanges));
+    return toListResult;
+  }
+
+  /**
+   * Whether a document may have had its metadata changed between two snapshots. Documents only
+   * have pending writes while their query does, and are from the cache when their query is.
+   */
+  private static boolean mayHaveMetadataChanges(
+      SnapshotMetadata previousMetadata, SnapshotMetadata metadata) {
+    return previousMetadata == null
+        || previousMetadata.hasPendingWrites()
+        || metadata.hasPendingWrites()
+        || previousMetadata.isFromCache() != metadata.isFromCache();
+  }
+
+  private ArrayList<Object> toFullEvent(QuerySnapshot querySnapshot) {
+    ArrayList<Object> toListResult = new ArrayList<Object>(3);
+    ArrayList<Object> documents = new ArrayList<Object>(querySnapshot.getDocuments().size());
+    for (DocumentSnapshot documentSnapshot : querySnapshot.getDocuments()) {
+      documents.add(
+          PigeonParser.toPigeonDocumentSnapshot(documentSnapshot, serverTimestampBehavior)
+              .toList());
+    }
+    toListResult.add(documents);
+    toListResult.add(toPigeonDocumentChanges(querySnapshot.getDocumentChanges()));
+    toListResult.add(PigeonParser.toPigeonSnapshotMetadata(querySnapshot.getMetadata()).toList());
+    return toListResult;
+  }
+
+  private ArrayList<Object> toPigeonDocumentChanges(List<DocumentChange> changes) {
+    ArrayList<Object> documentChanges = new ArrayList<Object>(changes.size());
+    for (DocumentChange documentChange : changes) {
+      documentChanges.add(
+          PigeonParser.toPigeonDocumentChange(documentChange, serverTimestampBehavior).toList());
+    }
+    return documentChanges;
+  }
+
   @Override
   public void onCancel(Object arguments) {
+    if (snapshotSink != null) {
+      snapshotSink.close();
+      snapshotSink = null;
+    }
     if (listenerRegistration != null) {
       listenerRegistration.remove();
       listenerRegistration = null;
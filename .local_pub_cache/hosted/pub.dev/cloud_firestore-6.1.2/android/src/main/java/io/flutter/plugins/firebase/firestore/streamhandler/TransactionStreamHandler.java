@@ -8,13 +8,18 @@ package io.flutter.plugins.firebase.firestore.streamhandler;
 
 import android.os.Handler;
 import android.os.Looper;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.FirebaseFirestoreException.Code;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
 import com.google.firebase.firestore.Transaction;
 import com.google.firebase.firestore.TransactionOptions;
 import io.flutter.plugin.common.EventChannel.EventSink;
@@ -29,9 +34,29 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Runs a transaction whose handler runs in Dart.
+ *
+ * <p>Each attempt is announced with an {@code {"appName": ...}} event, after which the Dart handler
+ * reads documents and finally sends its writes through {@link #receiveTransactionResponse}. The
+ * stream ends with {@code {"complete": true}} or {@code {"error": ...}}; both also hold the number
+ * of {@code "attempts"} and the number of {@code "conflicts"}, the attempts that had to be retried
+ * because documents changed.
+ *
+ * <p>By default, the handler runs inside {@link FirebaseFirestore#runTransaction}, whose thread
+ * waits for the Dart response. If the listen arguments contain {@code "optimistic": true}, the
+ * handler instead runs outside of any transaction: reads go to the server directly and are kept
+ * as the read set of the attempt. Once the writes arrive, a short transaction reads the read set
+ * again and only applies the writes if none of those documents changed; otherwise the Dart handler
+ * is run again. No thread is held while the Dart handler runs.
+ */
 public class TransactionStreamHandler implements OnTransactionResultListener, StreamHandler {
 
+  /** The listen argument that enables optimistic transactions. */
+  public static final String ARGUMENT_OPTIMISTIC = "optimistic";
+
   /** Callback when the transaction has been started. */
   public interface OnTransactionStartedListener {
     void onStarted(Transaction transaction);
@@ -63,12 +88,37 @@ public class TransactionStreamHandler implements OnTransactionResultListener, St
 
   final Handler mainLooper = new Handler(Looper.getMainLooper());
 
+  private final AtomicInteger attemptCount = new AtomicInteger();
+  private final AtomicInteger conflictCount = new AtomicInteger();
+
+  private volatile boolean optimistic;
+
+  // Optimistic mode only, guarded by this.
+  private EventSink events;
+  private final Map<String, DocumentSnapshot> readSet = new HashMap<>();
+  private boolean awaitingResponse;
+  private boolean finished;
+
   @Override
   public void onListen(Object arguments, EventSink events) {
+    optimistic =
+        arguments instanceof Map
+            && Boolean.TRUE.equals(((Map<?, ?>) arguments).get(ARGUMENT_OPTIMISTIC));
+    if (optimistic) {
+      synchronized (this) {
+        this.events = events;
+      }
+      startAttempt();
+      return;
+    }
+
     firestore
         .runTransaction(
             new TransactionOptions.Builder().setMaxAttempts(maxAttempts.intValue()).build(),
             transaction -> {
+              if (attemptCount.incrementAndGet() > 1) {
+                conflictCount.incrementAndGet();
+              }
               onTransactionStartedListener.onStarted(transaction);
 
               Map<String, Object> attemptMap = new HashMap<>();
@@ -94,45 +144,7 @@ public class TransactionStreamHandler implements OnTransactionResultListener, St
                 return FlutterFirebaseFirestoreTransactionResult.complete();
               }
 
-              for (GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand command : commands) {
-                DocumentReference documentReference = firestore.document(command.getPath());
-
-                switch (command.getType()) {
-                  case DELETE_TYPE:
-                    transaction.delete(documentReference);
-                    break;
-                  case UPDATE:
-                    transaction.update(
-                        documentReference, Objects.requireNonNull(command.getData()));
-                    break;
-                  case SET:
-                    {
-                      GeneratedAndroidFirebaseFirestore.PigeonDocumentOption options =
-                          Objects.requireNonNull(command.getOption());
-                      SetOptions setOptions = null;
-
-                      if (options.getMerge() != null && options.getMerge()) {
-                        setOptions = SetOptions.merge();
-                      } else if (options.getMergeFields() != null) {
-                        List<List<String>> fieldList =
-                            Objects.requireNonNull(options.getMergeFields());
-                        List<FieldPath> fieldPathList = PigeonParser.parseFieldPath(fieldList);
-
-                        setOptions = SetOptions.mergeFieldPaths(fieldPathList);
-                      }
-
-                      Map<String, Object> data = Objects.requireNonNull(command.getData());
-
-                      if (setOptions == null) {
-                        transaction.set(documentReference, data);
-                      } else {
-                        transaction.set(documentReference, data, setOptions);
-                      }
-
-                      break;
-                    }
-                }
-              }
+              applyCommands(transaction, commands);
               return FlutterFirebaseFirestoreTransactionResult.complete();
             })
         .addOnCompleteListener(
@@ -146,6 +158,7 @@ public class TransactionStreamHandler implements OnTransactionResultListener, St
               } else if (task.getResult() != null) {
                 map.put("complete", true);
               }
+              putCounts(map);
 
               mainLooper.post(
                   () -> {
@@ -157,6 +170,12 @@ public class TransactionStreamHandler implements OnTransactionResultListener, St
 
   @Override
   public void onCancel(Object arguments) {
+    if (optimistic) {
+      synchronized (this) {
+        finished = true;
+      }
+      return;
+    }
     semaphore.release();
   }
 
@@ -164,8 +183,227 @@ public class TransactionStreamHandler implements OnTransactionResultListener, St
   public void receiveTransactionResponse(
       GeneratedAndroidFirebaseFirestore.PigeonTransactionResult resultType,
       List<GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand> commands) {
-    this.resultType = resultType;
-    this.commands = commands;
-    semaphore.release();
+    if (!optimistic) {
+      this.resultType = resultType;
+      this.commands = commands;
+      semaphore.release();
+      return;
+    }
+
+    Map<String, DocumentSnapshot> reads;
+    synchronized (this) {
+      if (finished || !awaitingResponse) {
+        return;
+      }
+      awaitingResponse = false;
+      reads = new HashMap<>(readSet);
+    }
+
+    if (resultType == GeneratedAndroidFirebaseFirestore.PigeonTransactionResult.FAILURE
+        || (commands.isEmpty() && reads.isEmpty())) {
+      finish(null);
+      return;
+    }
+    commit(reads, commands);
+  }
+
+  /** Whether the handler runs outside of a transaction, see the class documentation. */
+  public boolean isOptimistic() {
+    return optimistic;
+  }
+
+  /** The number of attempts so far, including retries of a commit made by the SDK itself. */
+  public int getAttemptCount() {
+    return attemptCount.get();
+  }
+
+  /** The number of attempts that were retried because documents they read had changed. */
+  public int getConflictCount() {
+    return conflictCount.get();
+  }
+
+  /**
+   * Reads a document for the current attempt of an optimistic transaction and adds it to the read
+   * set. Reading the same document again returns the snapshot read first.
+   */
+  @NonNull
+  public Task<DocumentSnapshot> get(@NonNull DocumentReference documentReference) {
+    final String path = documentReference.getPath();
+    final int attempt;
+    synchronized (this) {
+      DocumentSnapshot read = readSet.get(path);
+      if (read != null) {
+        return Tasks.forResult(read);
+      }
+      attempt = attemptCount.get();
+    }
+
+    return documentReference
+        .get(Source.SERVER)
+        .onSuccessTask(
+            snapshot -> {
+              synchronized (this) {
+                if (attempt != attemptCount.get()) {
+                  return Tasks.forResult(snapshot);
+                }
+                DocumentSnapshot read = readSet.get(path);
+                if (read != null) {
+                  return Tasks.forResult(read);
+                }
+                readSet.put(path, snapshot);
+              }
+              return Tasks.forResult(snapshot);
+            });
+  }
+
+  private void startAttempt() {
+    final EventSink events;
+    final int attempt;
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      readSet.clear();
+      awaitingResponse = true;
+      attempt = attemptCount.incrementAndGet();
+      events = this.events;
+    }
+
+    Map<String, Object> attemptMap = new HashMap<>();
+    attemptMap.put("appName", firestore.getApp().getName());
+
+    mainLooper.post(() -> events.success(attemptMap));
+    mainLooper.postDelayed(
+        () -> {
+          synchronized (this) {
+            if (finished || !awaitingResponse || attempt != attemptCount.get()) {
+              return;
+            }
+            awaitingResponse = false;
+          }
+          finish(new FirebaseFirestoreException("timed out", Code.DEADLINE_EXCEEDED));
+        },
+        timeout);
+  }
+
+  private void commit(
+      Map<String, DocumentSnapshot> reads,
+      List<GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand> commands) {
+    AtomicInteger runs = new AtomicInteger();
+    firestore
+        .runTransaction(
+            new TransactionOptions.Builder().setMaxAttempts(maxAttempts.intValue()).build(),
+            transaction -> {
+              // The SDK runs the function again if the commit itself ran into contention.
+              if (runs.incrementAndGet() > 1) {
+                attemptCount.incrementAndGet();
+                conflictCount.incrementAndGet();
+              }
+              // All reads have to happen before the first write.
+              for (Map.Entry<String, DocumentSnapshot> read : reads.entrySet()) {
+                DocumentSnapshot current = transaction.get(firestore.document(read.getKey()));
+                if (!isUnchanged(read.getValue(), current)) {
+                  return FlutterFirebaseFirestoreTransactionResult.conflicted();
+                }
+              }
+              applyCommands(transaction, commands);
+              return FlutterFirebaseFirestoreTransactionResult.complete();
+            })
+        .addOnCompleteListener(
+            task -> {
+              if (task.getException() != null) {
+                finish(task.getException());
+              } else if (task.getResult().exception != null) {
+                finish(task.getResult().exception);
+              } else if (!task.getResult().conflict) {
+                finish(null);
+              } else {
+                conflictCount.incrementAndGet();
+                if (attemptCount.get() >= maxAttempts) {
+                  finish(
+                      new FirebaseFirestoreException(
+                          "Transaction failed all retries.", Code.ABORTED));
+                } else {
+                  startAttempt();
+                }
+              }
+            });
+  }
+
+  private static boolean isUnchanged(DocumentSnapshot read, DocumentSnapshot current) {
+    return read.exists() == current.exists() && Objects.equals(read.getData(), current.getData());
+  }
+
+  private void finish(@Nullable Exception exception) {
+    final EventSink events;
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      events = this.events;
+    }
+
+    final HashMap<String, Object> map = new HashMap<>();
+    if (exception != null) {
+      map.put("appName", firestore.getApp().getName());
+      map.put("error", ExceptionConverter.createDetails(exception));
+    } else {
+      map.put("complete", true);
+    }
+    putCounts(map);
+
+    mainLooper.post(
+        () -> {
+          events.success(map);
+          events.endOfStream();
+        });
+  }
+
+  private void putCounts(Map<String, Object> map) {
+    map.put("attempts", attemptCount.get());
+    map.put("conflicts", conflictCount.get());
+  }
+
+  private void applyCommands(
+      Transaction transaction,
+      List<GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand> commands) {
+    for (GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand command : commands) {
+      DocumentReference documentReference = firestore.document(command.getPath());
+
+      switch (command.getType()) {
+        case DELETE_TYPE:
+          transaction.delete(documentReference);
+          break;
+        case UPDATE:
+          transaction.update(documentReference, Objects.requireNonNull(command.getData()));
+          break;
+        case SET:
+          {
+            GeneratedAndroidFirebaseFirestore.PigeonDocumentOption options =
+                Objects.requireNonNull(command.getOption());
+            SetOptions setOptions = null;
+
+            if (options.getMerge() != null && options.getMerge()) {
+              setOptions = SetOptions.merge();
+            } else if (options.getMergeFields() != null) {
+              List<List<String>> fieldList = Objects.requireNonNull(options.getMergeFields());
+              List<FieldPath> fieldPathList = PigeonParser.parseFieldPath(fieldList);
+
+              setOptions = SetOptions.mergeFieldPaths(fieldPathList);
+            }
+
+            Map<String, Object> data = Objects.requireNonNull(command.getData());
+
+            if (setOptions == null) {
+              transaction.set(documentReference, data);
+            } else {
+              transaction.set(documentReference, data, setOptions);
+            }
+
+            break;
+          }
+      }
+    }
   }
 }
@@ -10,13 +10,16 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.Filter;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenSource;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 import io.flutter.plugins.firebase.firestore.GeneratedAndroidFirebaseFirestore;
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +28,13 @@ import java.util.Objects;
 
 public class PigeonParser {
 
+  private static final QueryCache queryCache = new QueryCache(QueryCache.DEFAULT_MAX_SIZE);
+
+  /** The cache of queries parsed by {@link #parseQuery}. */
+  public static QueryCache getQueryCache() {
+    return queryCache;
+  }
+
   public static Source parsePigeonSource(GeneratedAndroidFirebaseFirestore.Source source) {
     switch (source) {
       case CACHE:
@@ -161,11 +171,32 @@ public class PigeonParser {
     return paths;
   }
 
+  /**
+   * Parses a query, or returns the query parsed earlier from the same arguments.
+   *
+   * @return the query, or null if the arguments are invalid
+   */
   public static Query parseQuery(
       FirebaseFirestore firestore,
       @NonNull String path,
       boolean isCollectionGroup,
       GeneratedAndroidFirebaseFirestore.PigeonQueryParameters parameters) {
+    QueryCache.Key key = QueryCache.key(firestore, path, isCollectionGroup, parameters);
+    Query query = queryCache.get(key);
+    if (query == null) {
+      query = buildQuery(firestore, path, isCollectionGroup, parameters);
+      if (query != null) {
+        queryCache.put(key, query);
+      }
+    }
+    return query;
+  }
+
+  private static Query buildQuery(
+      FirebaseFirestore firestore,
+      @NonNull String path,
+      boolean isCollectionGroup,
+      GeneratedAndroidFirebaseFirestore.PigeonQueryParameters parameters) {
     try {
       Query query;
       if (isCollectionGroup) {
@@ -323,6 +354,51 @@ public class PigeonParser {
     throw new Error("Invalid operator");
   }
 
+  /** Adds the writes to a new {@link WriteBatch} of the given Firestore instance. */
+  public static WriteBatch parseWriteBatch(
+      FirebaseFirestore firestore,
+      List<GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand> writes) {
+    WriteBatch batch = firestore.batch();
+
+    for (GeneratedAndroidFirebaseFirestore.PigeonTransactionCommand write : writes) {
+      GeneratedAndroidFirebaseFirestore.PigeonTransactionType type =
+          Objects.requireNonNull(write.getType());
+      String path = Objects.requireNonNull(write.getPath());
+      Map<String, Object> data = write.getData();
+
+      DocumentReference documentReference = firestore.document(path);
+
+      switch (type) {
+        case DELETE_TYPE:
+          batch = batch.delete(documentReference);
+          break;
+        case UPDATE:
+          batch = batch.update(documentReference, Objects.requireNonNull(data));
+          break;
+        case SET:
+          GeneratedAndroidFirebaseFirestore.PigeonDocumentOption options =
+              Objects.requireNonNull(write.getOption());
+
+          if (options.getMerge() != null && options.getMerge()) {
+            batch = batch.set(documentReference, Objects.requireNonNull(data), SetOptions.merge());
+          } else if (options.getMergeFields() != null) {
+            List<FieldPath> fieldPathList =
+                parseFieldPath(Objects.requireNonNull(options.getMergeFields()));
+            batch =
+                batch.set(
+                    documentReference,
+                    Objects.requireNonNull(data),
+                    SetOptions.mergeFieldPaths(fieldPathList));
+          } else {
+            batch = batch.set(documentReference, Objects.requireNonNull(data));
+          }
+          break;
+      }
+    }
+
+    return batch;
+  }
+
   public static AggregateSource parseAggregateSource(
       GeneratedAndroidFirebaseFirestore.AggregateSource source) {
     switch (source) {
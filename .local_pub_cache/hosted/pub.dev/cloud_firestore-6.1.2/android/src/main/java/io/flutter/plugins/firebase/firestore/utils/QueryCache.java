@@ -0,0 +1,160 @@
+/*
+ * Copyright 2023, the Chromium project authors.  Please see the AUTHORS file
+ * for details. All rights reserved. Use of this source code is governed by a
+ * BSD-style license that can be found in the LICENSE file.
+ */
+
+package io.flutter.plugins.firebase.firestore.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import io.flutter.plugins.firebase.firestore.GeneratedAndroidFirebaseFirestore;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least recently used cache of parsed queries.
+ *
+ * <p>Queries are keyed by their Firestore instance, path, collection group flag and parameters.
+ * Parameters are compared by value, so the same query sent again from Dart is found even though
+ * its parameters were decoded anew. {@link Query} is immutable, so a cached query can be shared.
+ */
+public class QueryCache {
+
+  public static final int DEFAULT_MAX_SIZE = 64;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final LinkedHashMap<Key, Query> queries;
+  private int maxSize;
+
+  public QueryCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.queries =
+        new LinkedHashMap<Key, Query>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Query> eldest) {
+            return size() > QueryCache.this.maxSize;
+          }
+        };
+  }
+
+  /** Creates the key of a query. */
+  public static Key key(
+      @NonNull FirebaseFirestore firestore,
+      @NonNull String path,
+      boolean isCollectionGroup,
+      @Nullable GeneratedAndroidFirebaseFirestore.PigeonQueryParameters parameters) {
+    if (parameters == null) {
+      return new Key(firestore, Arrays.<Object>asList(path, isCollectionGroup));
+    }
+    return new Key(
+        firestore,
+        Arrays.<Object>asList(
+            path,
+            isCollectionGroup,
+            parameters.getWhere(),
+            parameters.getOrderBy(),
+            parameters.getLimit(),
+            parameters.getLimitToLast(),
+            parameters.getStartAt(),
+            parameters.getStartAfter(),
+            parameters.getEndAt(),
+            parameters.getEndBefore(),
+            parameters.getFilters()));
+  }
+
+  @Nullable
+  public Query get(@NonNull Key key) {
+    Query query;
+    synchronized (queries) {
+      query = queries.get(key);
+    }
+    (query != null ? hitCount : missCount).incrementAndGet();
+    return query;
+  }
+
+  public void put(@NonNull Key key, @NonNull Query query) {
+    synchronized (queries) {
+      queries.put(key, query);
+    }
+  }
+
+  /** Removes the queries of a Firestore instance, e.g. once it is terminated. */
+  public void invalidate(@NonNull FirebaseFirestore firestore) {
+    synchronized (queries) {
+      Iterator<Key> iterator = queries.keySet().iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next().firestore == firestore) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /** Sets the maximum number of cached queries, removing the least recently used ones. */
+  public void setMaxSize(int maxSize) {
+    synchronized (queries) {
+      this.maxSize = maxSize;
+      Iterator<Key> iterator = queries.keySet().iterator();
+      while (queries.size() > maxSize && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+  }
+
+  public int size() {
+    synchronized (queries) {
+      return queries.size();
+    }
+  }
+
+  /** The number of lookups that found a cached query. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** The number of lookups that did not find a cached query. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /** Identifies a query. Nested lists and maps of the parameters are compared by value. */
+  public static final class Key {
+    private final FirebaseFirestore firestore;
+    private final List<Object> values;
+    private final int hashCode;
+
+    private Key(FirebaseFirestore firestore, List<Object> values) {
+      this.firestore = firestore;
+      this.values = values;
+      this.hashCode = 31 * System.identityHashCode(firestore) + values.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hashCode == other.hashCode
+          && firestore == other.firestore
+          && values.equals(other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright 2020 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.firebase.firestore;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+
+/**
+ * Creates fakes of Firestore SDK types, such as snapshots, whose getters return plain fields. Unlike
+ * mocks, calling them costs about as much as calling the SDK's getters, so that benchmarks measure
+ * the encoding rather than the fakes. The SDK types have no public constructors, so the fakes are
+ * created without running any, and their hash codes are the identity ones, as those of the SDK
+ * would read fields that are never set.
+ */
+final class FakeSnapshots {
+  private static final String FIELD_PREFIX = "fake$";
+
+  private static final Objenesis objenesis = new ObjenesisStd();
+  private static final Map<String, Class<?>> fakeClasses = new HashMap<>();
+
+  private FakeSnapshots() {}
+
+  /**
+   * Returns a fake of {@code type} whose getters named in {@code values}, which take no arguments,
+   * return the given values. Other methods behave like those of an uninitialized instance.
+   */
+  static <T> T fake(Class<T> type, Map<String, Object> values) {
+    try {
+      Class<? extends T> fakeClass = fakeClass(type, values.keySet());
+      T fake = objenesis.newInstance(fakeClass);
+      for (Map.Entry<String, Object> entry : values.entrySet()) {
+        Field field = fakeClass.getDeclaredField(FIELD_PREFIX + entry.getKey());
+        field.set(fake, entry.getValue());
+      }
+      return fake;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to fake " + type, e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static synchronized <T> Class<? extends T> fakeClass(Class<T> type, Set<String> getters)
+      throws NoSuchMethodException {
+    Method identityHashCode = System.class.getMethod("identityHashCode", Object.class);
+    Set<String> sortedGetters = new TreeSet<>(getters);
+    String key = type.getName() + sortedGetters;
+    Class<?> fakeClass = fakeClasses.get(key);
+    if (fakeClass == null) {
+      DynamicType.Builder<T> builder =
+          new ByteBuddy()
+              .subclass(type, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+              .method(ElementMatchers.isHashCode())
+              .intercept(MethodCall.invoke(identityHashCode).withThis());
+      for (String getter : sortedGetters) {
+        Method method = type.getMethod(getter);
+        builder =
+            builder
+                .defineField(FIELD_PREFIX + getter, method.getReturnType(), Visibility.PUBLIC)
+                .method(ElementMatchers.named(getter).and(ElementMatchers.takesArguments(0)))
+                .intercept(FieldAccessor.ofField(FIELD_PREFIX + getter));
+      }
+      fakeClass =
+          builder
+              .make()
+              .load(type.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+              .getLoaded();
+      fakeClasses.put(key, fakeClass);
+    }
+    return (Class<? extends T>) fakeClass;
+  }
+}
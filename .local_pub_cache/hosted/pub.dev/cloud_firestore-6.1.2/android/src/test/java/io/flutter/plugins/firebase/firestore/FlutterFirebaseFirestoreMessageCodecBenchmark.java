@@ -0,0 +1,156 @@
+// Copyright 2020 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.firebase.firestore;
+
+import static io.flutter.plugins.firebase.firestore.FakeSnapshots.fake;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SnapshotMetadata;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the time and the allocations per encoded message of {@link LegacyFirestoreMessageCodec}
+ * and {@link FlutterFirebaseFirestoreMessageCodec}, for query snapshots and for large maps like
+ * those of document data. Run through {@link FlutterFirebaseFirestoreMessageCodecBenchmarkTest},
+ * which reports bytes/op with the GC profiler.
+ *
+ * <p>The snapshots are {@link FakeSnapshots}, as the getters of mocks cost far more than encoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FlutterFirebaseFirestoreMessageCodecBenchmark {
+
+  private static final int FIELDS_PER_DOCUMENT = 20;
+
+  @Param({"10", "100", "1000"})
+  public int documentCount;
+
+  private final LegacyFirestoreMessageCodec legacyCodec = new LegacyFirestoreMessageCodec();
+  private final FlutterFirebaseFirestoreMessageCodec codec =
+      FlutterFirebaseFirestoreMessageCodec.INSTANCE;
+
+  QuerySnapshot querySnapshot;
+  Map<String, Object> largeMap;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<DocumentSnapshot> documents = new ArrayList<>(documentCount);
+    List<DocumentChange> changes = new ArrayList<>(documentCount);
+    List<Object> documentData = new ArrayList<>(documentCount);
+    Map<String, Object> metadataValues = new HashMap<>();
+    metadataValues.put("hasPendingWrites", false);
+    metadataValues.put("isFromCache", false);
+    SnapshotMetadata metadata = fake(SnapshotMetadata.class, metadataValues);
+    for (int i = 0; i < documentCount; i++) {
+      Map<String, Object> data = documentData(i);
+      QueryDocumentSnapshot document = fakeDocument("collection/document" + i, data, metadata);
+      documents.add(document);
+      changes.add(fakeChange(document, i));
+      documentData.add(data);
+    }
+    Map<String, Object> snapshotValues = new HashMap<>();
+    snapshotValues.put("getDocuments", documents);
+    snapshotValues.put("getDocumentChanges", changes);
+    snapshotValues.put("getMetadata", metadata);
+    querySnapshot = fake(QuerySnapshot.class, snapshotValues);
+
+    largeMap = new HashMap<>();
+    largeMap.put("documents", documentData);
+  }
+
+  @Benchmark
+  public ByteBuffer legacyQuerySnapshot() {
+    return legacyCodec.encodeMessage(querySnapshot);
+  }
+
+  @Benchmark
+  public ByteBuffer directQuerySnapshot() {
+    return codec.encodeMessage(querySnapshot);
+  }
+
+  /** The encoding done off the main thread for snapshot events. */
+  @Benchmark
+  public Object directQuerySnapshotAhead() {
+    return codec.encodeAhead(querySnapshot);
+  }
+
+  @Benchmark
+  public ByteBuffer legacyLargeMap() {
+    return legacyCodec.encodeMessage(largeMap);
+  }
+
+  @Benchmark
+  public ByteBuffer directLargeMap() {
+    return codec.encodeMessage(largeMap);
+  }
+
+  static Map<String, Object> documentData(int index) {
+    Map<String, Object> data = new HashMap<>();
+    for (int field = 0; field < FIELDS_PER_DOCUMENT; field++) {
+      switch (field % 4) {
+        case 0:
+          data.put("string" + field, "value " + index + "-" + field);
+          break;
+        case 1:
+          data.put("long" + field, (long) index * field);
+          break;
+        case 2:
+          data.put("double" + field, index / (field + 1.0));
+          break;
+        default:
+          List<Object> list = new ArrayList<>();
+          list.add(true);
+          list.add("item" + index);
+          data.put("list" + field, list);
+          break;
+      }
+    }
+    return data;
+  }
+
+  private static QueryDocumentSnapshot fakeDocument(
+      String path, Map<String, Object> data, SnapshotMetadata metadata) {
+    Map<String, Object> referenceValues = new HashMap<>();
+    referenceValues.put("getPath", path);
+    Map<String, Object> documentValues = new HashMap<>();
+    documentValues.put("getReference", fake(DocumentReference.class, referenceValues));
+    documentValues.put("getData", data);
+    documentValues.put("getMetadata", metadata);
+    documentValues.put("exists", true);
+    return fake(QueryDocumentSnapshot.class, documentValues);
+  }
+
+  private static DocumentChange fakeChange(QueryDocumentSnapshot document, int index) {
+    Map<String, Object> changeValues = new HashMap<>();
+    changeValues.put("getType", DocumentChange.Type.ADDED);
+    changeValues.put("getDocument", document);
+    changeValues.put("getOldIndex", -1);
+    changeValues.put("getNewIndex", index);
+    return fake(DocumentChange.class, changeValues);
+  }
+}
@@ -0,0 +1,56 @@
+// Copyright 2020 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.firebase.firestore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class FlutterFirebaseFirestoreMessageCodecBenchmarkTest {
+
+  @Test
+  public void encodeMessage_isDecodedLikeLegacyEncoding() {
+    FlutterFirebaseFirestoreMessageCodecBenchmark benchmark =
+        new FlutterFirebaseFirestoreMessageCodecBenchmark();
+    benchmark.documentCount = 3;
+    benchmark.setUp();
+
+    // The maps of the legacy encoding are written in hash order, so only the decoded values match.
+    assertEquals(decode(benchmark.legacyQuerySnapshot()), decode(benchmark.directQuerySnapshot()));
+    assertEquals(decode(benchmark.legacyLargeMap()), decode(benchmark.directLargeMap()));
+  }
+
+  /**
+   * Runs the benchmark when the {@code benchmark} project property is set:
+   *
+   * <pre>./gradlew testDebugUnitTest -Pbenchmark --tests '*MessageCodecBenchmarkTest'</pre>
+   *
+   * <p>The results are printed with ns/op as well as bytes/op ({@code gc.alloc.rate.norm}).
+   */
+  @Test
+  public void runBenchmark() throws RunnerException {
+    assumeTrue(Boolean.getBoolean("firestore.benchmark"));
+    new Runner(
+            new OptionsBuilder()
+                .include(FlutterFirebaseFirestoreMessageCodecBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                // The test classpath is not available to a forked JVM.
+                .forks(0)
+                .build())
+        .run();
+  }
+
+  private static Object decode(ByteBuffer message) {
+    message.flip();
+    return StandardMessageCodec.INSTANCE.decodeMessage(message);
+  }
+}
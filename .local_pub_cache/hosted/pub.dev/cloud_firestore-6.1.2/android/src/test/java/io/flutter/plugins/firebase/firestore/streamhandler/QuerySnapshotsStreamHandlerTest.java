@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022, the Chromium project authors.  Please see the AUTHORS file
+ * for details. All rights reserved. Use of this source code is governed by a
+ * BSD-style license that can be found in the LICENSE file.
+ */
+
+package io.flutter.plugins.firebase.firestore.streamhandler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenSource;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SnapshotMetadata;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class QuerySnapshotsStreamHandlerTest {
+
+  @Test
+  public void toEvent_withoutMetadataChanges_sendsDeltaOfSyncedSnapshot() {
+    QuerySnapshotsStreamHandler handler = listen(false);
+    SnapshotMetadata synced = metadata(false, false);
+    handler.toEvent(snapshot(synced, 3, change(DocumentChange.Type.ADDED)));
+
+    ArrayList<Object> event =
+        handler.toEvent(snapshot(synced, 3, change(DocumentChange.Type.MODIFIED)));
+
+    assertNull(event.get(0));
+    assertEquals(1, ((List<?>) event.get(1)).size());
+    assertEquals(3, event.get(3));
+    assertNull(event.get(4));
+  }
+
+  @Test
+  public void toEvent_withoutMetadataChanges_sendsFullSnapshotWhilePendingWrites() {
+    QuerySnapshotsStreamHandler handler = listen(false);
+    handler.toEvent(snapshot(metadata(true, false), 3, change(DocumentChange.Type.ADDED)));
+
+    ArrayList<Object> event =
+        handler.toEvent(snapshot(metadata(false, false), 3, change(DocumentChange.Type.MODIFIED)));
+
+    assertEquals(3, event.size());
+    assertNotNull(event.get(0));
+  }
+
+  @Test
+  public void toEvent_withMetadataChanges_sendsMetadataOnlyChangesToApply() {
+    QuerySnapshotsStreamHandler handler = listen(true);
+    SnapshotMetadata synced = metadata(false, false);
+    handler.toEvent(snapshot(synced, 3, change(DocumentChange.Type.ADDED)));
+    DocumentChange modified = change(DocumentChange.Type.MODIFIED);
+    QuerySnapshot querySnapshot = snapshot(synced, 3, modified);
+    doReturn(Arrays.asList(modified, change(DocumentChange.Type.MODIFIED)))
+        .when(querySnapshot)
+        .getDocumentChanges(MetadataChanges.INCLUDE);
+
+    ArrayList<Object> event = handler.toEvent(querySnapshot);
+
+    assertNull(event.get(0));
+    assertEquals(1, ((List<?>) event.get(1)).size());
+    assertEquals(2, ((List<?>) event.get(4)).size());
+  }
+
+  private static QuerySnapshotsStreamHandler listen(boolean includeMetadataChanges) {
+    QuerySnapshotsStreamHandler handler =
+        new QuerySnapshotsStreamHandler(
+            mock(Query.class),
+            includeMetadataChanges,
+            DocumentSnapshot.ServerTimestampBehavior.NONE,
+            ListenSource.DEFAULT,
+            Runnable::run);
+    handler.onListen(
+        Collections.singletonMap(QuerySnapshotsStreamHandler.ARGUMENT_DELTAS, true),
+        mock(EventSink.class));
+    return handler;
+  }
+
+  private static SnapshotMetadata metadata(boolean hasPendingWrites, boolean isFromCache) {
+    SnapshotMetadata metadata = mock(SnapshotMetadata.class);
+    when(metadata.hasPendingWrites()).thenReturn(hasPendingWrites);
+    when(metadata.isFromCache()).thenReturn(isFromCache);
+    return metadata;
+  }
+
+  private static QuerySnapshot snapshot(SnapshotMetadata metadata, int size, DocumentChange change) {
+    QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+    List<DocumentSnapshot> documents = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      documents.add(change.getDocument());
+    }
+    when(querySnapshot.getMetadata()).thenReturn(metadata);
+    when(querySnapshot.size()).thenReturn(size);
+    when(querySnapshot.getDocuments()).thenReturn(documents);
+    when(querySnapshot.getDocumentChanges()).thenReturn(Collections.singletonList(change));
+    // Like the SDK, for listeners that exclude metadata changes.
+    when(querySnapshot.getDocumentChanges(MetadataChanges.INCLUDE))
+        .thenThrow(new IllegalArgumentException("metadata changes were not requested"));
+    return querySnapshot;
+  }
+
+  private static DocumentChange change(DocumentChange.Type type) {
+    QueryDocumentSnapshot document = mock(QueryDocumentSnapshot.class, RETURNS_DEEP_STUBS);
+    SnapshotMetadata metadata = metadata(false, false);
+    when(document.getMetadata()).thenReturn(metadata);
+    when(document.getReference().getPath()).thenReturn("collection/document");
+    when(document.getData(any(DocumentSnapshot.ServerTimestampBehavior.class)))
+        .thenReturn(Collections.emptyMap());
+    DocumentChange change = mock(DocumentChange.class);
+    when(change.getType()).thenReturn(type);
+    when(change.getDocument()).thenReturn(document);
+    return change;
+  }
+}
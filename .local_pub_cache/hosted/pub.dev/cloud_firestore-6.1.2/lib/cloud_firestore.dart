@@ -16,6 +16,7 @@ export 'package:cloud_firestore_platform_interface/cloud_firestore_platform_inte
         ListEquality,
         FieldPath,
         Blob,
+        BulkWriteProgress,
         GeoPoint,
         VectorValue,
         Timestamp,
@@ -106,8 +106,49 @@ class FirebaseFirestore extends FirebasePluginPlatform {
     return _delegate.clearPersistence();
   }
 
-  LoadBundleTask loadBundle(Uint8List bundle) {
-    return LoadBundleTask._(_delegate.loadBundle(bundle));
+  /// Loads the [bundle] into the local cache.
+  ///
+  /// Progress is reported at most once every [progressBytes] loaded bytes or
+  /// once every [progressInterval], whichever comes first. The first and the
+  /// final progress updates are always reported. Without either, every update
+  /// is reported.
+  LoadBundleTask loadBundle(
+    Uint8List bundle, {
+    int? progressBytes,
+    Duration? progressInterval,
+  }) {
+    if (progressBytes == null && progressInterval == null) {
+      return LoadBundleTask._(_delegate.loadBundle(bundle));
+    }
+    return LoadBundleTask._(
+      _delegate.loadBundleThrottled(
+        bundle,
+        progressBytes: progressBytes,
+        progressInterval: progressInterval,
+      ),
+    );
+  }
+
+  /// Loads the bundle in the file at [path], without reading the whole file
+  /// into memory or sending it over the platform channel.
+  ///
+  /// Progress is reported at most once every [progressBytes] loaded bytes or
+  /// once every [progressInterval], whichever comes first. The first and the
+  /// final progress updates are always reported.
+  ///
+  /// Only supported on Android.
+  LoadBundleTask loadBundleFromFile(
+    String path, {
+    int? progressBytes,
+    Duration? progressInterval,
+  }) {
+    return LoadBundleTask._(
+      _delegate.loadBundleFromFile(
+        path,
+        progressBytes: progressBytes,
+        progressInterval: progressInterval,
+      ),
+    );
   }
 
   /// Changes this instance to point to a FirebaseFirestore emulator running locally.
@@ -180,6 +221,25 @@ class FirebaseFirestore extends FirebasePluginPlatform {
     return _JsonQuerySnapshot(FirebaseFirestore.instance, snapshotDelegate);
   }
 
+  /// Runs several aggregate queries of this instance at the same time, and
+  /// returns their snapshots in the same order as [queries].
+  ///
+  /// On Android, all queries are sent to the native SDK with a single platform
+  /// call.
+  Future<List<AggregateQuerySnapshot>> aggregateQueries(
+    List<AggregateQuery> queries, {
+    AggregateSource source = AggregateSource.server,
+  }) async {
+    final snapshots = await _delegate.aggregateQueries(
+      [for (final query in queries) query._delegate],
+      source: source,
+    );
+    return [
+      for (var i = 0; i < queries.length; i++)
+        AggregateQuerySnapshot._(snapshots[i], queries[i].query),
+    ];
+  }
+
   /// Gets a [Query] for the specified collection group.
   Query<Map<String, dynamic>> collectionGroup(String collectionPath) {
     if (collectionPath.isEmpty) {
@@ -282,6 +342,8 @@ class FirebaseFirestore extends FirebasePluginPlatform {
           settings.webExperimentalAutoDetectLongPolling,
       webExperimentalLongPollingOptions:
           settings.webExperimentalLongPollingOptions,
+      querySnapshotDeltas: settings.querySnapshotDeltas,
+      optimisticTransactions: settings.optimisticTransactions,
     );
   }
 
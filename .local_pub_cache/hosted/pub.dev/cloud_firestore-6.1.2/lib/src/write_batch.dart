@@ -23,6 +23,19 @@ class WriteBatch {
   /// Calling this method prevents any future operations from being added.
   Future<void> commit() => _delegate.commit();
 
+  /// Commits the writes in this write batch in chunks of at most 500 writes,
+  /// with up to [maxInFlight] chunks being committed at once.
+  ///
+  /// Use this for imports that exceed the limits of a single batch. Writes to
+  /// the same document are combined where the result is the same. Each chunk
+  /// is atomic, the batch as a whole is not: a failed chunk is reported
+  /// through [BulkWriteProgress.error] while the other chunks are still
+  /// committed. Android only.
+  ///
+  /// Calling this method prevents any future operations from being added.
+  Stream<BulkWriteProgress> commitBulk({int maxInFlight = 4}) =>
+      _delegate.commitBulk(maxInFlight: maxInFlight);
+
   /// Deletes the document referred to by [document].
   void delete(DocumentReference document) {
     assert(
@@ -8,6 +8,7 @@ import 'src/internal/pointer.dart';
 export 'package:collection/collection.dart' show ListEquality;
 
 export 'src/blob.dart';
+export 'src/bulk_write_progress.dart';
 export 'src/field_path.dart';
 export 'src/field_path_type.dart';
 export 'src/filters.dart';
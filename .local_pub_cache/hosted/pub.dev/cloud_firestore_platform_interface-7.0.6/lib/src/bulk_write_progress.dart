@@ -0,0 +1,46 @@
+// Copyright 2023, the Chromium project authors.  Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+import 'package:firebase_core/firebase_core.dart';
+import 'package:flutter/foundation.dart';
+
+/// The progress of a bulk commit, reported each time one chunk of writes has
+/// been committed or has failed.
+@immutable
+class BulkWriteProgress {
+  /// Creates a [BulkWriteProgress].
+  const BulkWriteProgress({
+    required this.chunkIndex,
+    required this.chunkCount,
+    required this.writeCount,
+    required this.committedWriteCount,
+    required this.totalWriteCount,
+    this.coalescedWriteCount = 0,
+    this.error,
+  });
+
+  /// The index of the chunk this progress is about.
+  ///
+  /// Chunks are committed in parallel, so they may complete out of order.
+  final int chunkIndex;
+
+  /// The number of chunks the writes were split into.
+  final int chunkCount;
+
+  /// The number of writes in this chunk.
+  final int writeCount;
+
+  /// The number of writes committed so far, over all chunks.
+  final int committedWriteCount;
+
+  /// The number of writes to commit after coalescing.
+  final int totalWriteCount;
+
+  /// The number of writes that were combined with or replaced by a later
+  /// write to the same document.
+  final int coalescedWriteCount;
+
+  /// The error that caused this chunk to fail, or `null` if it was committed.
+  final FirebaseException? error;
+}
@@ -36,7 +36,36 @@ class MethodChannelAggregateQuery extends AggregateQueryPlatform {
       _aggregateQueries,
       _isCollectionGroupQuery,
     );
+    return _toSnapshot(data);
+  }
+
+  /// Runs [queries] of the app [pigeonApp] with a single platform call, and
+  /// returns their snapshots in the same order.
+  static Future<List<AggregateQuerySnapshotPlatform>> getAll(
+    FirestorePigeonFirebaseApp pigeonApp,
+    List<MethodChannelAggregateQuery> queries, {
+    required AggregateSource source,
+  }) async {
+    final data =
+        await MethodChannelFirebaseFirestore.pigeonChannel.aggregateQueries(
+      pigeonApp,
+      [for (final query in queries) query._path],
+      [for (final query in queries) query._pigeonParameters],
+      [for (final query in queries) query._isCollectionGroupQuery],
+      [for (final query in queries) query._aggregateQueries],
+      source,
+    );
+    return [for (final responses in data) _toSnapshot(responses ?? const [])];
+  }
+
+  /// Whether this query was created by the Firestore instance of [pigeonApp].
+  bool belongsTo(FirestorePigeonFirebaseApp pigeonApp) {
+    return identical(_pigeonApp, pigeonApp);
+  }
 
+  static AggregateQuerySnapshotPlatform _toSnapshot(
+    List<AggregateQueryResponse?> data,
+  ) {
     int? count;
     List<AggregateQueryResponse> sum = [];
     List<AggregateQueryResponse> average = [];
@@ -11,8 +11,10 @@ import 'package:cloud_firestore_platform_interface/src/method_channel/method_cha
 import 'package:cloud_firestore_platform_interface/src/method_channel/method_channel_persistent_cache_index_manager.dart';
 import 'package:cloud_firestore_platform_interface/src/method_channel/method_channel_query_snapshot.dart';
 import 'package:firebase_core/firebase_core.dart';
+import 'package:flutter/foundation.dart';
 import 'package:flutter/services.dart';
 
+import 'method_channel_aggregate_query.dart';
 import 'method_channel_collection_reference.dart';
 import 'method_channel_document_reference.dart';
 import 'method_channel_query.dart';
@@ -65,6 +67,14 @@ class MethodChannelFirebaseFirestore extends FirebaseFirestorePlatform {
     );
   }
 
+  /// The [EventChannel] used for bulk writes
+  static EventChannel bulkWriteChannel(String id) {
+    return EventChannel(
+      'plugins.flutter.io/firebase_firestore/bulkWrite/$id',
+      const StandardMethodCodec(FirestoreMessageCodec()),
+    );
+  }
+
   static final pigeonChannel = FirebaseFirestoreHostApi();
 
   late final FirestorePigeonFirebaseApp pigeonApp = FirestorePigeonFirebaseApp(
@@ -96,6 +106,47 @@ class MethodChannelFirebaseFirestore extends FirebaseFirestorePlatform {
     );
   }
 
+  @override
+  LoadBundleTaskPlatform loadBundleThrottled(
+    Uint8List bundle, {
+    int? progressBytes,
+    Duration? progressInterval,
+  }) {
+    return MethodChannelLoadBundleTask(
+      task: pigeonChannel.loadBundle(pigeonApp, bundle),
+      arguments: _progressArguments(progressBytes, progressInterval),
+    );
+  }
+
+  @override
+  LoadBundleTaskPlatform loadBundleFromFile(
+    String path, {
+    int? progressBytes,
+    Duration? progressInterval,
+  }) {
+    if (defaultTargetPlatform != TargetPlatform.android) {
+      throw UnsupportedError(
+        'loadBundleFromFile() is only supported on Android.',
+      );
+    }
+    return MethodChannelLoadBundleTask(
+      task: pigeonChannel.loadBundleFromFile(pigeonApp, path),
+      arguments: _progressArguments(progressBytes, progressInterval),
+    );
+  }
+
+  /// The listen arguments of a load bundle task, read by the host's
+  /// `LoadBundleStreamHandler`.
+  static Map<String, Object?> _progressArguments(
+    int? progressBytes,
+    Duration? progressInterval,
+  ) {
+    return <String, Object?>{
+      'progressBytes': progressBytes,
+      'progressIntervalMillis': progressInterval?.inMilliseconds,
+    };
+  }
+
   @override
   Future<QuerySnapshotPlatform> namedQueryGet(
     String name, {
@@ -132,6 +183,33 @@ class MethodChannelFirebaseFirestore extends FirebaseFirestorePlatform {
     }
   }
 
+  @override
+  Future<List<AggregateQuerySnapshotPlatform>> aggregateQueries(
+    List<AggregateQueryPlatform> queries, {
+    required AggregateSource source,
+  }) async {
+    // Only Android implements the batched call.
+    if (defaultTargetPlatform != TargetPlatform.android ||
+        !queries.every((query) =>
+            query is MethodChannelAggregateQuery &&
+            query.belongsTo(pigeonApp))) {
+      return super.aggregateQueries(queries, source: source);
+    }
+    if (queries.isEmpty) {
+      return [];
+    }
+
+    try {
+      return await MethodChannelAggregateQuery.getAll(
+        pigeonApp,
+        queries.cast<MethodChannelAggregateQuery>(),
+        source: source,
+      );
+    } catch (e, stack) {
+      convertPlatformException(e, stack);
+    }
+  }
+
   @override
   WriteBatchPlatform batch() => MethodChannelWriteBatch(pigeonApp);
 
@@ -240,6 +318,7 @@ class MethodChannelFirebaseFirestore extends FirebaseFirestorePlatform {
         'firestore': this,
         'timeout': timeout.inMilliseconds,
         'maxAttempts': maxAttempts,
+        'optimistic': settings.optimisticTransactions ?? false,
       },
       onError: convertPlatformException,
     ).listen(
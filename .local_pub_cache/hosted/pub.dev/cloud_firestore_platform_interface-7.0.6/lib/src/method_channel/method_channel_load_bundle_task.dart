@@ -14,13 +14,14 @@ import 'method_channel_firestore.dart';
 class MethodChannelLoadBundleTask extends LoadBundleTaskPlatform {
   MethodChannelLoadBundleTask({
     required Future<String?> task,
+    Map<String, Object?>? arguments,
   }) : super() {
     Stream<LoadBundleTaskSnapshotPlatform> mapNativeStream() async* {
       final observerId = await task;
 
       final nativePlatformStream =
           MethodChannelFirebaseFirestore.loadBundleChannel(observerId!)
-              .receiveBroadcastStream();
+              .receiveBroadcastStream(arguments);
       try {
         await for (final snapshot in nativePlatformStream) {
           final taskState = convertToTaskState(snapshot['taskState']);
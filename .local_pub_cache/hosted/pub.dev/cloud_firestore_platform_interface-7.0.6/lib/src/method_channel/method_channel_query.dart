@@ -162,6 +162,54 @@ class MethodChannelQuery extends QueryPlatform {
 
     StreamSubscription<dynamic>? snapshotStreamSubscription;
 
+    final deltas = firestore.settings.querySnapshotDeltas ?? false;
+    // The documents of the last snapshot, which delta events are applied to.
+    List<PigeonDocumentSnapshot>? documents;
+
+    void listen(String observerId) {
+      snapshotStreamSubscription =
+          MethodChannelFirebaseFirestore.querySnapshotChannel(observerId)
+              .receiveGuardedBroadcastStream(
+        arguments: deltas ? <String, Object?>{'deltas': true} : null,
+        onError: convertPlatformException,
+      )
+              .listen(
+        (snapshot) {
+          final snapshotList = snapshot as List<Object?>;
+          // We force the types here of list because they are not automatically
+          // decoded by the pigeon generated code.
+          final List<PigeonDocumentChange> changes =
+              _decodeDocumentChanges(snapshotList[1]! as List);
+          final List<PigeonDocumentSnapshot>? current;
+          if (snapshotList[0] != null) {
+            current = (snapshotList[0]! as List)
+                .map((e) => PigeonDocumentSnapshot.decode(e))
+                .toList()
+                .cast<PigeonDocumentSnapshot>();
+          } else {
+            final applyChanges = snapshotList[4] == null
+                ? changes
+                : _decodeDocumentChanges(snapshotList[4]! as List);
+            current = documents == null
+                ? null
+                : _applyDocumentChanges(
+                    documents!, applyChanges, snapshotList[3]! as int);
+            if (current == null) {
+              // Out of sync, listening again starts over with a full snapshot.
+              snapshotStreamSubscription?.cancel();
+              listen(observerId);
+              return;
+            }
+          }
+          documents = deltas ? current : null;
+          final PigeonQuerySnapshot result = PigeonQuerySnapshot.decode(
+              [current, changes, snapshotList[2]]);
+          controller.add(MethodChannelQuerySnapshot(firestore, result));
+        },
+        onError: controller.addError,
+      );
+    }
+
     controller = StreamController<QuerySnapshotPlatform>.broadcast(
       onListen: () async {
         final observerId =
@@ -178,32 +226,7 @@ class MethodChannelQuery extends QueryPlatform {
           listenSource,
         );
 
-        snapshotStreamSubscription =
-            MethodChannelFirebaseFirestore.querySnapshotChannel(observerId)
-                .receiveGuardedBroadcastStream(
-          onError: convertPlatformException,
-        )
-                .listen(
-          (snapshot) {
-            final snapshotList = snapshot as List<Object?>;
-            // We force the types here of list because they are not automatically
-            // decoded by the pigeon generated code.
-            final List<PigeonDocumentSnapshot> documents =
-                (snapshotList[0]! as List)
-                    .map((e) => PigeonDocumentSnapshot.decode(e))
-                    .toList()
-                    .cast<PigeonDocumentSnapshot>();
-            final List<PigeonDocumentChange> changes =
-                (snapshotList[1]! as List)
-                    .map((e) => PigeonDocumentChange.decode(e))
-                    .toList()
-                    .cast<PigeonDocumentChange>();
-            final PigeonQuerySnapshot result = PigeonQuerySnapshot.decode(
-                [documents, changes, snapshotList[2]]);
-            controller.add(MethodChannelQuerySnapshot(firestore, result));
-          },
-          onError: controller.addError,
-        );
+        listen(observerId);
       },
       onCancel: () {
         snapshotStreamSubscription?.cancel();
@@ -435,4 +458,40 @@ class MethodChannelQuery extends QueryPlatform {
         isCollectionGroupQuery,
         const DeepCollectionEquality().hash(parameters),
       );
+
+  static List<PigeonDocumentChange> _decodeDocumentChanges(List changes) {
+    return changes
+        .map((e) => PigeonDocumentChange.decode(e))
+        .toList()
+        .cast<PigeonDocumentChange>();
+  }
+
+  /// Applies [changes] in order to a copy of [documents].
+  ///
+  /// Returns `null` if the changes do not line up with [documents] or do not
+  /// result in [documentCount] documents.
+  static List<PigeonDocumentSnapshot>? _applyDocumentChanges(
+    List<PigeonDocumentSnapshot> documents,
+    List<PigeonDocumentChange> changes,
+    int documentCount,
+  ) {
+    final result = List<PigeonDocumentSnapshot>.of(documents);
+    for (final change in changes) {
+      if (change.type != DocumentChangeType.added) {
+        if (change.oldIndex < 0 ||
+            change.oldIndex >= result.length ||
+            result[change.oldIndex].path != change.document.path) {
+          return null;
+        }
+        result.removeAt(change.oldIndex);
+      }
+      if (change.type != DocumentChangeType.removed) {
+        if (change.newIndex < 0 || change.newIndex > result.length) {
+          return null;
+        }
+        result.insert(change.newIndex, change.document);
+      }
+    }
+    return result.length == documentCount ? result : null;
+  }
 }
@@ -5,7 +5,10 @@
 
 import 'dart:async';
 
+import 'package:_flutterfire_internals/_flutterfire_internals.dart';
 import 'package:cloud_firestore_platform_interface/cloud_firestore_platform_interface.dart';
+import 'package:firebase_core/firebase_core.dart';
+import 'package:flutter/foundation.dart';
 
 import 'method_channel_firestore.dart';
 import 'utils/exception.dart';
@@ -49,6 +52,52 @@ class MethodChannelWriteBatch extends WriteBatchPlatform {
     }
   }
 
+  @override
+  Stream<BulkWriteProgress> commitBulk({int maxInFlight = 4}) {
+    if (defaultTargetPlatform != TargetPlatform.android) {
+      throw UnsupportedError('commitBulk() is only supported on Android.');
+    }
+    assert(maxInFlight > 0, 'maxInFlight must be more than 0');
+    _assertNotCommitted();
+    _committed = true;
+
+    if (_writes.isEmpty) {
+      return const Stream.empty();
+    }
+    return _commitBulk(maxInFlight);
+  }
+
+  Stream<BulkWriteProgress> _commitBulk(int maxInFlight) async* {
+    final String observerId;
+    try {
+      observerId = await MethodChannelFirebaseFirestore.pigeonChannel
+          .writeBatchCommitBulk(pigeonApp, _writes, maxInFlight);
+    } catch (e, stack) {
+      convertPlatformException(e, stack);
+    }
+
+    final events = MethodChannelFirebaseFirestore.bulkWriteChannel(observerId)
+        .receiveGuardedBroadcastStream(onError: convertPlatformException);
+    await for (final event in events) {
+      final error = event['error'];
+      yield BulkWriteProgress(
+        chunkIndex: event['chunk'],
+        chunkCount: event['chunkCount'],
+        writeCount: event['writeCount'],
+        committedWriteCount: event['committedWriteCount'],
+        totalWriteCount: event['totalWriteCount'],
+        coalescedWriteCount: event['coalescedWriteCount'],
+        error: error == null
+            ? null
+            : FirebaseException(
+                plugin: 'cloud_firestore',
+                code: error['code'],
+                message: error['message'],
+              ),
+      );
+    }
+  }
+
   @override
   void delete(String documentPath) {
     _assertNotCommitted();
@@ -680,6 +680,38 @@ class FirebaseFirestoreHostApi {
     }
   }
 
+  Future<String> loadBundleFromFile(
+    FirestorePigeonFirebaseApp arg_app,
+    String arg_path,
+  ) async {
+    final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
+      'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.loadBundleFromFile',
+      codec,
+      binaryMessenger: _binaryMessenger,
+    );
+    final List<Object?>? replyList =
+        await channel.send(<Object?>[arg_app, arg_path]) as List<Object?>?;
+    if (replyList == null) {
+      throw PlatformException(
+        code: 'channel-error',
+        message: 'Unable to establish connection on channel.',
+      );
+    } else if (replyList.length > 1) {
+      throw PlatformException(
+        code: replyList[0]! as String,
+        message: replyList[1] as String?,
+        details: replyList[2],
+      );
+    } else if (replyList[0] == null) {
+      throw PlatformException(
+        code: 'null-error',
+        message: 'Host platform returned null value for non-null return value.',
+      );
+    } else {
+      return (replyList[0] as String?)!;
+    }
+  }
+
   Future<PigeonQuerySnapshot> namedQueryGet(
     FirestorePigeonFirebaseApp arg_app,
     String arg_name,
@@ -1207,6 +1239,52 @@ class FirebaseFirestoreHostApi {
     }
   }
 
+  Future<List<List<AggregateQueryResponse?>?>> aggregateQueries(
+    FirestorePigeonFirebaseApp arg_app,
+    List<String?> arg_paths,
+    List<PigeonQueryParameters?> arg_parameters,
+    List<bool?> arg_isCollectionGroup,
+    List<List<AggregateQuery?>?> arg_queries,
+    AggregateSource arg_source,
+  ) async {
+    final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
+      'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries',
+      codec,
+      binaryMessenger: _binaryMessenger,
+    );
+    final List<Object?>? replyList = await channel.send(<Object?>[
+      arg_app,
+      arg_paths,
+      arg_parameters,
+      arg_isCollectionGroup,
+      arg_queries,
+      arg_source.index,
+    ]) as List<Object?>?;
+    if (replyList == null) {
+      throw PlatformException(
+        code: 'channel-error',
+        message: 'Unable to establish connection on channel.',
+      );
+    } else if (replyList.length > 1) {
+      throw PlatformException(
+        code: replyList[0]! as String,
+        message: replyList[1] as String?,
+        details: replyList[2],
+      );
+    } else if (replyList[0] == null) {
+      throw PlatformException(
+        code: 'null-error',
+        message: 'Host platform returned null value for non-null return value.',
+      );
+    } else {
+      return (replyList[0] as List<Object?>?)!
+          .cast<List<Object?>?>()
+          .map((List<Object?>? responses) =>
+              responses?.cast<AggregateQueryResponse?>())
+          .toList();
+    }
+  }
+
   Future<void> writeBatchCommit(
     FirestorePigeonFirebaseApp arg_app,
     List<PigeonTransactionCommand?> arg_writes,
@@ -1234,6 +1312,39 @@ class FirebaseFirestoreHostApi {
     }
   }
 
+  Future<String> writeBatchCommitBulk(
+    FirestorePigeonFirebaseApp arg_app,
+    List<PigeonTransactionCommand?> arg_writes,
+    int arg_maxInFlight,
+  ) async {
+    final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
+      'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommitBulk',
+      codec,
+      binaryMessenger: _binaryMessenger,
+    );
+    final List<Object?>? replyList = await channel
+        .send(<Object?>[arg_app, arg_writes, arg_maxInFlight]) as List<Object?>?;
+    if (replyList == null) {
+      throw PlatformException(
+        code: 'channel-error',
+        message: 'Unable to establish connection on channel.',
+      );
+    } else if (replyList.length > 1) {
+      throw PlatformException(
+        code: replyList[0]! as String,
+        message: replyList[1] as String?,
+        details: replyList[2],
+      );
+    } else if (replyList[0] == null) {
+      throw PlatformException(
+        code: 'null-error',
+        message: 'Host platform returned null value for non-null return value.',
+      );
+    } else {
+      return (replyList[0] as String?)!;
+    }
+  }
+
   Future<String> querySnapshot(
     FirestorePigeonFirebaseApp arg_app,
     String arg_path,
@@ -140,6 +140,35 @@ abstract class FirebaseFirestorePlatform extends PlatformInterface {
     throw UnimplementedError('loadBundle() is not implemented');
   }
 
+  /// Like [loadBundle], with progress reported at most once every
+  /// [progressBytes] loaded bytes or once every [progressInterval], whichever
+  /// comes first. The first and the final progress updates are always
+  /// reported.
+  ///
+  /// Platforms that cannot throttle progress report every update.
+  LoadBundleTaskPlatform loadBundleThrottled(
+    Uint8List bundle, {
+    int? progressBytes,
+    Duration? progressInterval,
+  }) {
+    return loadBundle(bundle);
+  }
+
+  /// Loads the Firestore bundle in the file at [path] into the local cache,
+  /// without reading the whole file into memory.
+  ///
+  /// Progress is reported at most once every [progressBytes] loaded bytes or
+  /// once every [progressInterval], whichever comes first. The first and the
+  /// final progress updates are always reported. Without either, every update
+  /// is reported.
+  LoadBundleTaskPlatform loadBundleFromFile(
+    String path, {
+    int? progressBytes,
+    Duration? progressInterval,
+  }) {
+    throw UnimplementedError('loadBundleFromFile() is not implemented');
+  }
+
   /// Reads a Firestore Query which has been loaded using [loadBundle()]
   Future<QuerySnapshotPlatform> namedQueryGet(
     String name, {
@@ -148,6 +177,18 @@ abstract class FirebaseFirestorePlatform extends PlatformInterface {
     throw UnimplementedError('namedQueryGet() is not implemented');
   }
 
+  /// Runs several aggregate queries and returns their snapshots in the same
+  /// order.
+  ///
+  /// Platforms that support it run all queries with a single platform call.
+  /// Otherwise each query is run on its own, all at the same time.
+  Future<List<AggregateQuerySnapshotPlatform>> aggregateQueries(
+    List<AggregateQueryPlatform> queries, {
+    required AggregateSource source,
+  }) {
+    return Future.wait(queries.map((query) => query.get(source: source)));
+  }
+
   /// Executes the given [TransactionHandler] and then attempts to commit the
   /// changes applied within an atomic transaction.
   ///
@@ -38,6 +38,18 @@ abstract class WriteBatchPlatform extends PlatformInterface {
     throw UnimplementedError('commit() is not implemented');
   }
 
+  /// Commits the writes in this write batch in chunks that each fit into a
+  /// single atomic batch, committing up to [maxInFlight] chunks at once.
+  ///
+  /// Writes to the same document are combined where possible. Only each chunk
+  /// is atomic, not the batch as a whole. The stream emits a
+  /// [BulkWriteProgress] per chunk and closes once all chunks are done.
+  ///
+  /// Calling this method prevents any future operations from being added.
+  Stream<BulkWriteProgress> commitBulk({int maxInFlight = 4}) {
+    throw UnimplementedError('commitBulk() is not implemented');
+  }
+
   /// Deletes the document referred to by a [documentPath].
   void delete(String documentPath) {
     throw UnimplementedError('delete() is not implemented');
@@ -20,6 +20,8 @@ class Settings {
     this.webExperimentalAutoDetectLongPolling,
     this.webExperimentalLongPollingOptions,
     this.ignoreUndefinedProperties = false,
+    this.querySnapshotDeltas,
+    this.optimisticTransactions,
   });
 
   /// Constant used to indicate the LRU garbage collection should be disabled.
@@ -75,6 +77,20 @@ class Settings {
   /// Otherwise, these options have no effect.
   final WebExperimentalLongPollingOptions? webExperimentalLongPollingOptions;
 
+  /// Whether query listeners should only receive the changed documents from the
+  /// platform after the first snapshot, instead of every document on every change.
+  ///
+  /// The full list of documents is still available on each query snapshot; it is
+  /// kept up to date on the Dart side. Android only.
+  final bool? querySnapshotDeltas;
+
+  /// Whether transactions should collect their reads while the handler runs and
+  /// only check them and apply the writes once the handler has returned.
+  ///
+  /// No platform thread is held while the handler runs. If a document read by
+  /// the handler has changed in the meantime, the handler is run again. Android only.
+  final bool? optimisticTransactions;
+
   /// Returns the settings as a [Map]
   Map<String, dynamic> get asMap {
     return {
@@ -100,6 +116,8 @@ class Settings {
     bool? webExperimentalAutoDetectLongPolling,
     bool? ignoreUndefinedProperties,
     WebExperimentalLongPollingOptions? webExperimentalLongPollingOptions,
+    bool? querySnapshotDeltas,
+    bool? optimisticTransactions,
   }) {
     assert(
         cacheSizeBytes == null ||
@@ -122,6 +140,9 @@ class Settings {
           this.webExperimentalLongPollingOptions,
       ignoreUndefinedProperties:
           ignoreUndefinedProperties ?? this.ignoreUndefinedProperties,
+      querySnapshotDeltas: querySnapshotDeltas ?? this.querySnapshotDeltas,
+      optimisticTransactions:
+          optimisticTransactions ?? this.optimisticTransactions,
     );
   }
 
@@ -139,7 +160,9 @@ class Settings {
           webExperimentalAutoDetectLongPolling &&
       other.webExperimentalLongPollingOptions ==
           webExperimentalLongPollingOptions &&
-      other.ignoreUndefinedProperties == ignoreUndefinedProperties;
+      other.ignoreUndefinedProperties == ignoreUndefinedProperties &&
+      other.querySnapshotDeltas == querySnapshotDeltas &&
+      other.optimisticTransactions == optimisticTransactions;
 
   @override
   int get hashCode => Object.hash(
@@ -152,6 +175,8 @@ class Settings {
         webExperimentalAutoDetectLongPolling,
         webExperimentalLongPollingOptions,
         ignoreUndefinedProperties,
+        querySnapshotDeltas,
+        optimisticTransactions,
       );
 
   @override
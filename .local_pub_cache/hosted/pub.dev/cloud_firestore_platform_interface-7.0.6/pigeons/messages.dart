@@ -300,6 +300,14 @@ abstract class FirebaseFirestoreHostApi {
     Uint8List bundle,
   );
 
+  /// Loads the bundle from the file at [path], which is read by the host
+  /// instead of being sent over the channel.
+  @async
+  String loadBundleFromFile(
+    FirestorePigeonFirebaseApp app,
+    String path,
+  );
+
   @async
   PigeonQuerySnapshot namedQueryGet(
     FirestorePigeonFirebaseApp app,
@@ -412,12 +420,31 @@ abstract class FirebaseFirestoreHostApi {
     bool isCollectionGroup,
   );
 
+  /// Runs several aggregate queries concurrently. The arguments at the same
+  /// index describe one query, and the responses are returned in order.
+  @async
+  List<List<AggregateQueryResponse?>?> aggregateQueries(
+    FirestorePigeonFirebaseApp app,
+    List<String?> paths,
+    List<PigeonQueryParameters?> parameters,
+    List<bool?> isCollectionGroup,
+    List<List<AggregateQuery?>?> queries,
+    AggregateSource source,
+  );
+
   @async
   void writeBatchCommit(
     FirestorePigeonFirebaseApp app,
     List<PigeonTransactionCommand?> writes,
   );
 
+  @async
+  String writeBatchCommitBulk(
+    FirestorePigeonFirebaseApp app,
+    List<PigeonTransactionCommand?> writes,
+    int maxInFlight,
+  );
+
   @async
   String querySnapshot(
     FirestorePigeonFirebaseApp app,
@@ -90,6 +90,11 @@ abstract class TestFirebaseFirestoreHostApi {
 
   Future<String> loadBundle(FirestorePigeonFirebaseApp app, Uint8List bundle);
 
+  Future<String> loadBundleFromFile(
+    FirestorePigeonFirebaseApp app,
+    String path,
+  );
+
   Future<PigeonQuerySnapshot> namedQueryGet(
     FirestorePigeonFirebaseApp app,
     String name,
@@ -170,11 +175,26 @@ abstract class TestFirebaseFirestoreHostApi {
     bool isCollectionGroup,
   );
 
+  Future<List<List<AggregateQueryResponse?>?>> aggregateQueries(
+    FirestorePigeonFirebaseApp app,
+    List<String?> paths,
+    List<PigeonQueryParameters?> parameters,
+    List<bool?> isCollectionGroup,
+    List<List<AggregateQuery?>?> queries,
+    AggregateSource source,
+  );
+
   Future<void> writeBatchCommit(
     FirestorePigeonFirebaseApp app,
     List<PigeonTransactionCommand?> writes,
   );
 
+  Future<String> writeBatchCommitBulk(
+    FirestorePigeonFirebaseApp app,
+    List<PigeonTransactionCommand?> writes,
+    int maxInFlight,
+  );
+
   Future<String> querySnapshot(
     FirestorePigeonFirebaseApp app,
     String path,
@@ -235,6 +255,41 @@ abstract class TestFirebaseFirestoreHostApi {
         });
       }
     }
+    {
+      final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
+        'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.loadBundleFromFile',
+        codec,
+        binaryMessenger: binaryMessenger,
+      );
+      if (api == null) {
+        _testBinaryMessengerBinding!.defaultBinaryMessenger
+            .setMockDecodedMessageHandler<Object?>(channel, null);
+      } else {
+        _testBinaryMessengerBinding!.defaultBinaryMessenger
+            .setMockDecodedMessageHandler<Object?>(channel,
+                (Object? message) async {
+          assert(
+            message != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.loadBundleFromFile was null.',
+          );
+          final List<Object?> args = (message as List<Object?>?)!;
+          final FirestorePigeonFirebaseApp? arg_app =
+              (args[0] as FirestorePigeonFirebaseApp?);
+          assert(
+            arg_app != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.loadBundleFromFile was null, expected non-null FirestorePigeonFirebaseApp.',
+          );
+          final String? arg_path = (args[1] as String?);
+          assert(
+            arg_path != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.loadBundleFromFile was null, expected non-null String.',
+          );
+          final String output =
+              await api.loadBundleFromFile(arg_app!, arg_path!);
+          return <Object?>[output];
+        });
+      }
+    }
     {
       final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
         'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.namedQueryGet',
@@ -896,6 +951,77 @@ abstract class TestFirebaseFirestoreHostApi {
         });
       }
     }
+    {
+      final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
+        'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries',
+        codec,
+        binaryMessenger: binaryMessenger,
+      );
+      if (api == null) {
+        _testBinaryMessengerBinding!.defaultBinaryMessenger
+            .setMockDecodedMessageHandler<Object?>(channel, null);
+      } else {
+        _testBinaryMessengerBinding!.defaultBinaryMessenger
+            .setMockDecodedMessageHandler<Object?>(channel,
+                (Object? message) async {
+          assert(
+            message != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries was null.',
+          );
+          final List<Object?> args = (message as List<Object?>?)!;
+          final FirestorePigeonFirebaseApp? arg_app =
+              (args[0] as FirestorePigeonFirebaseApp?);
+          assert(
+            arg_app != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries was null, expected non-null FirestorePigeonFirebaseApp.',
+          );
+          final List<String?>? arg_paths =
+              (args[1] as List<Object?>?)?.cast<String?>();
+          assert(
+            arg_paths != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries was null, expected non-null List<String?>.',
+          );
+          final List<PigeonQueryParameters?>? arg_parameters =
+              (args[2] as List<Object?>?)?.cast<PigeonQueryParameters?>();
+          assert(
+            arg_parameters != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries was null, expected non-null List<PigeonQueryParameters?>.',
+          );
+          final List<bool?>? arg_isCollectionGroup =
+              (args[3] as List<Object?>?)?.cast<bool?>();
+          assert(
+            arg_isCollectionGroup != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries was null, expected non-null List<bool?>.',
+          );
+          final List<List<AggregateQuery?>?>? arg_queries =
+              (args[4] as List<Object?>?)
+                  ?.cast<List<Object?>?>()
+                  .map((List<Object?>? queries) =>
+                      queries?.cast<AggregateQuery?>())
+                  .toList();
+          assert(
+            arg_queries != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries was null, expected non-null List<List<AggregateQuery?>?>.',
+          );
+          final AggregateSource? arg_source =
+              args[5] == null ? null : AggregateSource.values[args[5]! as int];
+          assert(
+            arg_source != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.aggregateQueries was null, expected non-null AggregateSource.',
+          );
+          final List<List<AggregateQueryResponse?>?> output =
+              await api.aggregateQueries(
+            arg_app!,
+            arg_paths!,
+            arg_parameters!,
+            arg_isCollectionGroup!,
+            arg_queries!,
+            arg_source!,
+          );
+          return <Object?>[output];
+        });
+      }
+    }
     {
       final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
         'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommit',
@@ -931,6 +1057,50 @@ abstract class TestFirebaseFirestoreHostApi {
         });
       }
     }
+    {
+      final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
+        'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommitBulk',
+        codec,
+        binaryMessenger: binaryMessenger,
+      );
+      if (api == null) {
+        _testBinaryMessengerBinding!.defaultBinaryMessenger
+            .setMockDecodedMessageHandler<Object?>(channel, null);
+      } else {
+        _testBinaryMessengerBinding!.defaultBinaryMessenger
+            .setMockDecodedMessageHandler<Object?>(channel,
+                (Object? message) async {
+          assert(
+            message != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommitBulk was null.',
+          );
+          final List<Object?> args = (message as List<Object?>?)!;
+          final FirestorePigeonFirebaseApp? arg_app =
+              (args[0] as FirestorePigeonFirebaseApp?);
+          assert(
+            arg_app != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommitBulk was null, expected non-null FirestorePigeonFirebaseApp.',
+          );
+          final List<PigeonTransactionCommand?>? arg_writes =
+              (args[1] as List<Object?>?)?.cast<PigeonTransactionCommand?>();
+          assert(
+            arg_writes != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommitBulk was null, expected non-null List<PigeonTransactionCommand?>.',
+          );
+          final int? arg_maxInFlight = (args[2] as int?);
+          assert(
+            arg_maxInFlight != null,
+            'Argument for dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.writeBatchCommitBulk was null, expected non-null int.',
+          );
+          final String output = await api.writeBatchCommitBulk(
+            arg_app!,
+            arg_writes!,
+            arg_maxInFlight!,
+          );
+          return <Object?>[output];
+        });
+      }
+    }
     {
       final BasicMessageChannel<Object?> channel = BasicMessageChannel<Object?>(
         'dev.flutter.pigeon.cloud_firestore_platform_interface.FirebaseFirestoreHostApi.querySnapshot',
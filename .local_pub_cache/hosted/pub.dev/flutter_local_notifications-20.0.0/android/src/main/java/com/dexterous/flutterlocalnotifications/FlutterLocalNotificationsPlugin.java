@@ -16,9 +16,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.media.AudioAttributes;
 import android.media.RingtoneManager;
 import android.net.Uri;
@@ -26,6 +24,7 @@ import android.os.Build;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.service.notification.StatusBarNotification;
 import android.text.Html;
@@ -76,11 +75,10 @@ import com.dexterous.flutterlocalnotifications.utils.LongUtils;
 import com.dexterous.flutterlocalnotifications.utils.StringUtils;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -89,8 +87,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import io.flutter.FlutterInjector;
@@ -135,7 +133,6 @@ public class FlutterLocalNotificationsPlugin
   private static final String SELECT_NOTIFICATION = "SELECT_NOTIFICATION";
   private static final String SELECT_FOREGROUND_NOTIFICATION_ACTION =
       "SELECT_FOREGROUND_NOTIFICATION";
-  private static final String SCHEDULED_NOTIFICATIONS = "scheduled_notifications";
   private static final String INITIALIZE_METHOD = "initialize";
   private static final String GET_CALLBACK_HANDLE_METHOD = "getCallbackHandle";
   private static final String ARE_NOTIFICATIONS_ENABLED_METHOD = "areNotificationsEnabled";
@@ -156,10 +153,12 @@ public class FlutterLocalNotificationsPlugin
   private static final String GET_ACTIVE_NOTIFICATIONS_METHOD = "getActiveNotifications";
   private static final String SHOW_METHOD = "show";
   private static final String CANCEL_METHOD = "cancel";
+  private static final String CANCEL_NOTIFICATIONS_METHOD = "cancelNotifications";
   private static final String CANCEL_ALL_METHOD = "cancelAll";
   private static final String CANCEL_ALL_PENDING_NOTIFICATIONS_METHOD =
       "cancelAllPendingNotifications";
   private static final String ZONED_SCHEDULE_METHOD = "zonedSchedule";
+  private static final String ZONED_SCHEDULE_ALL_METHOD = "zonedScheduleAll";
   private static final String PERIODICALLY_SHOW_METHOD = "periodicallyShow";
   private static final String PERIODICALLY_SHOW_WITH_DURATION_METHOD =
       "periodicallyShowWithDuration";
@@ -204,10 +203,14 @@ public class FlutterLocalNotificationsPlugin
   private static final String EXACT_ALARMS_PERMISSION_ERROR_CODE = "exact_alarms_not_permitted";
   private static final String CANCEL_ID = "id";
   private static final String CANCEL_TAG = "tag";
+  private static final String CANCEL_IDS = "ids";
+  private static final String ERROR_CODE = "code";
+  private static final String ERROR_MESSAGE = "message";
   private static final String ACTION_ID = "actionId";
   private static final String INPUT_RESULT = "FlutterLocalNotificationsPluginInputResult";
   private static final String INPUT = "input";
   private static final String NOTIFICATION_RESPONSE_TYPE = "notificationResponseType";
+  // Alarms used to carry the notification details as JSON, see NotificationDetailsPayload.
   static String NOTIFICATION_DETAILS = "notificationDetails";
   static Gson gson;
   private MethodChannel channel;
@@ -224,23 +227,58 @@ public class FlutterLocalNotificationsPlugin
 
   private PermissionRequestProgress permissionRequestProgress = PermissionRequestProgress.None;
 
+  /**
+   * Registers the alarms of all scheduled notifications again, e.g. after a reboot.
+   *
+   * <p>The payload of each alarm is made from the saved JSON of the notification, rather than by
+   * serializing it again, and the saved notifications are only changed to remove the ones that can
+   * no longer be scheduled. Bitmaps that no scheduled notification uses anymore are removed.
+   */
   static void rescheduleNotifications(Context context) {
-    ArrayList<NotificationDetails> scheduledNotifications = loadScheduledNotifications(context);
-    for (NotificationDetails notificationDetails : scheduledNotifications) {
+    long startTime = SystemClock.elapsedRealtime();
+    ScheduledNotificationStore store = ScheduledNotificationStore.getInstance(context);
+    Map<Integer, String> scheduledNotifications = store.getAllJson();
+    long loadedTime = SystemClock.elapsedRealtime();
+    Gson gson = buildGson();
+    List<Integer> failedNotificationIds = new ArrayList<>();
+    for (Map.Entry<Integer, String> scheduledNotification : scheduledNotifications.entrySet()) {
+      JsonObject notificationDetailsJson =
+          JsonParser.parseString(scheduledNotification.getValue()).getAsJsonObject();
+      NotificationDetails notificationDetails =
+          gson.fromJson(notificationDetailsJson, NotificationDetails.class);
+      NotificationDetailsPayload notificationDetailsPayload =
+          NotificationDetailsPayload.of(scheduledNotification.getKey(), notificationDetailsJson);
       try {
         if (notificationDetails.repeatInterval != null
             || notificationDetails.repeatIntervalMilliseconds != null) {
-          repeatNotification(context, notificationDetails, false);
+          repeatNotification(context, notificationDetails, notificationDetailsPayload, false);
         } else if (notificationDetails.timeZoneName != null) {
-          zonedScheduleNotification(context, notificationDetails, false);
+          zonedScheduleNotification(
+              context, notificationDetails, notificationDetailsPayload, false);
         } else {
-          scheduleNotification(context, notificationDetails, false);
+          scheduleNotification(context, notificationDetails, notificationDetailsPayload, false);
+        }
+        if (!notificationDetailsPayload.bitmaps.isEmpty()) {
+          // Saved with its bitmaps inline, by an earlier version.
+          store.put(notificationDetailsPayload);
         }
       } catch (ExactAlarmPermissionException e) {
         Log.e(TAG, e.getMessage());
-        removeNotificationFromCache(context, notificationDetails.id);
+        failedNotificationIds.add(scheduledNotification.getKey());
       }
     }
+    store.removeAll(failedNotificationIds);
+    store.removeUnusedBitmaps();
+    long endTime = SystemClock.elapsedRealtime();
+    Log.d(
+        TAG,
+        String.format(
+            Locale.ROOT,
+            "Rescheduled %d of %d notifications in %d ms (%d ms loading)",
+            scheduledNotifications.size() - failedNotificationIds.size(),
+            scheduledNotifications.size(),
+            endTime - startTime,
+            loadedTime - startTime));
   }
 
   static void scheduleNextNotification(Context context, NotificationDetails notificationDetails) {
@@ -515,38 +553,11 @@ public class FlutterLocalNotificationsPlugin
   }
 
   private static ArrayList<NotificationDetails> loadScheduledNotifications(Context context) {
-    ArrayList<NotificationDetails> scheduledNotifications = new ArrayList<>();
-    SharedPreferences sharedPreferences =
-        context.getSharedPreferences(SCHEDULED_NOTIFICATIONS, Context.MODE_PRIVATE);
-    String json = sharedPreferences.getString(SCHEDULED_NOTIFICATIONS, null);
-    if (json != null) {
-      Gson gson = buildGson();
-      Type type = new TypeToken<ArrayList<NotificationDetails>>() {}.getType();
-      scheduledNotifications = gson.fromJson(json, type);
-    }
-    return scheduledNotifications;
-  }
-
-  private static void saveScheduledNotifications(
-      Context context, ArrayList<NotificationDetails> scheduledNotifications) {
-    Gson gson = buildGson();
-    String json = gson.toJson(scheduledNotifications);
-    SharedPreferences sharedPreferences =
-        context.getSharedPreferences(SCHEDULED_NOTIFICATIONS, Context.MODE_PRIVATE);
-    SharedPreferences.Editor editor = sharedPreferences.edit();
-    editor.putString(SCHEDULED_NOTIFICATIONS, json).apply();
+    return ScheduledNotificationStore.getInstance(context).getAll();
   }
 
   static void removeNotificationFromCache(Context context, Integer notificationId) {
-    ArrayList<NotificationDetails> scheduledNotifications = loadScheduledNotifications(context);
-    for (Iterator<NotificationDetails> it = scheduledNotifications.iterator(); it.hasNext(); ) {
-      NotificationDetails notificationDetails = it.next();
-      if (notificationDetails.id.equals(notificationId)) {
-        it.remove();
-        break;
-      }
-    }
-    saveScheduledNotifications(context, scheduledNotifications);
+    ScheduledNotificationStore.getInstance(context).remove(notificationId);
   }
 
   @SuppressWarnings("deprecation")
@@ -567,10 +578,21 @@ public class FlutterLocalNotificationsPlugin
       Context context,
       final NotificationDetails notificationDetails,
       Boolean updateScheduledNotificationsCache) {
-    Gson gson = buildGson();
-    String notificationDetailsJson = gson.toJson(notificationDetails);
+    scheduleNotification(
+        context,
+        notificationDetails,
+        NotificationDetailsPayload.of(notificationDetails),
+        updateScheduledNotificationsCache);
+  }
+
+  private static void scheduleNotification(
+      Context context,
+      final NotificationDetails notificationDetails,
+      NotificationDetailsPayload notificationDetailsPayload,
+      Boolean updateScheduledNotificationsCache) {
     Intent notificationIntent = new Intent(context, ScheduledNotificationReceiver.class);
-    notificationIntent.putExtra(NOTIFICATION_DETAILS, notificationDetailsJson);
+    notificationIntent.putExtra(
+        NotificationDetailsPayload.EXTRA, notificationDetailsPayload.toBytes());
     PendingIntent pendingIntent =
         getBroadcastPendingIntent(context, notificationDetails.id, notificationIntent);
 
@@ -582,7 +604,7 @@ public class FlutterLocalNotificationsPlugin
         pendingIntent);
 
     if (updateScheduledNotificationsCache) {
-      saveScheduledNotification(context, notificationDetails);
+      saveScheduledNotification(context, notificationDetailsPayload);
     }
   }
 
@@ -590,10 +612,21 @@ public class FlutterLocalNotificationsPlugin
       Context context,
       final NotificationDetails notificationDetails,
       Boolean updateScheduledNotificationsCache) {
-    Gson gson = buildGson();
-    String notificationDetailsJson = gson.toJson(notificationDetails);
+    zonedScheduleNotification(
+        context,
+        notificationDetails,
+        NotificationDetailsPayload.of(notificationDetails),
+        updateScheduledNotificationsCache);
+  }
+
+  private static void zonedScheduleNotification(
+      Context context,
+      final NotificationDetails notificationDetails,
+      NotificationDetailsPayload notificationDetailsPayload,
+      Boolean updateScheduledNotificationsCache) {
     Intent notificationIntent = new Intent(context, ScheduledNotificationReceiver.class);
-    notificationIntent.putExtra(NOTIFICATION_DETAILS, notificationDetailsJson);
+    notificationIntent.putExtra(
+        NotificationDetailsPayload.EXTRA, notificationDetailsPayload.toBytes());
     PendingIntent pendingIntent =
         getBroadcastPendingIntent(context, notificationDetails.id, notificationIntent);
     AlarmManager alarmManager = getAlarmManager(context);
@@ -607,7 +640,7 @@ public class FlutterLocalNotificationsPlugin
     setupAlarm(notificationDetails, alarmManager, epochMilli, pendingIntent);
 
     if (updateScheduledNotificationsCache) {
-      saveScheduledNotification(context, notificationDetails);
+      saveScheduledNotification(context, notificationDetailsPayload);
     }
   }
 
@@ -616,10 +649,11 @@ public class FlutterLocalNotificationsPlugin
     long repeatInterval = calculateRepeatIntervalMilliseconds(notificationDetails);
     long notificationTriggerTime =
         calculateNextNotificationTrigger(notificationDetails.calledAt, repeatInterval);
-    Gson gson = buildGson();
-    String notificationDetailsJson = gson.toJson(notificationDetails);
+    NotificationDetailsPayload notificationDetailsPayload =
+        NotificationDetailsPayload.of(notificationDetails);
     Intent notificationIntent = new Intent(context, ScheduledNotificationReceiver.class);
-    notificationIntent.putExtra(NOTIFICATION_DETAILS, notificationDetailsJson);
+    notificationIntent.putExtra(
+        NotificationDetailsPayload.EXTRA, notificationDetailsPayload.toBytes());
     PendingIntent pendingIntent =
         getBroadcastPendingIntent(context, notificationDetails.id, notificationIntent);
     AlarmManager alarmManager = getAlarmManager(context);
@@ -634,7 +668,7 @@ public class FlutterLocalNotificationsPlugin
     setupAllowWhileIdleAlarm(
         notificationDetails, alarmManager, notificationTriggerTime, pendingIntent);
 
-    saveScheduledNotification(context, notificationDetails);
+    saveScheduledNotification(context, notificationDetailsPayload);
   }
 
   static Map<String, Object> extractNotificationResponseMap(Intent intent) {
@@ -675,6 +709,18 @@ public class FlutterLocalNotificationsPlugin
       Context context,
       NotificationDetails notificationDetails,
       Boolean updateScheduledNotificationsCache) {
+    repeatNotification(
+        context,
+        notificationDetails,
+        NotificationDetailsPayload.of(notificationDetails),
+        updateScheduledNotificationsCache);
+  }
+
+  private static void repeatNotification(
+      Context context,
+      NotificationDetails notificationDetails,
+      NotificationDetailsPayload notificationDetailsPayload,
+      Boolean updateScheduledNotificationsCache) {
     long repeatInterval = calculateRepeatIntervalMilliseconds(notificationDetails);
 
     long notificationTriggerTime = notificationDetails.calledAt;
@@ -694,10 +740,9 @@ public class FlutterLocalNotificationsPlugin
     notificationTriggerTime =
         calculateNextNotificationTrigger(notificationTriggerTime, repeatInterval);
 
-    Gson gson = buildGson();
-    String notificationDetailsJson = gson.toJson(notificationDetails);
     Intent notificationIntent = new Intent(context, ScheduledNotificationReceiver.class);
-    notificationIntent.putExtra(NOTIFICATION_DETAILS, notificationDetailsJson);
+    notificationIntent.putExtra(
+        NotificationDetailsPayload.EXTRA, notificationDetailsPayload.toBytes());
     PendingIntent pendingIntent =
         getBroadcastPendingIntent(context, notificationDetails.id, notificationIntent);
     AlarmManager alarmManager = getAlarmManager(context);
@@ -719,7 +764,7 @@ public class FlutterLocalNotificationsPlugin
     }
 
     if (updateScheduledNotificationsCache) {
-      saveScheduledNotification(context, notificationDetails);
+      saveScheduledNotification(context, notificationDetailsPayload);
     }
   }
 
@@ -815,21 +860,12 @@ public class FlutterLocalNotificationsPlugin
   }
 
   private static void saveScheduledNotification(
-      Context context, NotificationDetails notificationDetails) {
-    ArrayList<NotificationDetails> scheduledNotifications = loadScheduledNotifications(context);
-    ArrayList<NotificationDetails> scheduledNotificationsToSave = new ArrayList<>();
-    for (NotificationDetails scheduledNotification : scheduledNotifications) {
-      if (scheduledNotification.id.equals(notificationDetails.id)) {
-        continue;
-      }
-      scheduledNotificationsToSave.add(scheduledNotification);
-    }
-    scheduledNotificationsToSave.add(notificationDetails);
-    saveScheduledNotifications(context, scheduledNotificationsToSave);
+      Context context, NotificationDetailsPayload notificationDetailsPayload) {
+    ScheduledNotificationStore.getInstance(context).put(notificationDetailsPayload);
   }
 
   private static int getDrawableResourceId(Context context, String name) {
-    return context.getResources().getIdentifier(name, DRAWABLE, context.getPackageName());
+    return NotificationImageCache.getInstance(context).getDrawableResourceId(name);
   }
 
   @SuppressWarnings("unchecked")
@@ -850,16 +886,14 @@ public class FlutterLocalNotificationsPlugin
 
   private static Bitmap getBitmapFromSource(
       Context context, Object data, BitmapSource bitmapSource) {
+    NotificationImageCache imageCache = NotificationImageCache.getInstance(context);
     Bitmap bitmap = null;
     if (bitmapSource == BitmapSource.DrawableResource) {
-      bitmap =
-          BitmapFactory.decodeResource(
-              context.getResources(), getDrawableResourceId(context, (String) data));
+      bitmap = imageCache.getDrawableResourceBitmap((String) data);
     } else if (bitmapSource == BitmapSource.FilePath) {
-      bitmap = BitmapFactory.decodeFile((String) data);
+      bitmap = imageCache.getFileBitmap((String) data);
     } else if (bitmapSource == BitmapSource.ByteArray) {
-      byte[] byteArray = castObjectToByteArray(data);
-      bitmap = BitmapFactory.decodeByteArray(byteArray, 0, byteArray.length);
+      bitmap = imageCache.getByteArrayBitmap(castObjectToByteArray(data));
     }
 
     return bitmap;
@@ -873,7 +907,9 @@ public class FlutterLocalNotificationsPlugin
             IconCompat.createWithResource(context, getDrawableResourceId(context, (String) data));
         break;
       case BitmapFilePath:
-        icon = IconCompat.createWithBitmap(BitmapFactory.decodeFile((String) data));
+        icon =
+            IconCompat.createWithBitmap(
+                NotificationImageCache.getInstance(context).getFileBitmap((String) data));
         break;
       case ContentUri:
         icon = IconCompat.createWithContentUri((String) data);
@@ -881,12 +917,11 @@ public class FlutterLocalNotificationsPlugin
       case FlutterBitmapAsset:
         try {
           FlutterLoader flutterLoader = FlutterInjector.instance().flutterLoader();
-          AssetFileDescriptor assetFileDescriptor =
-              context.getAssets().openFd(flutterLoader.getLookupKeyForAsset((String) data));
-          FileInputStream fileInputStream = assetFileDescriptor.createInputStream();
-          icon = IconCompat.createWithBitmap(BitmapFactory.decodeStream(fileInputStream));
-          fileInputStream.close();
-          assetFileDescriptor.close();
+          String assetKey = flutterLoader.getLookupKeyForAsset((String) data);
+          Bitmap bitmap =
+              NotificationImageCache.getInstance(context)
+                  .getAssetBitmap(assetKey, () -> context.getAssets().open(assetKey));
+          icon = IconCompat.createWithBitmap(bitmap);
         } catch (IOException e) {
           throw new RuntimeException(e);
         }
@@ -1285,7 +1320,7 @@ public class FlutterLocalNotificationsPlugin
 
   private static boolean isValidDrawableResource(
       Context context, String name, Result result, String errorCode) {
-    int resourceId = context.getResources().getIdentifier(name, DRAWABLE, context.getPackageName());
+    int resourceId = getDrawableResourceId(context, name);
     if (resourceId == 0) {
       result.error(errorCode, String.format(INVALID_DRAWABLE_RESOURCE_ERROR_MESSAGE, name), null);
       return false;
@@ -1464,6 +1499,9 @@ public class FlutterLocalNotificationsPlugin
       case ZONED_SCHEDULE_METHOD:
         zonedSchedule(call, result);
         break;
+      case ZONED_SCHEDULE_ALL_METHOD:
+        zonedScheduleAll(call, result);
+        break;
       case REQUEST_NOTIFICATIONS_PERMISSION_METHOD:
         requestNotificationsPermission(
             new PermissionRequestListener() {
@@ -1532,6 +1570,9 @@ public class FlutterLocalNotificationsPlugin
       case CANCEL_METHOD:
         cancel(call, result);
         break;
+      case CANCEL_NOTIFICATIONS_METHOD:
+        cancelNotifications(call, result);
+        break;
       case CANCEL_ALL_METHOD:
         cancelAllNotifications(result);
         break;
@@ -1642,6 +1683,24 @@ public class FlutterLocalNotificationsPlugin
     result.success(null);
   }
 
+  private void cancelNotifications(MethodCall call, Result result) {
+    Map<String, Object> arguments = call.arguments();
+    List<Integer> ids = (List<Integer>) arguments.get(CANCEL_IDS);
+    String tag = (String) arguments.get(CANCEL_TAG);
+    Intent intent = new Intent(applicationContext, ScheduledNotificationReceiver.class);
+    AlarmManager alarmManager = getAlarmManager(applicationContext);
+    NotificationManagerCompat notificationManager = getNotificationManager(applicationContext);
+    for (Integer id : ids) {
+      alarmManager.cancel(getBroadcastPendingIntent(applicationContext, id, intent));
+      if (tag == null) {
+        notificationManager.cancel(id);
+      } else {
+        notificationManager.cancel(tag, id);
+      }
+    }
+    result.success(ScheduledNotificationStore.getInstance(applicationContext).removeAll(ids));
+  }
+
   private void repeat(MethodCall call, Result result) {
     NotificationDetails notificationDetails = extractNotificationDetails(result, call.arguments());
     if (notificationDetails != null) {
@@ -1670,6 +1729,40 @@ public class FlutterLocalNotificationsPlugin
     }
   }
 
+  /**
+   * Schedules each notification like {@link #zonedSchedule}, then saves all of the scheduled ones
+   * at once. Replies with the error of each notification, or null for the ones that were
+   * scheduled.
+   */
+  private void zonedScheduleAll(MethodCall call, Result result) {
+    List<Map<String, Object>> notifications = call.arguments();
+    List<Map<String, Object>> errors = new ArrayList<>(notifications.size());
+    List<NotificationDetailsPayload> scheduledNotifications =
+        new ArrayList<>(notifications.size());
+    for (Map<String, Object> arguments : notifications) {
+      ItemResult itemResult = new ItemResult();
+      NotificationDetails notificationDetails = extractNotificationDetails(itemResult, arguments);
+      if (notificationDetails != null) {
+        if (notificationDetails.matchDateTimeComponents != null) {
+          notificationDetails.scheduledDateTime =
+              getNextFireDateMatchingDateTimeComponents(notificationDetails);
+        }
+        NotificationDetailsPayload notificationDetailsPayload =
+            NotificationDetailsPayload.of(notificationDetails);
+        try {
+          zonedScheduleNotification(
+              applicationContext, notificationDetails, notificationDetailsPayload, false);
+          scheduledNotifications.add(notificationDetailsPayload);
+        } catch (PluginException e) {
+          itemResult.error(e.code, e.getMessage(), null);
+        }
+      }
+      errors.add(itemResult.error);
+    }
+    ScheduledNotificationStore.getInstance(applicationContext).putAll(scheduledNotifications);
+    result.success(errors);
+  }
+
   private void show(MethodCall call, Result result) {
     Map<String, Object> arguments = call.arguments();
     NotificationDetails notificationDetails = extractNotificationDetails(result, arguments);
@@ -1835,30 +1928,30 @@ public class FlutterLocalNotificationsPlugin
   private void cancelAllNotifications(Result result) {
     NotificationManagerCompat notificationManager = getNotificationManager(applicationContext);
     notificationManager.cancelAll();
-    ArrayList<NotificationDetails> scheduledNotifications =
-        loadScheduledNotifications(applicationContext);
-    if (scheduledNotifications == null || scheduledNotifications.isEmpty()) {
+    ScheduledNotificationStore store = ScheduledNotificationStore.getInstance(applicationContext);
+    List<Integer> scheduledNotificationIds = store.getIds();
+    if (scheduledNotificationIds.isEmpty()) {
       result.success(null);
       return;
     }
 
     Intent intent = new Intent(applicationContext, ScheduledNotificationReceiver.class);
-    for (NotificationDetails scheduledNotification : scheduledNotifications) {
+    for (Integer scheduledNotificationId : scheduledNotificationIds) {
       PendingIntent pendingIntent =
-          getBroadcastPendingIntent(applicationContext, scheduledNotification.id, intent);
+          getBroadcastPendingIntent(applicationContext, scheduledNotificationId, intent);
       AlarmManager alarmManager = getAlarmManager(applicationContext);
       alarmManager.cancel(pendingIntent);
     }
 
-    saveScheduledNotifications(applicationContext, new ArrayList<>());
+    store.removeAll(scheduledNotificationIds);
     result.success(null);
   }
 
   private void cancelAllPendingNotifications(Result result) {
-    ArrayList<NotificationDetails> scheduledNotifications =
-        loadScheduledNotifications(applicationContext);
+    ScheduledNotificationStore store = ScheduledNotificationStore.getInstance(applicationContext);
+    List<Integer> scheduledNotificationIds = store.getIds();
 
-    if (scheduledNotifications == null || scheduledNotifications.isEmpty()) {
+    if (scheduledNotificationIds.isEmpty()) {
       result.success(null);
       return;
     }
@@ -1866,13 +1959,13 @@ public class FlutterLocalNotificationsPlugin
     AlarmManager alarmManager = getAlarmManager(applicationContext);
     Intent intent = new Intent(applicationContext, ScheduledNotificationReceiver.class);
 
-    for (NotificationDetails scheduledNotification : scheduledNotifications) {
+    for (Integer scheduledNotificationId : scheduledNotificationIds) {
       PendingIntent pendingIntent =
-          getBroadcastPendingIntent(applicationContext, scheduledNotification.id, intent);
+          getBroadcastPendingIntent(applicationContext, scheduledNotificationId, intent);
       alarmManager.cancel(pendingIntent);
     }
 
-    saveScheduledNotifications(applicationContext, new ArrayList<>());
+    store.removeAll(scheduledNotificationIds);
     result.success(null);
   }
 
@@ -2390,6 +2483,24 @@ public class FlutterLocalNotificationsPlugin
     }
   }
 
+  /** Collects the error of one notification of a batch, as the validation reports to a result. */
+  private static class ItemResult implements Result {
+    Map<String, Object> error;
+
+    @Override
+    public void success(Object result) {}
+
+    @Override
+    public void error(String errorCode, String errorMessage, Object errorDetails) {
+      error = new HashMap<>();
+      error.put(ERROR_CODE, errorCode);
+      error.put(ERROR_MESSAGE, errorMessage);
+    }
+
+    @Override
+    public void notImplemented() {}
+  }
+
   private static class ExactAlarmPermissionException extends PluginException {
     public ExactAlarmPermissionException() {
       super(EXACT_ALARMS_PERMISSION_ERROR_CODE, "Exact alarms are not permitted");
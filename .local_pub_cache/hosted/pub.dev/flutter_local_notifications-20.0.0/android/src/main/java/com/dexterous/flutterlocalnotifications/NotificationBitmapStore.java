@@ -0,0 +1,127 @@
+package com.dexterous.flutterlocalnotifications;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.AtomicFile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Stores the bitmaps of scheduled notifications that were given as bytes, so that they are neither
+ * part of each alarm nor of each saved notification.
+ *
+ * <p>The bitmaps of a notification are stored under keys made of its id and their position, see
+ * {@link #keyOf}, so that they are replaced and removed along with the notification. They are only
+ * written by {@link ScheduledNotificationStore}, on its writer thread.
+ */
+class NotificationBitmapStore {
+  private static final String TAG = "NotifBitmapStore";
+  private static final String DIRECTORY = "flutter_local_notifications_bitmaps";
+  private static final char KEY_SEPARATOR = '-';
+
+  private final File directory;
+
+  NotificationBitmapStore(Context context) {
+    this.directory = new File(context.getNoBackupFilesDir(), DIRECTORY);
+  }
+
+  /** Returns the key of the bitmap at {@code index} among those of notification {@code id}. */
+  @NonNull
+  static String keyOf(int id, int index) {
+    return Integer.toString(id) + KEY_SEPARATOR + index;
+  }
+
+  /** Returns the id of the notification a bitmap belongs to, or null if the key is not valid. */
+  @Nullable
+  static Integer idOf(@NonNull String key) {
+    int separator = key.lastIndexOf(KEY_SEPARATOR);
+    if (separator <= 0) {
+      return null;
+    }
+    try {
+      return Integer.parseInt(key.substring(0, separator));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Stores a bitmap under the given key, unless the same bitmap is already stored there, e.g. when
+   * a repeating notification is scheduled again.
+   */
+  void put(@NonNull String key, @NonNull byte[] bitmap) throws IOException {
+    File file = new File(directory, key);
+    if (file.length() == bitmap.length && Arrays.equals(bitmap, get(key))) {
+      return;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Failed to create " + directory);
+    }
+    AtomicFile atomicFile = new AtomicFile(file);
+    FileOutputStream stream = atomicFile.startWrite();
+    try {
+      stream.write(bitmap);
+      atomicFile.finishWrite(stream);
+    } catch (IOException e) {
+      atomicFile.failWrite(stream);
+      throw e;
+    }
+  }
+
+  /** Returns the bitmap with the given key, or null if it is not stored. */
+  @Nullable
+  byte[] get(@NonNull String key) {
+    File file = new File(directory, key);
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      return new AtomicFile(file).readFully();
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to load bitmap " + key, e);
+      return null;
+    }
+  }
+
+  /**
+   * Removes the bitmaps of notification {@code id} from position {@code index} on, which are no
+   * longer used once the notification is saved with {@code index} bitmaps or removed.
+   */
+  void removeFrom(int id, int index) {
+    // Each notification uses consecutive positions from 0.
+    while (new File(directory, keyOf(id, index)).exists()) {
+      new AtomicFile(new File(directory, keyOf(id, index))).delete();
+      index++;
+    }
+  }
+
+  /**
+   * Removes the bitmaps of notifications that are not in {@code ids}, such as those left behind if
+   * the process died between saving a notification's bitmaps and its record.
+   */
+  void retainAll(@NonNull Collection<Integer> ids) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      // Without the extension of the backup that AtomicFile may have left.
+      String key = file.getName();
+      int extension = key.indexOf('.');
+      if (extension >= 0) {
+        key = key.substring(0, extension);
+      }
+      Integer id = idOf(key);
+      if (id == null || !ids.contains(id)) {
+        new AtomicFile(new File(directory, key)).delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.dexterous.flutterlocalnotifications;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.dexterous.flutterlocalnotifications.models.BitmapSource;
+import com.dexterous.flutterlocalnotifications.models.IconSource;
+import com.dexterous.flutterlocalnotifications.models.MessageDetails;
+import com.dexterous.flutterlocalnotifications.models.NotificationDetails;
+import com.dexterous.flutterlocalnotifications.models.PersonDetails;
+import com.dexterous.flutterlocalnotifications.models.styles.BigPictureStyleInformation;
+import com.dexterous.flutterlocalnotifications.models.styles.MessagingStyleInformation;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The notification details that an alarm carries to {@link ScheduledNotificationReceiver}, which
+ * are also what {@link ScheduledNotificationStore} saves.
+ *
+ * <p>The details are JSON without the bitmaps given as bytes, which are replaced by their keys in
+ * the {@link NotificationBitmapStore}. Otherwise they make up most of the details and Gson reads
+ * them back one boxed number per byte. Taking them out does no I/O; the store writes them when
+ * the notification is saved. As alarms carry it, the payload starts with a format version,
+ * followed by the JSON as UTF-8.
+ */
+final class NotificationDetailsPayload {
+  static final String EXTRA = "notificationDetailsPayload";
+
+  private static final String TAG = "NotifDetailsPayload";
+  private static final byte VERSION = 1;
+  private static final String BITMAP_SOURCE_SUFFIX = "BitmapSource";
+  private static final String BYTE_ARRAY_SOURCE = "ByteArray";
+  private static final String STYLE_INFORMATION = "styleInformation";
+  private static final String LARGE_ICON = "largeIcon";
+  private static final String BIG_PICTURE = "bigPicture";
+  private static final String PERSON = "person";
+  private static final String MESSAGES = "messages";
+  private static final String ICON = "icon";
+
+  final int id;
+
+  /** The notification details as JSON, with keys in place of the bitmaps. */
+  @NonNull final String json;
+
+  /** The bitmaps taken out of the JSON, by key. */
+  @NonNull final Map<String, byte[]> bitmaps;
+
+  private NotificationDetailsPayload(int id, @NonNull String json, Map<String, byte[]> bitmaps) {
+    this.id = id;
+    this.json = json;
+    this.bitmaps = bitmaps;
+  }
+
+  @NonNull
+  static NotificationDetailsPayload of(NotificationDetails notificationDetails) {
+    Gson gson = FlutterLocalNotificationsPlugin.buildGson();
+    return of(notificationDetails.id, gson.toJsonTree(notificationDetails).getAsJsonObject());
+  }
+
+  /**
+   * Makes the payload of notification details that are already serialized, taking the bitmaps out
+   * of {@code json}. Details that were saved with keys already have no bitmaps to take out.
+   */
+  @NonNull
+  static NotificationDetailsPayload of(int id, JsonObject json) {
+    Map<String, byte[]> bitmaps = new LinkedHashMap<>();
+    takeBitmap(id, json, LARGE_ICON, bitmaps);
+    JsonObject styleInformation = getObject(json, STYLE_INFORMATION);
+    if (styleInformation != null) {
+      takeBitmap(id, styleInformation, LARGE_ICON, bitmaps);
+      takeBitmap(id, styleInformation, BIG_PICTURE, bitmaps);
+      takePersonIcon(id, getObject(styleInformation, PERSON), bitmaps);
+      JsonElement messages = styleInformation.get(MESSAGES);
+      if (messages != null && messages.isJsonArray()) {
+        for (JsonElement message : messages.getAsJsonArray()) {
+          if (message.isJsonObject()) {
+            takePersonIcon(id, getObject(message.getAsJsonObject(), PERSON), bitmaps);
+          }
+        }
+      }
+    }
+    return new NotificationDetailsPayload(id, json.toString(), bitmaps);
+  }
+
+  /** Returns the payload as carried by alarms. */
+  @NonNull
+  byte[] toBytes() {
+    byte[] details = json.getBytes(StandardCharsets.UTF_8);
+    byte[] payload = new byte[details.length + 1];
+    payload[0] = VERSION;
+    System.arraycopy(details, 0, payload, 1, details.length);
+    return payload;
+  }
+
+  /** Decodes a payload, or returns null if it is not in a known format. */
+  @Nullable
+  static NotificationDetails decode(Context context, @NonNull byte[] payload) {
+    if (payload.length == 0 || payload[0] != VERSION) {
+      Log.e(TAG, "Unknown notification details format");
+      return null;
+    }
+    String json = new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8);
+    NotificationDetails notificationDetails =
+        FlutterLocalNotificationsPlugin.buildGson().fromJson(json, NotificationDetails.class);
+
+    ScheduledNotificationStore store = ScheduledNotificationStore.getInstance(context);
+    if (notificationDetails.largeIconBitmapSource == BitmapSource.ByteArray) {
+      notificationDetails.largeIcon = loadBitmap(store, notificationDetails.largeIcon);
+    }
+    if (notificationDetails.styleInformation instanceof BigPictureStyleInformation) {
+      BigPictureStyleInformation styleInformation =
+          (BigPictureStyleInformation) notificationDetails.styleInformation;
+      if (styleInformation.largeIconBitmapSource == BitmapSource.ByteArray) {
+        styleInformation.largeIcon = loadBitmap(store, styleInformation.largeIcon);
+      }
+      if (styleInformation.bigPictureBitmapSource == BitmapSource.ByteArray) {
+        styleInformation.bigPicture = loadBitmap(store, styleInformation.bigPicture);
+      }
+    } else if (notificationDetails.styleInformation instanceof MessagingStyleInformation) {
+      MessagingStyleInformation styleInformation =
+          (MessagingStyleInformation) notificationDetails.styleInformation;
+      loadPersonIcon(store, styleInformation.person);
+      if (styleInformation.messages != null) {
+        for (MessageDetails message : styleInformation.messages) {
+          loadPersonIcon(store, message.person);
+        }
+      }
+    }
+    return notificationDetails;
+  }
+
+  private static void takePersonIcon(
+      int id, @Nullable JsonObject person, Map<String, byte[]> bitmaps) {
+    if (person != null) {
+      takeBitmap(id, person, ICON, bitmaps);
+    }
+  }
+
+  /** Replaces the bytes of a bitmap given as bytes with its key, adding it to {@code bitmaps}. */
+  private static void takeBitmap(
+      int id, JsonObject object, String field, Map<String, byte[]> bitmaps) {
+    JsonElement source = object.get(field + BITMAP_SOURCE_SUFFIX);
+    JsonElement value = object.get(field);
+    if (source == null
+        || !source.isJsonPrimitive()
+        || !BYTE_ARRAY_SOURCE.equals(source.getAsString())
+        || value == null
+        || !value.isJsonArray()) {
+      return;
+    }
+    JsonArray array = value.getAsJsonArray();
+    byte[] bitmap = new byte[array.size()];
+    for (int i = 0; i < bitmap.length; i++) {
+      bitmap[i] = (byte) array.get(i).getAsInt();
+    }
+    String key = NotificationBitmapStore.keyOf(id, bitmaps.size());
+    bitmaps.put(key, bitmap);
+    object.add(field, new JsonPrimitive(key));
+  }
+
+  private static void loadPersonIcon(
+      ScheduledNotificationStore store, @Nullable PersonDetails person) {
+    if (person != null && person.iconBitmapSource == IconSource.ByteArray) {
+      person.icon = loadBitmap(store, person.icon);
+    }
+  }
+
+  @Nullable
+  private static Object loadBitmap(ScheduledNotificationStore store, Object value) {
+    if (!(value instanceof String)) {
+      return value;
+    }
+    byte[] bitmap = store.getBitmap((String) value);
+    return bitmap != null ? bitmap : new byte[0];
+  }
+
+  @Nullable
+  private static JsonObject getObject(JsonObject object, String field) {
+    JsonElement value = object.get(field);
+    return value != null && value.isJsonObject() ? value.getAsJsonObject() : null;
+  }
+}
@@ -0,0 +1,205 @@
+package com.dexterous.flutterlocalnotifications;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Caches the bitmaps of notifications once decoded, and the ids of drawable resources once looked
+ * up, so that notifications that are shown again, such as repeating and grouped ones, don't decode
+ * the same images every time.
+ *
+ * <p>Bitmaps are downsampled while decoding when they are at least twice as large as a notification
+ * can show, and the cache is bounded by the memory the bitmaps take. It is trimmed when the system
+ * is low on memory.
+ */
+class NotificationImageCache implements ComponentCallbacks2 {
+  private static final String DRAWABLE = "drawable";
+  private static final int MAX_RESOURCE_IDS = 128;
+  // The share of the app's memory that the bitmaps may take.
+  private static final int MEMORY_FRACTION = 32;
+
+  private static NotificationImageCache instance;
+
+  private final Context context;
+  private final LruCache<String, Bitmap> bitmaps;
+  private final LruCache<String, Integer> resourceIds = new LruCache<>(MAX_RESOURCE_IDS);
+
+  /** Opens the stream of a bitmap, so that it can be opened a second time to decode it. */
+  interface StreamOpener {
+    InputStream open() throws IOException;
+  }
+
+  static synchronized NotificationImageCache getInstance(Context context) {
+    if (instance == null) {
+      instance = new NotificationImageCache(context.getApplicationContext());
+      instance.context.registerComponentCallbacks(instance);
+    }
+    return instance;
+  }
+
+  private NotificationImageCache(Context context) {
+    this.context = context;
+    int maxSize =
+        (int) Math.min(Runtime.getRuntime().maxMemory() / MEMORY_FRACTION, Integer.MAX_VALUE);
+    this.bitmaps =
+        new LruCache<String, Bitmap>(maxSize) {
+          @Override
+          protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getAllocationByteCount();
+          }
+        };
+  }
+
+  /** Returns the id of a drawable resource of the app, or 0 if there is none with that name. */
+  int getDrawableResourceId(@NonNull String name) {
+    Integer resourceId = resourceIds.get(name);
+    if (resourceId == null) {
+      resourceId = context.getResources().getIdentifier(name, DRAWABLE, context.getPackageName());
+      resourceIds.put(name, resourceId);
+    }
+    return resourceId;
+  }
+
+  @Nullable
+  Bitmap getDrawableResourceBitmap(@NonNull String name) {
+    String key = "drawable:" + name;
+    Bitmap bitmap = bitmaps.get(key);
+    if (bitmap == null) {
+      Resources resources = context.getResources();
+      int resourceId = getDrawableResourceId(name);
+      BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inJustDecodeBounds = true;
+      BitmapFactory.decodeResource(resources, resourceId, options);
+      setSampleSize(options);
+      bitmap = put(key, BitmapFactory.decodeResource(resources, resourceId, options));
+    }
+    return bitmap;
+  }
+
+  @Nullable
+  Bitmap getFileBitmap(@NonNull String path) {
+    // A file may be replaced under the same path.
+    File file = new File(path);
+    String key = "file:" + file.lastModified() + ":" + file.length() + ":" + path;
+    Bitmap bitmap = bitmaps.get(key);
+    if (bitmap == null) {
+      BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inJustDecodeBounds = true;
+      BitmapFactory.decodeFile(path, options);
+      setSampleSize(options);
+      bitmap = put(key, BitmapFactory.decodeFile(path, options));
+    }
+    return bitmap;
+  }
+
+  @Nullable
+  Bitmap getByteArrayBitmap(@NonNull byte[] data) {
+    String key = "bytes:" + hashOf(data);
+    Bitmap bitmap = bitmaps.get(key);
+    if (bitmap == null) {
+      BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inJustDecodeBounds = true;
+      BitmapFactory.decodeByteArray(data, 0, data.length, options);
+      setSampleSize(options);
+      bitmap = put(key, BitmapFactory.decodeByteArray(data, 0, data.length, options));
+    }
+    return bitmap;
+  }
+
+  /** Returns the bitmap of an asset, identified by {@code assetKey}, opening it as needed. */
+  @Nullable
+  Bitmap getAssetBitmap(@NonNull String assetKey, @NonNull StreamOpener opener)
+      throws IOException {
+    String key = "asset:" + assetKey;
+    Bitmap bitmap = bitmaps.get(key);
+    if (bitmap == null) {
+      BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inJustDecodeBounds = true;
+      try (InputStream stream = opener.open()) {
+        BitmapFactory.decodeStream(stream, null, options);
+      }
+      setSampleSize(options);
+      try (InputStream stream = opener.open()) {
+        bitmap = put(key, BitmapFactory.decodeStream(stream, null, options));
+      }
+    }
+    return bitmap;
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+      bitmaps.evictAll();
+      resourceIds.evictAll();
+    } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+      bitmaps.trimToSize(bitmaps.maxSize() / 2);
+    }
+  }
+
+  @Override
+  public void onLowMemory() {
+    bitmaps.evictAll();
+    resourceIds.evictAll();
+  }
+
+  @Override
+  public void onConfigurationChanged(@NonNull Configuration newConfig) {}
+
+  @Nullable
+  private Bitmap put(String key, @Nullable Bitmap bitmap) {
+    if (bitmap != null) {
+      bitmaps.put(key, bitmap);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Sets the largest sample size that still decodes both sides of the bitmap at least as large as
+   * the shorter side of the screen, which is as wide as a notification gets.
+   */
+  private void setSampleSize(BitmapFactory.Options options) {
+    DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+    int minDimension = Math.min(displayMetrics.widthPixels, displayMetrics.heightPixels);
+    int sampleSize = 1;
+    if (minDimension > 0) {
+      while (options.outWidth / (sampleSize * 2) >= minDimension
+          && options.outHeight / (sampleSize * 2) >= minDimension) {
+        sampleSize *= 2;
+      }
+    }
+    options.inJustDecodeBounds = false;
+    options.inSampleSize = sampleSize;
+  }
+
+  private static String hashOf(byte[] data) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Android version supports SHA-256.
+      throw new IllegalStateException(e);
+    }
+    byte[] hash = digest.digest(data);
+    char[] key = new char[hash.length * 2];
+    for (int i = 0; i < hash.length; i++) {
+      key[i * 2] = Character.forDigit((hash[i] >> 4) & 0xf, 16);
+      key[i * 2 + 1] = Character.forDigit(hash[i] & 0xf, 16);
+    }
+    return new String(key);
+  }
+}
@@ -3,11 +3,18 @@ package com.dexterous.flutterlocalnotifications;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.util.Log;
 
 import androidx.annotation.Keep;
 
 @Keep
 public class ScheduledNotificationBootReceiver extends BroadcastReceiver {
+  private static final String TAG = "ScheduledNotifBootRec";
+
+  // A broadcast receiver that went async has about 10 seconds before it is considered not to be
+  // responding, so this leaves time for rescheduling the notifications.
+  private static final long FLUSH_TIMEOUT_MILLIS = 5000;
+
   @Override
   @SuppressWarnings("deprecation")
   public void onReceive(final Context context, Intent intent) {
@@ -17,7 +24,24 @@ public class ScheduledNotificationBootReceiver extends BroadcastReceiver {
           || action.equals(Intent.ACTION_MY_PACKAGE_REPLACED)
           || action.equals("android.intent.action.QUICKBOOT_POWERON")
           || action.equals("com.htc.intent.action.QUICKBOOT_POWERON")) {
-        FlutterLocalNotificationsPlugin.rescheduleNotifications(context);
+        // Loading and rescheduling the notifications is done off the main thread, which keeps the
+        // receiver alive until the notifications that could not be rescheduled are removed.
+        final PendingResult pendingResult = goAsync();
+        final Context applicationContext = context.getApplicationContext();
+        new Thread(
+                () -> {
+                  try {
+                    FlutterLocalNotificationsPlugin.rescheduleNotifications(applicationContext);
+                    if (!ScheduledNotificationStore.getInstance(applicationContext)
+                        .flush(FLUSH_TIMEOUT_MILLIS)) {
+                      Log.w(TAG, "Timed out saving rescheduled notifications");
+                    }
+                  } finally {
+                    pendingResult.finish();
+                  }
+                },
+                "FLTLocalNotifBoot")
+            .start();
       }
     }
   }
@@ -25,6 +25,18 @@ public class ScheduledNotificationReceiver extends BroadcastReceiver {
   @Override
   @SuppressWarnings("deprecation")
   public void onReceive(final Context context, Intent intent) {
+    byte[] notificationDetailsPayload = intent.getByteArrayExtra(NotificationDetailsPayload.EXTRA);
+    if (notificationDetailsPayload != null) {
+      NotificationDetails notificationDetails =
+          NotificationDetailsPayload.decode(context, notificationDetailsPayload);
+      if (notificationDetails != null) {
+        FlutterLocalNotificationsPlugin.showNotification(context, notificationDetails);
+        FlutterLocalNotificationsPlugin.scheduleNextNotification(context, notificationDetails);
+      }
+      return;
+    }
+
+    // Alarms that were set before the payload was introduced carry the details as JSON.
     String notificationDetailsJson =
         intent.getStringExtra(FlutterLocalNotificationsPlugin.NOTIFICATION_DETAILS);
     if (StringUtils.isNullOrEmpty(notificationDetailsJson)) {
@@ -0,0 +1,293 @@
+package com.dexterous.flutterlocalnotifications;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.util.AtomicFile;
+
+import com.dexterous.flutterlocalnotifications.models.NotificationDetails;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores scheduled notifications as one file per notification id, so that adding or removing a
+ * notification only writes that notification.
+ *
+ * <p>All notifications are kept in memory as JSON, indexed by id. Changes are applied to the index
+ * right away and written to disk in order on a background thread, each with an {@link AtomicFile}
+ * so that a crash never leaves a partially written record behind.
+ *
+ * <p>Bitmaps given as bytes are saved in the {@link NotificationBitmapStore} rather than in the
+ * records, which only hold their keys, see {@link NotificationDetailsPayload}. They are written on
+ * the same thread, before the record, and removed along with the notification. Until then, they
+ * are read from memory.
+ */
+class ScheduledNotificationStore {
+  private static final String TAG = "ScheduledNotifStore";
+  private static final String DIRECTORY = "flutter_local_notifications_scheduled";
+  private static final String RECORD_EXTENSION = ".json";
+
+  // Scheduled notifications used to be saved as a single JSON array in shared preferences. They
+  // are moved to this store the first time it is loaded.
+  private static final String LEGACY_SHARED_PREFERENCES = "scheduled_notifications";
+  private static final String LEGACY_KEY = "scheduled_notifications";
+
+  private static ScheduledNotificationStore instance;
+
+  private final Context context;
+  private final File directory;
+  private final NotificationBitmapStore bitmapStore;
+  private final LinkedHashMap<Integer, String> records = new LinkedHashMap<>();
+
+  // The latest record of each id that is still to be written, or null if it is to be deleted.
+  private final HashMap<Integer, NotificationDetailsPayload> pendingWrites = new HashMap<>();
+  private final ExecutorService writer =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "FLTLocalNotifStore");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  static synchronized ScheduledNotificationStore getInstance(Context context) {
+    if (instance == null) {
+      instance = new ScheduledNotificationStore(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  @VisibleForTesting
+  ScheduledNotificationStore(Context context) {
+    this.context = context;
+    this.directory = new File(context.getNoBackupFilesDir(), DIRECTORY);
+    this.bitmapStore = new NotificationBitmapStore(context);
+    load();
+  }
+
+  /** Returns all scheduled notifications, in the order they were last saved. */
+  @NonNull
+  synchronized ArrayList<NotificationDetails> getAll() {
+    Gson gson = FlutterLocalNotificationsPlugin.buildGson();
+    ArrayList<NotificationDetails> notifications = new ArrayList<>(records.size());
+    for (String json : records.values()) {
+      notifications.add(gson.fromJson(json, NotificationDetails.class));
+    }
+    return notifications;
+  }
+
+  /**
+   * Returns all scheduled notifications as they are saved, as JSON keyed by id, in the order they
+   * were last saved.
+   */
+  @NonNull
+  synchronized LinkedHashMap<Integer, String> getAllJson() {
+    return new LinkedHashMap<>(records);
+  }
+
+  /** Returns the ids of all scheduled notifications. */
+  @NonNull
+  synchronized List<Integer> getIds() {
+    return new ArrayList<>(records.keySet());
+  }
+
+  /**
+   * Returns a bitmap of a scheduled notification by its key, or null if it is not stored. Bitmaps
+   * that are still to be written are returned as well.
+   */
+  @Nullable
+  byte[] getBitmap(@NonNull String key) {
+    Integer id = NotificationBitmapStore.idOf(key);
+    synchronized (this) {
+      if (id != null && pendingWrites.containsKey(id)) {
+        NotificationDetailsPayload payload = pendingWrites.get(id);
+        return payload != null ? payload.bitmaps.get(key) : null;
+      }
+    }
+    return bitmapStore.get(key);
+  }
+
+  /** Adds a notification, replacing the one with the same id. */
+  void put(@NonNull NotificationDetails notificationDetails) {
+    put(NotificationDetailsPayload.of(notificationDetails));
+  }
+
+  /** Adds a notification with its bitmaps, replacing the one with the same id. */
+  synchronized void put(@NonNull NotificationDetailsPayload payload) {
+    // The bitmaps may have changed even if their keys have not.
+    if (payload.bitmaps.isEmpty() && payload.json.equals(records.get(payload.id))) {
+      return;
+    }
+    // Removed first, so that the notification moves to the end.
+    records.remove(payload.id);
+    records.put(payload.id, payload.json);
+    write(payload.id, payload);
+  }
+
+  /** Adds notifications in the order given, replacing the ones with the same ids. */
+  synchronized void putAll(@NonNull Collection<NotificationDetailsPayload> payloads) {
+    for (NotificationDetailsPayload payload : payloads) {
+      put(payload);
+    }
+  }
+
+  /** Removes a notification, returning whether it was scheduled. */
+  synchronized boolean remove(int id) {
+    if (records.remove(id) == null) {
+      return false;
+    }
+    write(id, null);
+    return true;
+  }
+
+  /** Removes notifications, returning whether each of them was scheduled. */
+  @NonNull
+  synchronized List<Boolean> removeAll(@NonNull Collection<Integer> ids) {
+    List<Boolean> removed = new ArrayList<>(ids.size());
+    for (Integer id : ids) {
+      removed.add(remove(id));
+    }
+    return removed;
+  }
+
+  /**
+   * Removes the bitmaps that no scheduled notification uses, such as those left behind if the
+   * process died while a notification was saved.
+   */
+  void removeUnusedBitmaps() {
+    writer.execute(
+        () -> {
+          Set<Integer> ids;
+          synchronized (this) {
+            // Including the notifications whose bitmaps are still to be written.
+            ids = new HashSet<>(records.keySet());
+          }
+          bitmapStore.retainAll(ids);
+        });
+  }
+
+  /**
+   * Waits until all changes are written to disk, e.g. before a broadcast receiver finishes.
+   *
+   * @return whether all changes were written within the timeout
+   */
+  boolean flush(long timeoutMillis) {
+    CountDownLatch latch = new CountDownLatch(1);
+    writer.execute(latch::countDown);
+    try {
+      return latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void write(int id, @Nullable NotificationDetailsPayload payload) {
+    boolean scheduled = pendingWrites.containsKey(id);
+    pendingWrites.put(id, payload);
+    if (!scheduled) {
+      writer.execute(() -> writeRecord(id));
+    }
+  }
+
+  private void writeRecord(int id) {
+    NotificationDetailsPayload payload;
+    synchronized (this) {
+      payload = pendingWrites.get(id);
+    }
+    AtomicFile file = new AtomicFile(new File(directory, id + RECORD_EXTENSION));
+    if (payload == null) {
+      file.delete();
+      bitmapStore.removeFrom(id, 0);
+    } else {
+      FileOutputStream stream = null;
+      try {
+        for (Map.Entry<String, byte[]> bitmap : payload.bitmaps.entrySet()) {
+          bitmapStore.put(bitmap.getKey(), bitmap.getValue());
+        }
+        bitmapStore.removeFrom(id, payload.bitmaps.size());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+          throw new IOException("Failed to create " + directory);
+        }
+        stream = file.startWrite();
+        stream.write(payload.json.getBytes(StandardCharsets.UTF_8));
+        file.finishWrite(stream);
+      } catch (IOException e) {
+        if (stream != null) {
+          file.failWrite(stream);
+        }
+        Log.e(TAG, "Failed to save scheduled notification " + id, e);
+      }
+    }
+    synchronized (this) {
+      // Kept until written so that getBitmap finds the bitmaps. If the notification changed
+      // meanwhile, it is written again.
+      if (!pendingWrites.remove(id, payload)) {
+        writer.execute(() -> writeRecord(id));
+      }
+    }
+  }
+
+  private void load() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(RECORD_EXTENSION));
+    if (files != null) {
+      Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+      for (File file : files) {
+        String name = file.getName();
+        try {
+          int id = Integer.parseInt(name.substring(0, name.length() - RECORD_EXTENSION.length()));
+          records.put(id, new String(new AtomicFile(file).readFully(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException | IOException e) {
+          Log.e(TAG, "Failed to load scheduled notification " + name, e);
+        }
+      }
+    }
+    migrateLegacyNotifications();
+  }
+
+  private void migrateLegacyNotifications() {
+    SharedPreferences sharedPreferences =
+        context.getSharedPreferences(LEGACY_SHARED_PREFERENCES, Context.MODE_PRIVATE);
+    String json = sharedPreferences.getString(LEGACY_KEY, null);
+    if (json == null) {
+      return;
+    }
+    Gson gson = FlutterLocalNotificationsPlugin.buildGson();
+    Type type = new TypeToken<ArrayList<NotificationDetails>>() {}.getType();
+    try {
+      List<NotificationDetails> notifications = gson.fromJson(json, type);
+      if (notifications != null) {
+        for (NotificationDetails notificationDetails : notifications) {
+          put(notificationDetails);
+        }
+      }
+    } catch (JsonParseException e) {
+      Log.e(TAG, "Failed to migrate scheduled notifications", e);
+    }
+    // Only removed once the records are written, as writes happen in order.
+    writer.execute(() -> sharedPreferences.edit().remove(LEGACY_KEY).commit());
+  }
+}
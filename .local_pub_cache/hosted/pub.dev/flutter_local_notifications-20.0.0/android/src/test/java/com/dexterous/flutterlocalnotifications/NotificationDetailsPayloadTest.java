@@ -0,0 +1,70 @@
+package com.dexterous.flutterlocalnotifications;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import com.dexterous.flutterlocalnotifications.models.BitmapSource;
+import com.dexterous.flutterlocalnotifications.models.NotificationDetails;
+import com.dexterous.flutterlocalnotifications.models.styles.BigPictureStyleInformation;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class NotificationDetailsPayloadTest {
+  private Context context;
+
+  @Before
+  public void before() {
+    context = ApplicationProvider.getApplicationContext();
+  }
+
+  @Test
+  public void decode_ShouldRestoreBitmapsSavedWithNotification() {
+    final byte[] largeIcon = {1, -2, 3};
+    final byte[] bigPicture = {-1, 0, 5, 6};
+    final NotificationDetails notificationDetails = new NotificationDetails();
+    notificationDetails.id = 1;
+    notificationDetails.title = "title";
+    notificationDetails.largeIcon = largeIcon;
+    notificationDetails.largeIconBitmapSource = BitmapSource.ByteArray;
+    notificationDetails.styleInformation =
+        new BigPictureStyleInformation(
+            false,
+            false,
+            null,
+            false,
+            null,
+            false,
+            largeIcon,
+            BitmapSource.ByteArray,
+            bigPicture,
+            BitmapSource.ByteArray,
+            false);
+
+    final NotificationDetailsPayload payload = NotificationDetailsPayload.of(notificationDetails);
+    assertFalse(payload.json.contains("[1,-2,3]"));
+    assertEquals(3, payload.bitmaps.size());
+    ScheduledNotificationStore.getInstance(context).put(payload);
+
+    final NotificationDetails decoded =
+        NotificationDetailsPayload.decode(context, payload.toBytes());
+    assertEquals(Integer.valueOf(1), decoded.id);
+    assertEquals("title", decoded.title);
+    assertArrayEquals(largeIcon, (byte[]) decoded.largeIcon);
+    final BigPictureStyleInformation styleInformation =
+        (BigPictureStyleInformation) decoded.styleInformation;
+    assertArrayEquals(largeIcon, (byte[]) styleInformation.largeIcon);
+    assertArrayEquals(bigPicture, (byte[]) styleInformation.bigPicture);
+  }
+
+  @Test
+  public void decode_ShouldRejectUnknownFormat() {
+    assertNull(NotificationDetailsPayload.decode(context, new byte[] {0, '{', '}'}));
+  }
+}
@@ -0,0 +1,132 @@
+package com.dexterous.flutterlocalnotifications;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import com.dexterous.flutterlocalnotifications.models.BitmapSource;
+import com.dexterous.flutterlocalnotifications.models.NotificationDetails;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class ScheduledNotificationStoreTest {
+  private static final long FLUSH_TIMEOUT_MILLIS = 5000;
+
+  private Context context;
+
+  @Before
+  public void before() {
+    context = ApplicationProvider.getApplicationContext();
+  }
+
+  @Test
+  public void put_ShouldReplaceNotificationWithSameId() {
+    final ScheduledNotificationStore store = new ScheduledNotificationStore(context);
+    store.put(notification(1, "first"));
+    store.put(notification(2, "second"));
+    store.put(notification(1, "updated"));
+
+    final ArrayList<NotificationDetails> notifications = store.getAll();
+    assertEquals(2, notifications.size());
+    assertEquals("second", notifications.get(0).title);
+    assertEquals("updated", notifications.get(1).title);
+  }
+
+  @Test
+  public void changes_ShouldBeLoadedByNewStore() {
+    final ScheduledNotificationStore store = new ScheduledNotificationStore(context);
+    store.put(notification(1, "first"));
+    store.put(notification(2, "second"));
+    store.put(notification(3, "third"));
+    store.removeAll(Arrays.asList(1, 3));
+    assertTrue(store.flush(FLUSH_TIMEOUT_MILLIS));
+
+    final ArrayList<NotificationDetails> notifications =
+        new ScheduledNotificationStore(context).getAll();
+    assertEquals(1, notifications.size());
+    assertEquals(Integer.valueOf(2), notifications.get(0).id);
+    assertEquals("second", notifications.get(0).title);
+  }
+
+  @Test
+  public void removeAll_ShouldReportWhichNotificationsWereScheduled() {
+    final ScheduledNotificationStore store = new ScheduledNotificationStore(context);
+    store.putAll(
+        Arrays.asList(
+            NotificationDetailsPayload.of(notification(1, "first")),
+            NotificationDetailsPayload.of(notification(2, "second"))));
+
+    assertEquals(Arrays.asList(true, false, true), store.removeAll(Arrays.asList(2, 3, 1)));
+    assertTrue(store.getIds().isEmpty());
+  }
+
+  @Test
+  public void put_ShouldSaveBitmapsApartFromNotification() {
+    final byte[] largeIcon = {1, -2, 3};
+    final ScheduledNotificationStore store = new ScheduledNotificationStore(context);
+    store.put(notification(1, "first", largeIcon));
+    final String key = NotificationBitmapStore.keyOf(1, 0);
+    assertArrayEquals(largeIcon, store.getBitmap(key));
+    assertTrue(store.flush(FLUSH_TIMEOUT_MILLIS));
+
+    final ScheduledNotificationStore loaded = new ScheduledNotificationStore(context);
+    assertFalse(loaded.getAllJson().get(1).contains("[1,-2,3]"));
+    assertArrayEquals(largeIcon, loaded.getBitmap(key));
+  }
+
+  @Test
+  public void remove_ShouldRemoveBitmaps() {
+    final ScheduledNotificationStore store = new ScheduledNotificationStore(context);
+    store.put(notification(1, "first", new byte[] {1, -2, 3}));
+    assertTrue(store.flush(FLUSH_TIMEOUT_MILLIS));
+    store.remove(1);
+    final String key = NotificationBitmapStore.keyOf(1, 0);
+    assertNull(store.getBitmap(key));
+    assertTrue(store.flush(FLUSH_TIMEOUT_MILLIS));
+
+    assertNull(new ScheduledNotificationStore(context).getBitmap(key));
+  }
+
+  @Test
+  public void load_ShouldMigrateLegacyNotifications() {
+    final String json =
+        FlutterLocalNotificationsPlugin.buildGson()
+            .toJson(Arrays.asList(notification(4, "legacy"), notification(5, "other")));
+    context
+        .getSharedPreferences("scheduled_notifications", Context.MODE_PRIVATE)
+        .edit()
+        .putString("scheduled_notifications", json)
+        .commit();
+
+    final ScheduledNotificationStore store = new ScheduledNotificationStore(context);
+    assertEquals(Arrays.asList(4, 5), store.getIds());
+    assertTrue(store.flush(FLUSH_TIMEOUT_MILLIS));
+    assertNull(
+        context
+            .getSharedPreferences("scheduled_notifications", Context.MODE_PRIVATE)
+            .getString("scheduled_notifications", null));
+  }
+
+  private static NotificationDetails notification(int id, String title) {
+    final NotificationDetails notificationDetails = new NotificationDetails();
+    notificationDetails.id = id;
+    notificationDetails.title = title;
+    return notificationDetails;
+  }
+
+  private static NotificationDetails notification(int id, String title, byte[] largeIcon) {
+    final NotificationDetails notificationDetails = notification(id, title);
+    notificationDetails.largeIcon = largeIcon;
+    notificationDetails.largeIconBitmapSource = BitmapSource.ByteArray;
+    return notificationDetails;
+  }
+}
@@ -19,6 +19,7 @@ import 'platform_specifics/android/notification_details.dart';
 import 'platform_specifics/android/notification_sound.dart';
 import 'platform_specifics/android/person.dart';
 import 'platform_specifics/android/schedule_mode.dart';
+import 'platform_specifics/android/scheduled_notification.dart';
 import 'platform_specifics/android/styles/messaging_style_information.dart';
 import 'platform_specifics/darwin/initialization_settings.dart';
 import 'platform_specifics/darwin/mappers.dart';
@@ -253,22 +254,99 @@ class AndroidFlutterLocalNotificationsPlugin
     String? payload,
     DateTimeComponents? matchDateTimeComponents,
   }) async {
-    validateId(id);
-    validateDateIsInTheFuture(scheduledDate, matchDateTimeComponents);
+    await _channel.invokeMethod(
+      'zonedSchedule',
+      _buildZonedScheduleArguments(
+        AndroidScheduledNotification(
+          id: id,
+          title: title,
+          body: body,
+          scheduledDate: scheduledDate,
+          notificationDetails: notificationDetails,
+          scheduleMode: scheduleMode,
+          payload: payload,
+          matchDateTimeComponents: matchDateTimeComponents,
+        ),
+      ),
+    );
+  }
 
-    await _channel.invokeMethod('zonedSchedule', <String, Object?>{
-      'id': id,
-      'title': title,
-      'body': body,
+  /// Schedules several notifications at once.
+  ///
+  /// This behaves like calling [zonedSchedule] for each of the
+  /// [notifications], but only needs a single call to the platform and saves
+  /// the scheduled notifications together, which makes a difference when
+  /// rescheduling many notifications.
+  ///
+  /// Returns a result for each notification, in the same order. The result is
+  /// `null` if the notification was scheduled, or the [PlatformException] that
+  /// [zonedSchedule] would have thrown otherwise. Notifications with an
+  /// invalid id or a date in the past are not sent to the platform; their
+  /// result has the code `invalid_argument` and the [ArgumentError] as its
+  /// details. Notifications that fail do not stop the others from being
+  /// scheduled.
+  Future<List<PlatformException?>> zonedScheduleAll(
+    List<AndroidScheduledNotification> notifications,
+  ) async {
+    final List<PlatformException?> results = List<PlatformException?>.filled(
+      notifications.length,
+      null,
+    );
+    final List<int> sentIndexes = <int>[];
+    final List<Map<String, Object?>> arguments = <Map<String, Object?>>[];
+    for (int i = 0; i < notifications.length; i++) {
+      try {
+        arguments.add(_buildZonedScheduleArguments(notifications[i]));
+        sentIndexes.add(i);
+      } on ArgumentError catch (error) {
+        results[i] = PlatformException(
+          code: 'invalid_argument',
+          message: error.toString(),
+          details: error,
+        );
+      }
+    }
+    if (arguments.isEmpty) {
+      return results;
+    }
+    final List<Object?>? sentResults = await _channel
+        .invokeListMethod<Object?>('zonedScheduleAll', arguments);
+    for (int i = 0; i < sentIndexes.length; i++) {
+      final Object? result = sentResults![i];
+      if (result == null) {
+        continue;
+      }
+      final Map<Object?, Object?> error = result as Map<Object?, Object?>;
+      results[sentIndexes[i]] = PlatformException(
+        code: error['code']! as String,
+        message: error['message'] as String?,
+      );
+    }
+    return results;
+  }
+
+  Map<String, Object?> _buildZonedScheduleArguments(
+    AndroidScheduledNotification notification,
+  ) {
+    validateId(notification.id);
+    validateDateIsInTheFuture(
+      notification.scheduledDate,
+      notification.matchDateTimeComponents,
+    );
+
+    return <String, Object?>{
+      'id': notification.id,
+      'title': notification.title,
+      'body': notification.body,
       'platformSpecifics': _buildPlatformSpecifics(
-        notificationDetails,
-        scheduleMode,
+        notification.notificationDetails,
+        notification.scheduleMode,
       ),
-      'payload': payload ?? '',
-      ...scheduledDate.toMap(),
-      if (matchDateTimeComponents != null)
-        'matchDateTimeComponents': matchDateTimeComponents.index,
-    });
+      'payload': notification.payload ?? '',
+      ...notification.scheduledDate.toMap(),
+      if (notification.matchDateTimeComponents != null)
+        'matchDateTimeComponents': notification.matchDateTimeComponents!.index,
+    };
   }
 
   /// Starts an Android foreground service with the given notification.
@@ -476,6 +554,27 @@ class AndroidFlutterLocalNotificationsPlugin
     });
   }
 
+  /// Cancels/removes the notifications with the specified [ids].
+  ///
+  /// This behaves like calling [cancel] for each of the [ids], but only needs
+  /// a single call to the platform and removes the scheduled notifications
+  /// together.
+  ///
+  /// Returns whether each of the notifications was still scheduled, in the
+  /// same order as the [ids].
+  Future<List<bool>> cancelNotifications({
+    required List<int> ids,
+    String? tag,
+  }) async {
+    ids.forEach(validateId);
+
+    final List<bool>? results = await _channel.invokeListMethod<bool>(
+      'cancelNotifications',
+      <String, Object?>{'ids': ids, 'tag': tag},
+    );
+    return results!;
+  }
+
   /// Creates a notification channel group.
   ///
   /// This method is only applicable to Android versions 8.0 or newer.
@@ -0,0 +1,48 @@
+import 'package:timezone/timezone.dart';
+
+import '../../types.dart';
+import 'notification_details.dart';
+import 'schedule_mode.dart';
+
+/// A notification to schedule with
+/// `AndroidFlutterLocalNotificationsPlugin.zonedScheduleAll`.
+///
+/// The properties match the parameters of
+/// `AndroidFlutterLocalNotificationsPlugin.zonedSchedule`.
+class AndroidScheduledNotification {
+  /// Constructs an instance of [AndroidScheduledNotification].
+  const AndroidScheduledNotification({
+    required this.id,
+    required this.scheduledDate,
+    required this.scheduleMode,
+    this.title,
+    this.body,
+    this.notificationDetails,
+    this.payload,
+    this.matchDateTimeComponents,
+  });
+
+  /// The id of the notification.
+  final int id;
+
+  /// The title of the notification.
+  final String? title;
+
+  /// The body of the notification.
+  final String? body;
+
+  /// The date and time the notification is shown at.
+  final TZDateTime scheduledDate;
+
+  /// The Android-specific details of the notification.
+  final AndroidNotificationDetails? notificationDetails;
+
+  /// The precision of the timing for the notification to appear.
+  final AndroidScheduleMode scheduleMode;
+
+  /// The payload passed back when the notification is selected.
+  final String? payload;
+
+  /// The date and time components the notification repeats on, if any.
+  final DateTimeComponents? matchDateTimeComponents;
+}
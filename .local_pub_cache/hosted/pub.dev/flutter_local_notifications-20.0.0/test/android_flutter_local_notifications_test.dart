@@ -38,6 +38,25 @@ void main() {
               return <Map<String, Object?>>[];
             } else if (methodCall.method == 'getNotificationAppLaunchDetails') {
               return null;
+            } else if (methodCall.method == 'zonedScheduleAll') {
+              final List<Object?> notifications =
+                  methodCall.arguments as List<Object?>;
+              return <Object?>[
+                for (int i = 0; i < notifications.length; i++)
+                  i == 0
+                      ? null
+                      : <String, Object?>{
+                          'code': 'exact_alarms_not_permitted',
+                          'message': 'Exact alarms are not permitted',
+                        },
+              ];
+            } else if (methodCall.method == 'cancelNotifications') {
+              final Map<Object?, Object?> arguments =
+                  methodCall.arguments as Map<Object?, Object?>;
+              return <bool>[
+                for (final Object? id in arguments['ids']! as List<Object?>)
+                  id == 1,
+              ];
             }
             return null;
           });
@@ -2731,6 +2750,120 @@ void main() {
           ),
         );
       });
+
+      test('all', () async {
+        tz.initializeTimeZones();
+        tz.setLocalLocation(tz.getLocation('Australia/Sydney'));
+        final tz.TZDateTime scheduledDate = tz.TZDateTime.now(
+          tz.local,
+        ).add(const Duration(seconds: 5));
+        final List<PlatformException?> results =
+            await flutterLocalNotificationsPlugin
+                .resolvePlatformSpecificImplementation<
+                  AndroidFlutterLocalNotificationsPlugin
+                >()!
+                .zonedScheduleAll(<AndroidScheduledNotification>[
+                  AndroidScheduledNotification(
+                    id: 1,
+                    title: 'first title',
+                    scheduledDate: scheduledDate,
+                    scheduleMode: AndroidScheduleMode.inexact,
+                  ),
+                  AndroidScheduledNotification(
+                    id: 2,
+                    body: 'second body',
+                    payload: 'payload',
+                    scheduledDate: scheduledDate,
+                    scheduleMode: AndroidScheduleMode.exact,
+                    matchDateTimeComponents: DateTimeComponents.time,
+                  ),
+                ]);
+        expect(results[0], isNull);
+        expect(results[1]!.code, 'exact_alarms_not_permitted');
+        expect(results[1]!.message, 'Exact alarms are not permitted');
+        expect(
+          log.last,
+          isMethodCall(
+            'zonedScheduleAll',
+            arguments: <Map<String, Object?>>[
+              <String, Object?>{
+                'id': 1,
+                'title': 'first title',
+                'body': null,
+                'platformSpecifics': <String, Object?>{
+                  'scheduleMode': 'inexact',
+                },
+                'payload': '',
+                'timeZoneName': 'Australia/Sydney',
+                'scheduledDateTime': convertDateToISO8601String(scheduledDate),
+                'scheduledDateTimeISO8601': scheduledDate.toIso8601String(),
+              },
+              <String, Object?>{
+                'id': 2,
+                'title': null,
+                'body': 'second body',
+                'platformSpecifics': <String, Object?>{
+                  'scheduleMode': 'exact',
+                },
+                'payload': 'payload',
+                'timeZoneName': 'Australia/Sydney',
+                'scheduledDateTime': convertDateToISO8601String(scheduledDate),
+                'scheduledDateTimeISO8601': scheduledDate.toIso8601String(),
+                'matchDateTimeComponents': DateTimeComponents.time.index,
+              },
+            ],
+          ),
+        );
+      });
+
+      test('all with a date in the past', () async {
+        tz.initializeTimeZones();
+        tz.setLocalLocation(tz.getLocation('Australia/Sydney'));
+        final tz.TZDateTime now = tz.TZDateTime.now(tz.local);
+        final tz.TZDateTime scheduledDate = now.add(const Duration(seconds: 5));
+        final List<PlatformException?> results =
+            await flutterLocalNotificationsPlugin
+                .resolvePlatformSpecificImplementation<
+                  AndroidFlutterLocalNotificationsPlugin
+                >()!
+                .zonedScheduleAll(<AndroidScheduledNotification>[
+                  AndroidScheduledNotification(
+                    id: 1,
+                    title: 'past title',
+                    scheduledDate: now.subtract(const Duration(seconds: 5)),
+                    scheduleMode: AndroidScheduleMode.inexact,
+                  ),
+                  AndroidScheduledNotification(
+                    id: 2,
+                    title: 'future title',
+                    scheduledDate: scheduledDate,
+                    scheduleMode: AndroidScheduleMode.inexact,
+                  ),
+                ]);
+        expect(results[0]!.code, 'invalid_argument');
+        expect(results[0]!.details, isA<ArgumentError>());
+        expect(results[1], isNull);
+        expect(
+          log.last,
+          isMethodCall(
+            'zonedScheduleAll',
+            arguments: <Map<String, Object?>>[
+              <String, Object?>{
+                'id': 2,
+                'title': 'future title',
+                'body': null,
+                'platformSpecifics': <String, Object?>{
+                  'scheduleMode': 'inexact',
+                },
+                'payload': '',
+                'timeZoneName': 'Australia/Sydney',
+                'scheduledDateTime': convertDateToISO8601String(scheduledDate),
+                'scheduledDateTimeISO8601': scheduledDate.toIso8601String(),
+              },
+            ],
+          ),
+        );
+      });
     });
 
     group('createNotificationChannelGroup', () {
@@ -2896,6 +3029,24 @@ void main() {
       ]);
     });
 
+    test('cancelNotifications', () async {
+      final List<bool> results = await flutterLocalNotificationsPlugin
+          .resolvePlatformSpecificImplementation<
+            AndroidFlutterLocalNotificationsPlugin
+          >()!
+          .cancelNotifications(ids: <int>[1, 2], tag: 'tag');
+      expect(results, <bool>[true, false]);
+      expect(log, <Matcher>[
+        isMethodCall(
+          'cancelNotifications',
+          arguments: <String, Object>{
+            'ids': <int>[1, 2],
+            'tag': 'tag',
+          },
+        ),
+      ]);
+    });
+
     test('cancelAll', () async {
       await flutterLocalNotificationsPlugin.cancelAll();
       expect(log, <Matcher>[isMethodCall('cancelAll', arguments: null)]);
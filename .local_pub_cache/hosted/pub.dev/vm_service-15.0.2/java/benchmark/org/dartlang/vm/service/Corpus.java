@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Random;
+
+/**
+ * Synthetic VM service messages shaped like the responses and events recorded from a running VM.
+ * The same seed always produces the same messages, so results are comparable between runs.
+ */
+class Corpus {
+  private static final String[] LIBRARY_NAMES = {"dart:core", "dart:async", "dart:collection",
+      "package:flutter/widgets.dart", "package:flutter/rendering.dart", "package:app/main.dart"};
+
+  /**
+   * Return the body of a {@code getAllocationProfile} response with the given number of classes.
+   */
+  static JsonObject allocationProfile(int classCount) {
+    Random random = new Random(classCount);
+    JsonArray members = new JsonArray();
+    for (int index = 0; index < classCount; ++index) {
+      JsonObject stats = new JsonObject();
+      stats.addProperty("type", "ClassHeapStats");
+      stats.add("class", classRef(index));
+      stats.addProperty("accumulatedSize", random.nextInt(1 << 24));
+      stats.addProperty("bytesCurrent", random.nextInt(1 << 20));
+      stats.addProperty("instancesAccumulated", random.nextInt(1 << 16));
+      stats.addProperty("instancesCurrent", random.nextInt(1 << 12));
+      members.add(stats);
+    }
+    JsonObject memoryUsage = new JsonObject();
+    memoryUsage.addProperty("type", "MemoryUsage");
+    memoryUsage.addProperty("externalUsage", random.nextInt());
+    memoryUsage.addProperty("heapCapacity", random.nextInt());
+    memoryUsage.addProperty("heapUsage", random.nextInt());
+    JsonObject result = new JsonObject();
+    result.addProperty("type", "AllocationProfile");
+    result.add("members", members);
+    result.add("memoryUsage", memoryUsage);
+    result.addProperty("dateLastAccumulatorReset", "1600000000000");
+    result.addProperty("dateLastServiceGC", "1600000000000");
+    return result;
+  }
+
+  /**
+   * Return the body of a {@code getSourceReport} response with coverage and possible breakpoints
+   * for the given number of ranges.
+   */
+  static JsonObject sourceReport(int rangeCount) {
+    Random random = new Random(rangeCount);
+    JsonArray ranges = new JsonArray();
+    int tokenPos = 0;
+    for (int index = 0; index < rangeCount; ++index) {
+      int startPos = tokenPos;
+      int endPos = startPos + 20 + random.nextInt(200);
+      JsonArray hits = new JsonArray();
+      JsonArray misses = new JsonArray();
+      JsonArray possibleBreakpoints = new JsonArray();
+      for (int pos = startPos; pos < endPos; pos += 1 + random.nextInt(8)) {
+        JsonArray target = random.nextInt(4) == 0 ? misses : hits;
+        target.add(new JsonPrimitive(pos));
+        possibleBreakpoints.add(new JsonPrimitive(pos));
+      }
+      JsonObject coverage = new JsonObject();
+      coverage.add("hits", hits);
+      coverage.add("misses", misses);
+      JsonObject range = new JsonObject();
+      range.addProperty("scriptIndex", index % 64);
+      range.addProperty("startPos", startPos);
+      range.addProperty("endPos", endPos);
+      range.addProperty("compiled", true);
+      range.add("coverage", coverage);
+      range.add("possibleBreakpoints", possibleBreakpoints);
+      ranges.add(range);
+      tokenPos = endPos + 1;
+    }
+    JsonArray scripts = new JsonArray();
+    for (int index = 0; index < 64; ++index) {
+      JsonObject script = new JsonObject();
+      script.addProperty("type", "@Script");
+      script.addProperty("id", "scripts/" + index);
+      script.addProperty("uri", LIBRARY_NAMES[index % LIBRARY_NAMES.length] + "/part" + index + ".dart");
+      scripts.add(script);
+    }
+    JsonObject result = new JsonObject();
+    result.addProperty("type", "SourceReport");
+    result.add("ranges", ranges);
+    result.add("scripts", scripts);
+    return result;
+  }
+
+  /**
+   * Return the body of a {@code getObject} response for a plain instance with the given number of
+   * fields.
+   */
+  static JsonObject instance(int fieldCount) {
+    Random random = new Random(fieldCount);
+    JsonArray fields = new JsonArray();
+    for (int index = 0; index < fieldCount; ++index) {
+      JsonObject decl = new JsonObject();
+      decl.addProperty("type", "@Field");
+      decl.addProperty("id", "classes/1/fields/field" + index);
+      decl.addProperty("name", "field" + index);
+      decl.add("owner", classRef(1));
+      decl.addProperty("const", false);
+      decl.addProperty("final", random.nextBoolean());
+      decl.addProperty("static", false);
+      JsonObject value = new JsonObject();
+      value.addProperty("type", "@Instance");
+      value.addProperty("id", "objects/" + random.nextInt(1 << 20));
+      value.addProperty("kind", "Int");
+      value.addProperty("valueAsString", Integer.toString(random.nextInt()));
+      value.add("class", classRef(2));
+      JsonObject field = new JsonObject();
+      field.addProperty("type", "BoundField");
+      field.add("decl", decl);
+      field.add("value", value);
+      fields.add(field);
+    }
+    JsonObject result = new JsonObject();
+    result.addProperty("type", "Instance");
+    result.addProperty("id", "objects/1");
+    result.addProperty("kind", "PlainInstance");
+    result.add("class", classRef(1));
+    result.addProperty("size", 16 + 8 * fieldCount);
+    result.add("fields", fields);
+    return result;
+  }
+
+  /**
+   * Return the body of a {@code getVersion} response.
+   */
+  static JsonObject version() {
+    JsonObject result = new JsonObject();
+    result.addProperty("type", "Version");
+    result.addProperty("major", 4);
+    result.addProperty("minor", 0);
+    return result;
+  }
+
+  /**
+   * Return a {@code streamNotify} message for an event on the given stream.
+   */
+  static String event(String streamId, int sequence) {
+    JsonObject event = new JsonObject();
+    event.addProperty("type", "Event");
+    event.addProperty("timestamp", 1600000000000L + sequence);
+    if ("Logging".equals(streamId)) {
+      event.addProperty("kind", "Logging");
+      JsonObject logRecord = new JsonObject();
+      logRecord.addProperty("type", "LogRecord");
+      logRecord.addProperty("sequenceNumber", sequence);
+      logRecord.addProperty("level", 800);
+      JsonObject message = new JsonObject();
+      message.addProperty("type", "@Instance");
+      message.addProperty("kind", "String");
+      message.addProperty("valueAsString", "log message " + sequence);
+      logRecord.add("message", message);
+      event.add("logRecord", logRecord);
+    } else if ("Timeline".equals(streamId)) {
+      event.addProperty("kind", "TimelineEvents");
+      JsonArray timelineEvents = new JsonArray();
+      for (int index = 0; index < 16; ++index) {
+        JsonObject timelineEvent = new JsonObject();
+        timelineEvent.addProperty("name", "Frame");
+        timelineEvent.addProperty("ph", index % 2 == 0 ? "B" : "E");
+        timelineEvent.addProperty("ts", sequence * 16L + index);
+        timelineEvent.addProperty("tid", 1);
+        timelineEvents.add(timelineEvent);
+      }
+      event.add("timelineEvents", timelineEvents);
+    } else {
+      event.addProperty("kind", "GC");
+    }
+    JsonObject params = new JsonObject();
+    params.addProperty("streamId", streamId);
+    params.add("event", event);
+    JsonObject message = new JsonObject();
+    message.addProperty("jsonrpc", "2.0");
+    message.addProperty("method", "streamNotify");
+    message.add("params", params);
+    return message.toString();
+  }
+
+  /**
+   * Return the text of a response to the request with the given id.
+   */
+  static String response(String id, JsonObject result) {
+    JsonObject message = new JsonObject();
+    message.addProperty("jsonrpc", "2.0");
+    message.add("result", result);
+    message.addProperty("id", id);
+    return message.toString();
+  }
+
+  private static JsonObject classRef(int index) {
+    JsonObject classRef = new JsonObject();
+    classRef.addProperty("type", "@Class");
+    classRef.addProperty("id", "classes/" + index);
+    classRef.addProperty("name", "Class" + index);
+    JsonObject library = new JsonObject();
+    library.addProperty("type", "@Library");
+    library.addProperty("id", "libraries/" + index % LIBRARY_NAMES.length);
+    library.addProperty("uri", LIBRARY_NAMES[index % LIBRARY_NAMES.length]);
+    classRef.add("library", library);
+    return classRef;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.consumer.ServiceExtensionConsumer;
+import org.dartlang.vm.service.element.RPCError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of a small request through the pending-request table: registering the
+ * consumer, sending, and matching the response back to the consumer. Run with {@code -t} greater
+ * than one to measure contention on the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorrelationBenchmark {
+  private static final JsonObject VERSION = Corpus.version();
+
+  private VmService vmService;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    vmService = new VmService();
+    vmService.requestSink = new ResponderRequestSink(vmService, new ResponderRequestSink.Responder() {
+      @Override
+      public String respond(JsonObject request) {
+        return Corpus.response(request.get("id").getAsString(), VERSION);
+      }
+    });
+  }
+
+  @Benchmark
+  public JsonObject requestResponse() {
+    final JsonObject[] received = new JsonObject[1];
+    vmService.request("getVersion", new JsonObject(), new ServiceExtensionConsumer() {
+      @Override
+      public void onError(RPCError error) {
+        throw new IllegalStateException(error.getMessage());
+      }
+
+      @Override
+      public void received(JsonObject result) {
+        received[0] = result;
+      }
+    });
+    return received[0];
+  }
+}
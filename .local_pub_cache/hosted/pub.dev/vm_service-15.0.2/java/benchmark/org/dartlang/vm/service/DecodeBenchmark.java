@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.consumer.ServiceExtensionConsumer;
+import org.dartlang.vm.service.element.RPCError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a single large response in {@link VmServiceBase#processMessage(String)}, with
+ * and without streaming decode. Run with {@code -prof gc} to compare allocation per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+  @Param({"allocationProfile", "sourceReport", "instance"})
+  public String messageType;
+
+  @Param({"1000", "10000"})
+  public int size;
+
+  @Param({"false", "true"})
+  public boolean streamingDecode;
+
+  private String message;
+  private VmService vmService;
+  private JsonObject received;
+
+  private final ServiceExtensionConsumer consumer = new ServiceExtensionConsumer() {
+    @Override
+    public void onError(RPCError error) {
+      throw new IllegalStateException(error.getMessage());
+    }
+
+    @Override
+    public void received(JsonObject result) {
+      received = result;
+    }
+  };
+
+  @Setup(Level.Trial)
+  public void createMessage() {
+    JsonObject result;
+    if ("allocationProfile".equals(messageType)) {
+      result = Corpus.allocationProfile(size);
+    } else if ("sourceReport".equals(messageType)) {
+      result = Corpus.sourceReport(size);
+    } else {
+      result = Corpus.instance(size);
+    }
+    message = Corpus.response("1", result);
+  }
+
+  /**
+   * Each message is decoded by a new {@link VmService} whose single pending request has the id
+   * {@code 1}, so the message text can be reused without being rebuilt.
+   */
+  @Setup(Level.Invocation)
+  public void issueRequest() {
+    vmService = new VmService();
+    vmService.requestSink = new ResponderRequestSink(vmService, ResponderRequestSink.SILENT);
+    vmService.setStreamingDecode(streamingDecode);
+    vmService.request(messageType, new JsonObject(), consumer);
+    received = null;
+  }
+
+  @Benchmark
+  public JsonObject processResponse() {
+    vmService.processMessage(message);
+    return received;
+  }
+}
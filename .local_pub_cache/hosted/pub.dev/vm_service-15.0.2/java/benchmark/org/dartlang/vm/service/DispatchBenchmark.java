@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import org.dartlang.vm.service.element.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of an event flood through {@link VmServiceBase#processMessage(String)} to
+ * the registered {@link VmServiceListener}s, delivered either synchronously or by an
+ * {@link EventDispatcher}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+  private static final int EVENT_COUNT = 1024;
+
+  @Param({"Timeline", "Logging", "GC"})
+  public String streamId;
+
+  @Param({"1", "4"})
+  public int listenerCount;
+
+  @Param({"false", "true"})
+  public boolean useExecutor;
+
+  @Param({"false", "true"})
+  public boolean streamingDecode;
+
+  private final String[] events = new String[EVENT_COUNT];
+  private final AtomicLong receivedCount = new AtomicLong();
+  private VmService vmService;
+  private ExecutorService executor;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    for (int index = 0; index < EVENT_COUNT; ++index) {
+      events[index] = Corpus.event(streamId, index);
+    }
+    vmService = new VmService();
+    vmService.requestSink = new ResponderRequestSink(vmService, ResponderRequestSink.SILENT);
+    vmService.setStreamingDecode(streamingDecode);
+    for (int index = 0; index < listenerCount; ++index) {
+      vmService.addVmServiceListener(new VmServiceListener() {
+        @Override
+        public void connectionOpened() {
+        }
+
+        @Override
+        public void received(String streamId, Event event) {
+          receivedCount.incrementAndGet();
+        }
+
+        @Override
+        public void connectionClosed() {
+        }
+      });
+    }
+    if (useExecutor) {
+      executor = Executors.newFixedThreadPool(2);
+      // Blocks when the queue is full rather than dropping, so that both modes deliver every event
+      vmService.setEventExecutor(executor, EVENT_COUNT)
+          .setDefaultOverflowPolicy(EventDispatcher.OverflowPolicy.BLOCK);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Benchmark
+  public void processEvent() {
+    vmService.processMessage(events[next]);
+    next = (next + 1) % EVENT_COUNT;
+  }
+}
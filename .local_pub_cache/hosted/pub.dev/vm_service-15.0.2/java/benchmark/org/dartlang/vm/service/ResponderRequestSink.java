@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.internal.RequestSink;
+
+/**
+ * An in-process {@link RequestSink} that answers each request synchronously by passing a canned
+ * response to {@link VmServiceBase#processMessage(String)}, so that benchmarks measure the decode,
+ * dispatch and correlation path without any transport.
+ */
+class ResponderRequestSink implements RequestSink {
+  /**
+   * Produces the text of the response to a request.
+   */
+  interface Responder {
+    /**
+     * @return the response text, or {@code null} to leave the request unanswered
+     */
+    String respond(JsonObject request);
+  }
+
+  /**
+   * A {@link Responder} that never answers, for benchmarks that feed responses themselves.
+   */
+  static final Responder SILENT = new Responder() {
+    @Override
+    public String respond(JsonObject request) {
+      return null;
+    }
+  };
+
+  private final VmServiceBase vmService;
+  private final Responder responder;
+
+  ResponderRequestSink(VmServiceBase vmService, Responder responder) {
+    this.vmService = vmService;
+    this.responder = responder;
+  }
+
+  @Override
+  public void add(JsonObject request) {
+    String response = responder.respond(request);
+    if (response != null) {
+      vmService.processMessage(response);
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code EventDispatcher} delivers {@link Event}s to {@link VmServiceListener}s on an
+ * {@link Executor} rather than on the thread receiving messages from the VM, so that a slow listener
+ * does not delay the responses to outstanding requests.
+ * <p>
+ * Events of the same stream are delivered in the order they were received, one at a time. Events of
+ * different streams may be delivered concurrently. Each stream queues at most
+ * {@code maxQueuedEvents} events; what happens when a stream's queue is full is determined by the
+ * stream's {@link OverflowPolicy}.
+ */
+public class EventDispatcher {
+  /**
+   * What to do with a new event when the queue of its stream is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * Block the thread receiving messages until the listeners have caught up. No responses are
+     * received meanwhile, so this must not be used for streams whose listeners wait for the
+     * response to a request, which would never arrive.
+     */
+    BLOCK,
+
+    /**
+     * Discard the oldest queued event of the stream.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discard the new event.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Replace the most recently queued event of the same kind with the new event, or discard the
+     * oldest queued event if there is none.
+     */
+    COALESCE
+  }
+
+  /**
+   * The maximum number of events delivered by one task before the stream yields the executor.
+   */
+  private static final int MAX_EVENTS_PER_TASK = 64;
+
+  private final Iterable<VmServiceListener> listeners;
+  private final Executor executor;
+  private final int maxQueuedEvents;
+  private final ConcurrentMap<String, OverflowPolicy> policies = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, StreamQueue> queues = new ConcurrentHashMap<>();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private volatile OverflowPolicy defaultPolicy = OverflowPolicy.DROP_OLDEST;
+
+  /**
+   * @param listeners       the listeners to notify, iterated once per event. The iterator must not
+   *                        fail if listeners are added or removed concurrently.
+   * @param executor        the executor on which listeners are notified
+   * @param maxQueuedEvents the maximum number of events queued for each stream
+   */
+  EventDispatcher(Iterable<VmServiceListener> listeners, Executor executor, int maxQueuedEvents) {
+    if (listeners == null || executor == null || maxQueuedEvents < 1) {
+      throw new IllegalArgumentException("Unexpected argument: " + listeners + " " + executor + " "
+          + maxQueuedEvents);
+    }
+    this.listeners = listeners;
+    this.executor = executor;
+    this.maxQueuedEvents = maxQueuedEvents;
+  }
+
+  /**
+   * Set the policy for streams that do not have a policy of their own. The default is
+   * {@link OverflowPolicy#DROP_OLDEST}, which never blocks the thread receiving messages.
+   */
+  public void setDefaultOverflowPolicy(OverflowPolicy policy) {
+    defaultPolicy = policy;
+  }
+
+  /**
+   * Set the policy for the given stream, such as {@link OverflowPolicy#COALESCE} for chatty streams
+   * like {@code Timeline} and {@code Logging}.
+   */
+  public void setOverflowPolicy(String streamId, OverflowPolicy policy) {
+    policies.put(streamId, policy);
+  }
+
+  /**
+   * Return the number of events discarded or replaced because a stream's queue was full.
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Return the number of events of the given stream waiting to be delivered.
+   */
+  public int getQueuedCount(String streamId) {
+    StreamQueue queue = queues.get(streamId);
+    return queue != null ? queue.size() : 0;
+  }
+
+  /**
+   * Queue the event for delivery to the listeners.
+   */
+  void dispatch(String streamId, Event event) {
+    StreamQueue queue = queues.get(streamId);
+    if (queue == null) {
+      StreamQueue newQueue = new StreamQueue(streamId);
+      queue = queues.putIfAbsent(streamId, newQueue);
+      if (queue == null) {
+        queue = newQueue;
+      }
+    }
+    OverflowPolicy policy = policies.get(streamId);
+    queue.add(event, policy != null ? policy : defaultPolicy);
+  }
+
+  /**
+   * The events of a single stream. At most one task drains the queue at any time.
+   */
+  private class StreamQueue implements Runnable {
+    private final String streamId;
+    private final ArrayDeque<Event> events = new ArrayDeque<>();
+    private boolean scheduled;
+
+    StreamQueue(String streamId) {
+      this.streamId = streamId;
+    }
+
+    synchronized int size() {
+      return events.size();
+    }
+
+    void add(Event event, OverflowPolicy policy) {
+      synchronized (this) {
+        while (events.size() >= maxQueuedEvents) {
+          if (policy == OverflowPolicy.BLOCK) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              droppedCount.incrementAndGet();
+              return;
+            }
+            continue;
+          }
+          droppedCount.incrementAndGet();
+          if (policy == OverflowPolicy.DROP_NEWEST) {
+            return;
+          }
+          if (policy != OverflowPolicy.COALESCE || !replaceSameKind(event)) {
+            events.poll();
+            break;
+          }
+          return;
+        }
+        events.add(event);
+        if (scheduled) {
+          return;
+        }
+        scheduled = true;
+      }
+      schedule();
+    }
+
+    /**
+     * Replace the most recently queued event of the same kind as the given event.
+     *
+     * @return {@code true} if an event was replaced
+     */
+    private boolean replaceSameKind(Event event) {
+      Object kind = event.getKind();
+      Iterator<Event> iterator = events.descendingIterator();
+      while (iterator.hasNext()) {
+        Event queued = iterator.next();
+        if (kind != null && kind.equals(queued.getKind())) {
+          iterator.remove();
+          events.add(event);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void schedule() {
+      try {
+        executor.execute(this);
+      } catch (RuntimeException e) {
+        Logging.getLogger().logError("Failed to schedule events: " + streamId, e);
+        synchronized (this) {
+          scheduled = false;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      for (int count = 0; count < MAX_EVENTS_PER_TASK; ++count) {
+        Event event;
+        synchronized (this) {
+          event = events.poll();
+          if (event == null) {
+            scheduled = false;
+            return;
+          }
+          notifyAll();
+        }
+        for (VmServiceListener listener : listeners) {
+          try {
+            listener.received(streamId, event);
+          } catch (Exception e) {
+            Logging.getLogger().logError("Exception processing event: " + streamId + ", " + event.getJson(), e);
+          }
+        }
+      }
+      // Yield the executor to other streams
+      schedule();
+    }
+  }
+}
@@ -17,25 +17,32 @@ import com.google.common.collect.Maps;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import de.roderick.weberknecht.WebSocket;
-import de.roderick.weberknecht.WebSocketEventHandler;
-import de.roderick.weberknecht.WebSocketException;
-import de.roderick.weberknecht.WebSocketMessage;
 import org.dartlang.vm.service.consumer.*;
 import org.dartlang.vm.service.element.*;
+import org.dartlang.vm.service.internal.BatchRequestSink;
+import org.dartlang.vm.service.internal.BatchingRequestSink;
+import org.dartlang.vm.service.internal.MessageHeader;
+import org.dartlang.vm.service.internal.PendingRequests;
 import org.dartlang.vm.service.internal.RequestSink;
 import org.dartlang.vm.service.internal.VmServiceConst;
-import org.dartlang.vm.service.internal.WebSocketRequestSink;
 import org.dartlang.vm.service.logging.Logging;
+import org.dartlang.vm.service.logging.TraceSink;
+import org.dartlang.vm.service.transport.Transport;
+import org.dartlang.vm.service.transport.WebSocketTransport;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -49,102 +56,86 @@ abstract class VmServiceBase implements VmServiceConst {
    * @return an API object for interacting with the VM service (not {@code null}).
    */
   public static VmService connect(final String url) throws IOException {
-    // Validate URL
-    URI uri;
-    try {
-      uri = new URI(url);
-    } catch (URISyntaxException e) {
-      throw new IOException("Invalid URL: " + url, e);
-    }
-    String wsScheme = uri.getScheme();
-    if (!"ws".equals(wsScheme) && !"wss".equals(wsScheme)) {
-      throw new IOException("Unsupported URL scheme: " + wsScheme);
-    }
+    return connect(url, 5, TimeUnit.SECONDS);
+  }
 
-    // Create web socket and observatory
-    WebSocket webSocket;
-    try {
-      webSocket = new WebSocket(uri);
-    } catch (WebSocketException e) {
-      throw new IOException("Failed to create websocket: " + url, e);
-    }
+  /**
+   * Connect to the VM observatory service via the specified URI, waiting at most the given time for
+   * the VM to report its protocol version.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connect(final String url, long timeout, TimeUnit unit) throws IOException {
+    return connect(new WebSocketTransport(url), timeout, unit);
+  }
+
+  /**
+   * Connect to the VM observatory service through the given transport, waiting at most the given
+   * time for the VM to report its protocol version.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connect(Transport transport, long timeout, TimeUnit unit) throws IOException {
     final VmService vmService = new VmService();
 
-    // Setup event handler for forwarding responses
-    webSocket.setEventHandler(new WebSocketEventHandler() {
+    // Forward responses and connection state changes
+    vmService.requestSink = transport.open(new Transport.Listener() {
       @Override
-      public void onClose() {
-        Logging.getLogger().logInformation("VM connection closed: " + url);
-
-        vmService.connectionClosed();
+      public void opened() {
+        vmService.connectionOpened();
       }
 
       @Override
-      public void onMessage(WebSocketMessage message) {
-        Logging.getLogger().logInformation("VM message: " + message.getText());
-        try {
-          vmService.processMessage(message.getText());
-        } catch (Exception e) {
-          Logging.getLogger().logError(e.getMessage(), e);
-        }
+      public void received(String message) {
+        vmService.processMessage(message);
       }
 
       @Override
-      public void onOpen() {
-        vmService.connectionOpened();
+      public void received(JsonObject message) {
+        vmService.processMessage(message, -1);
+      }
 
-        Logging.getLogger().logInformation("VM connection open: " + url);
+      @Override
+      public void disconnected() {
+        vmService.connectionLost();
       }
 
       @Override
-      public void onPing() {
+      public void reconnected(Collection<JsonObject> buffered) {
+        vmService.connectionReestablished(buffered);
       }
 
       @Override
-      public void onPong() {
+      public void closed() {
+        vmService.connectionClosed();
       }
     });
 
-    // Establish WebSocket Connection
-    //noinspection TryWithIdenticalCatches
-    try {
-      webSocket.connect();
-    } catch (WebSocketException e) {
-      throw new IOException("Failed to connect: " + url, e);
-    } catch (ArrayIndexOutOfBoundsException e) {
-      // The weberknecht can occasionally throw an array index exception if a connect terminates on initial connect
-      // (de.roderick.weberknecht.WebSocket.connect, WebSocket.java:126).
-      throw new IOException("Failed to connect: " + url, e);
-    }
-    vmService.requestSink = new WebSocketRequestSink(webSocket);
-
     // Check protocol version
-    final CountDownLatch latch = new CountDownLatch(1);
-    final String[] errMsg = new String[1];
+    final CompletableFuture<Version> version = new CompletableFuture<>();
     vmService.getVersion(new VersionConsumer() {
       @Override
       public void onError(RPCError error) {
         String msg = "Failed to determine protocol version: " + error.getCode() + "\n  message: "
             + error.getMessage() + "\n  details: " + error.getDetails();
         Logging.getLogger().logInformation(msg);
-        errMsg[0] = msg;
+        version.completeExceptionally(new IOException(msg));
       }
 
       @Override
-      public void received(Version version) {
-        vmService.runtimeVersion = version;
+      public void received(Version response) {
+        vmService.runtimeVersion = response;
 
-        latch.countDown();
+        version.complete(response);
       }
     });
 
     try {
-      if (!latch.await(5, TimeUnit.SECONDS)) {
-        throw new IOException("Failed to determine protocol version");
-      }
-      if (errMsg[0] != null) {
-        throw new IOException(errMsg[0]);
-      }
+      version.get(timeout, unit);
+    } catch (TimeoutException e) {
+      throw new IOException("Failed to determine protocol version");
+    } catch (ExecutionException e) {
+      throw (IOException) e.getCause();
     } catch (InterruptedException e) {
       throw new RuntimeException("Interrupted while waiting for response", e);
     }
@@ -165,15 +156,45 @@ abstract class VmServiceBase implements VmServiceConst {
   }
 
   /**
-   * A mapping between {@link String} ids' and the associated {@link Consumer} that was passed when
-   * the request was made. Synchronize against {@link #consumerMapLock} before accessing this field.
+   * The requests waiting for a response and the associated {@link Consumer} that was passed when
+   * the request was made.
+   */
+  private final PendingRequests<Consumer> pendingRequests = new PendingRequests<>(
+      new PendingRequests.ExpirationHandler<Consumer>() {
+        @Override
+        public void expired(String id, String method, Consumer consumer, long timeoutMillis) {
+          Logging.getLogger().logError("No response for request " + id + ": " + method);
+          Logging.getTraceSink().requestExpired(id, method, timeoutMillis);
+          try {
+            consumer.onError(RPCError.timeout(method, timeoutMillis));
+          } catch (Exception e) {
+            Logging.getLogger().logError("Exception notifying consumer", e);
+          }
+        }
+      });
+
+  /**
+   * The time in milliseconds to wait for a response before failing the request, or {@code 0} to
+   * wait forever.
+   */
+  private volatile long requestTimeoutMillis;
+
+  /**
+   * The streams successfully subscribed through {@code streamListen} and not cancelled since.
+   */
+  private final Set<String> subscribedStreams = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The ids of the requests that were waiting for a response when the connection was lost, or
+   * {@code null} if the connection has not been lost.
    */
-  private final Map<String, Consumer> consumerMap = Maps.newHashMap();
+  private volatile Set<Integer> inFlightAtLoss;
 
   /**
-   * The object used to synchronize access to {@link #consumerMap}.
+   * The methods, in addition to those starting with {@code get}, which are safe to send again after
+   * a lost connection has been reestablished.
    */
-  private final Object consumerMapLock = new Object();
+  private final Set<String> idempotentMethods = ConcurrentHashMap.newKeySet();
 
   /**
    * The unique ID for the next request.
@@ -181,9 +202,16 @@ abstract class VmServiceBase implements VmServiceConst {
   private final AtomicInteger nextId = new AtomicInteger();
 
   /**
-   * A list of objects to which {@link Event}s from the VM are forwarded.
+   * A list of objects to which {@link Event}s from the VM are forwarded. The list is copied on
+   * write so that events can be forwarded without copying or locking the list.
+   */
+  private final List<VmServiceListener> vmListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * The dispatcher delivering {@link Event}s to {@link #vmListeners}, or {@code null} if events are
+   * delivered on the thread receiving messages from the VM.
    */
-  private final List<VmServiceListener> vmListeners = new ArrayList<>();
+  private volatile EventDispatcher eventDispatcher;
 
   /**
    * A list of objects to which {@link Event}s from the VM are forwarded.
@@ -193,10 +221,16 @@ abstract class VmServiceBase implements VmServiceConst {
   /**
    * The channel through which observatory requests are made.
    */
-  RequestSink requestSink;
+  volatile RequestSink requestSink;
 
   Version runtimeVersion;
 
+  /**
+   * {@code true} if incoming messages should be routed by scanning them with a streaming reader
+   * rather than by parsing each message into a complete tree.
+   */
+  private volatile boolean streamingDecode;
+
   /**
    * Add a listener to receive {@link Event}s from the VM.
    */
@@ -211,6 +245,31 @@ abstract class VmServiceBase implements VmServiceConst {
     vmListeners.remove(listener);
   }
 
+  /**
+   * Deliver {@link Event}s to the listeners on the given executor instead of the thread receiving
+   * messages from the VM. Events of the same stream are delivered in order; see
+   * {@link EventDispatcher} for the handling of streams whose listeners fall behind.
+   *
+   * @param executor        the executor on which listeners are notified, or {@code null} to notify
+   *                        listeners on the thread receiving messages
+   * @param maxQueuedEvents the maximum number of events queued for each stream
+   * @return the dispatcher, to configure overflow policies, or {@code null}
+   */
+  public EventDispatcher setEventExecutor(Executor executor, int maxQueuedEvents) {
+    EventDispatcher dispatcher = executor != null
+        ? new EventDispatcher(vmListeners, executor, maxQueuedEvents) : null;
+    eventDispatcher = dispatcher;
+    return dispatcher;
+  }
+
+  /**
+   * Return the dispatcher delivering events to listeners, or {@code null} if events are delivered
+   * on the thread receiving messages from the VM.
+   */
+  public EventDispatcher getEventDispatcher() {
+    return eventDispatcher;
+  }
+
   /**
    * Add a VM RemoteServiceRunner.
    */
@@ -232,10 +291,81 @@ abstract class VmServiceBase implements VmServiceConst {
     return runtimeVersion;
   }
 
+  /**
+   * Return {@code true} if incoming messages are decoded in streaming mode.
+   */
+  public boolean isStreamingDecode() {
+    return streamingDecode;
+  }
+
+  /**
+   * Set whether incoming messages are decoded in streaming mode. In streaming mode the {@code id},
+   * {@code method} and {@code streamId} of each message are read first and only the {@code result},
+   * {@code error} or {@code event} member needed by the matching {@link Consumer} or
+   * {@link VmServiceListener}s is parsed into a tree. Messages which cannot be routed this way, such
+   * as requests for a {@link RemoteServiceRunner}, are decoded as a whole.
+   */
+  public void setStreamingDecode(boolean streamingDecode) {
+    this.streamingDecode = streamingDecode;
+  }
+
+  /**
+   * Set the time to wait for a response before the request fails with an {@link RPCError} having
+   * the code {@link RPCError#REQUEST_TIMEOUT}. A timeout of {@code 0} (the default) waits forever.
+   * The timeout applies to requests made after this call.
+   */
+  public void setRequestTimeout(long timeout, TimeUnit unit) {
+    requestTimeoutMillis = unit.toMillis(timeout);
+  }
+
+  /**
+   * Declare that requests with the given method may be sent again after a lost connection has been
+   * reestablished. Methods starting with {@code get} and {@code streamListen} are always considered
+   * idempotent.
+   */
+  public void addIdempotentMethod(String method) {
+    idempotentMethods.add(method);
+  }
+
+  private boolean isIdempotent(String method) {
+    return method.startsWith("get") || STREAM_LISTEN.equals(method) || idempotentMethods.contains(method);
+  }
+
+  /**
+   * Return the number of requests waiting for a response.
+   */
+  public int getPendingRequestCount() {
+    return pendingRequests.getInFlightCount();
+  }
+
+  /**
+   * Return the number of requests that failed because no response arrived before the timeout.
+   */
+  public long getExpiredRequestCount() {
+    return pendingRequests.getExpiredCount();
+  }
+
+  /**
+   * Coalesce the requests issued within the given flush latency into JSON-RPC batches of at most
+   * {@code maxBatchSize} requests. Batch responses are split back into individual responses by
+   * {@link #processMessage(String)}. Only use this if the VM service on the other end of the
+   * connection accepts batched requests.
+   *
+   * @throws IllegalStateException if the current connection cannot send batches
+   */
+  public void enableRequestBatching(int maxBatchSize, long flushLatency, TimeUnit unit) {
+    if (!(requestSink instanceof BatchRequestSink)) {
+      throw new IllegalStateException("Request batching is not supported by " + requestSink);
+    }
+    requestSink = new BatchingRequestSink((BatchRequestSink) requestSink, maxBatchSize,
+        unit.toMillis(flushLatency));
+  }
+
   /**
    * Disconnect from the VM observatory service.
    */
   public void disconnect() {
+    pendingRequests.close();
     requestSink.close();
   }
 
@@ -295,6 +425,69 @@ abstract class VmServiceBase implements VmServiceConst {
 
   public abstract void getObject(String isolateId, String objectId, GetObjectConsumer consumer);
 
+  /**
+   * Return a future that completes with the object with the given identifier, which is either an
+   * {@link Obj} or a {@link Sentinel}.
+   */
+  public CompletableFuture<Response> getObject(String isolateId, String objectId) {
+    final CompletableFuture<Response> future = new CompletableFuture<>();
+    getObject(isolateId, objectId, new GetObjectConsumer() {
+      @Override
+      public void onError(RPCError error) {
+        future.completeExceptionally(new RPCException(error));
+      }
+
+      @Override
+      public void received(Obj response) {
+        future.complete(response);
+      }
+
+      @Override
+      public void received(Sentinel response) {
+        future.complete(response);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Return a future that completes with the instance with the given identifier.
+   */
+  public CompletableFuture<Instance> getInstance(String isolateId, String instanceId) {
+    final CompletableFuture<Instance> future = new CompletableFuture<>();
+    getInstance(isolateId, instanceId, new GetInstanceConsumer() {
+      @Override
+      public void onError(RPCError error) {
+        future.completeExceptionally(new RPCException(error));
+      }
+
+      @Override
+      public void received(Instance response) {
+        future.complete(response);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Return a future that completes with the library with the given identifier.
+   */
+  public CompletableFuture<Library> getLibrary(String isolateId, String libraryId) {
+    final CompletableFuture<Library> future = new CompletableFuture<>();
+    getLibrary(isolateId, libraryId, new GetLibraryConsumer() {
+      @Override
+      public void onError(RPCError error) {
+        future.completeExceptionally(new RPCException(error));
+      }
+
+      @Override
+      public void received(Library response) {
+        future.complete(response);
+      }
+    });
+    return future;
+  }
+
   /**
    * Invoke a specific service protocol extension method.
    * <p>
@@ -316,13 +509,50 @@ abstract class VmServiceBase implements VmServiceConst {
     request(method, params, consumer);
   }
 
+  /**
+   * Invoke a specific service protocol extension method and return a future that completes with the
+   * result.
+   * <p>
+   * See https://api.dart.dev/dart-developer/dart-developer-library.html.
+   */
+  public CompletableFuture<JsonObject> callServiceExtension(String isolateId, String method, JsonObject params) {
+    params.addProperty("isolateId", isolateId);
+    return request(method, params);
+  }
+
+  /**
+   * Send a request and return a future that completes with the untyped result. Futures are completed
+   * on the thread receiving messages from the VM, so dependent stages that block should use one of
+   * the {@code *Async} methods of {@link CompletableFuture}. Waiting on the future does not hold any
+   * monitor and so does not pin the carrier when called from a virtual thread.
+   *
+   * @return a future that completes with the {@code result} of the response, or exceptionally with
+   * an {@link RPCException}
+   */
+  public CompletableFuture<JsonObject> request(String method, JsonObject params) {
+    final CompletableFuture<JsonObject> future = new CompletableFuture<>();
+    request(method, params, new ServiceExtensionConsumer() {
+      @Override
+      public void onError(RPCError error) {
+        future.completeExceptionally(new RPCException(error));
+      }
+
+      @Override
+      public void received(JsonObject result) {
+        future.complete(result);
+      }
+    });
+    return future;
+  }
+
   /**
    * Sends the request and associates the request with the passed {@link Consumer}.
    */
   protected void request(String method, JsonObject params, Consumer consumer) {
 
     // Assemble the request
-    String id = Integer.toString(nextId.incrementAndGet());
+    int intId = nextId.incrementAndGet();
+    String id = Integer.toString(intId);
     JsonObject request = new JsonObject();
 
     request.addProperty(JSONRPC, JSONRPC_VERSION);
@@ -331,16 +561,14 @@ abstract class VmServiceBase implements VmServiceConst {
     request.add(PARAMS, params);
 
     // Cache the consumer to receive the response
-    synchronized (consumerMapLock) {
-      consumerMap.put(id, consumer);
-    }
+    pendingRequests.add(intId, method, request, consumer, requestTimeoutMillis);
 
     // Send the request
     requestSink.add(request);
   }
 
   public void connectionOpened() {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    for (VmServiceListener listener : vmListeners) {
       try {
         listener.connectionOpened();
       } catch (Exception e) {
@@ -350,7 +578,12 @@ abstract class VmServiceBase implements VmServiceConst {
   }
 
   private void forwardEvent(String streamId, Event event) {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    EventDispatcher dispatcher = eventDispatcher;
+    if (dispatcher != null) {
+      dispatcher.dispatch(streamId, event);
+      return;
+    }
+    for (VmServiceListener listener : vmListeners) {
       try {
         listener.received(streamId, event);
       } catch (Exception e) {
@@ -359,8 +592,81 @@ abstract class VmServiceBase implements VmServiceConst {
     }
   }
 
+  /**
+   * Called by a {@link Transport} that has lost the connection and is reconnecting, to remember the
+   * requests that were in flight on the lost connection.
+   */
+  public void connectionLost() {
+    Set<Integer> ids = new HashSet<>();
+    for (PendingRequests.Request<Consumer> request : pendingRequests.getAll()) {
+      ids.add(request.getId());
+    }
+    inFlightAtLoss = ids;
+  }
+
+  /**
+   * Called by a {@link Transport} that has reestablished a lost connection, before it sends the
+   * {@code buffered} requests. The requests that were in flight on the lost connection and are still
+   * waiting for a response are sent again if their method is idempotent (see
+   * {@link #addIdempotentMethod(String)}), and fail with {@link RPCError#CONNECTION_LOST} otherwise.
+   * Then the streams that were subscribed are subscribed again.
+   */
+  public void connectionReestablished(Collection<JsonObject> buffered) {
+    Set<Integer> inFlight = inFlightAtLoss;
+    inFlightAtLoss = null;
+    // A request may have been remembered as in flight while it was on its way to the buffer
+    Set<String> bufferedIds = new HashSet<>();
+    Set<String> resubscribed = new HashSet<>();
+    for (JsonObject request : buffered) {
+      JsonElement id = request.get(ID);
+      if (id != null) {
+        bufferedIds.add(id.getAsString());
+      }
+      JsonElement method = request.get(METHOD);
+      JsonObject params = request.getAsJsonObject(PARAMS);
+      if (method != null && STREAM_LISTEN.equals(method.getAsString()) && params != null
+          && params.has(STREAM_ID)) {
+        resubscribed.add(params.get(STREAM_ID).getAsString());
+      }
+    }
+    for (PendingRequests.Request<Consumer> request : pendingRequests.getAll()) {
+      if ((inFlight != null && !inFlight.contains(request.getId()))
+          || bufferedIds.contains(Integer.toString(request.getId()))) {
+        continue;
+      }
+      String method = request.getMethod();
+      if (isIdempotent(method)) {
+        requestSink.add(request.getRequest());
+        if (STREAM_LISTEN.equals(method)) {
+          resubscribed.add(request.getRequest().getAsJsonObject(PARAMS).get(STREAM_ID).getAsString());
+        }
+      } else if (pendingRequests.remove(request.getId()) != null) {
+        failRequest(request, RPCError.connectionLost(method));
+      }
+    }
+    for (String streamId : subscribedStreams) {
+      if (!resubscribed.contains(streamId)) {
+        JsonObject params = new JsonObject();
+        params.addProperty(STREAM_ID, streamId);
+        request(STREAM_LISTEN, params, new ServiceExtensionConsumer() {
+          @Override
+          public void onError(RPCError error) {
+            Logging.getLogger().logError("Failed to resubscribe to stream: " + error.getMessage());
+          }
+
+          @Override
+          public void received(JsonObject result) {
+          }
+        });
+      }
+    }
+  }
+
   public void connectionClosed() {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    for (PendingRequests.Request<Consumer> request : pendingRequests.removeAll()) {
+      failRequest(request, RPCError.connectionLost(request.getMethod()));
+    }
+    for (VmServiceListener listener : vmListeners) {
       try {
         listener.connectionClosed();
       } catch (Exception e) {
@@ -369,6 +675,14 @@ abstract class VmServiceBase implements VmServiceConst {
     }
   }
 
+  private void failRequest(PendingRequests.Request<Consumer> request, RPCError error) {
+    try {
+      request.getValue().onError(error);
+    } catch (Exception e) {
+      Logging.getLogger().logError("Exception notifying consumer", e);
+    }
+  }
+
   abstract void forwardResponse(Consumer consumer, String type, JsonObject json);
 
   void logUnknownResponse(Consumer consumer, JsonObject json) {
@@ -380,6 +694,12 @@ abstract class VmServiceBase implements VmServiceConst {
     }
     msg.append("  but received ").append(json);
     Logging.getLogger().logError(msg.toString());
+    consumer.onError(RPCError.malformed("Unexpected response type " + responseTypeOf(json), json));
+  }
+
+  private static String responseTypeOf(JsonObject json) {
+    JsonElement type = json.get(TYPE);
+    return type != null && type.isJsonPrimitive() ? type.getAsString() : "";
   }
 
   /**
@@ -390,16 +710,41 @@ abstract class VmServiceBase implements VmServiceConst {
     if (jsonText == null || jsonText.isEmpty()) {
       return;
     }
+    if (streamingDecode && processMessageStreaming(jsonText)) {
+      return;
+    }
 
     // Decode the JSON
-    JsonObject json;
+    JsonElement jsonElem;
     try {
-      json = (JsonObject) new JsonParser().parse(jsonText);
+      jsonElem = new JsonParser().parse(jsonText);
     } catch (Exception e) {
       Logging.getLogger().logError("Parse message failed: " + jsonText, e);
       return;
     }
 
+    // Split a JSON-RPC batch into its individual messages
+    if (jsonElem.isJsonArray()) {
+      for (JsonElement elem : jsonElem.getAsJsonArray()) {
+        if (elem.isJsonObject()) {
+          processMessage(elem.getAsJsonObject(), -1);
+        } else {
+          Logging.getLogger().logError("Malformed message in batch: " + elem);
+        }
+      }
+      return;
+    }
+    if (!jsonElem.isJsonObject()) {
+      Logging.getLogger().logError("Parse message failed: " + jsonText);
+      return;
+    }
+    processMessage(jsonElem.getAsJsonObject(), jsonText.length());
+  }
+
+  /**
+   * @param length the number of characters in the message, or {@code -1} if unknown
+   */
+  void processMessage(JsonObject json, int length) {
     if (json.has("method")) {
       if (!json.has(PARAMS)) {
         final String message = "Missing " + PARAMS;
@@ -419,12 +764,66 @@ abstract class VmServiceBase implements VmServiceConst {
         processNotification(json);
       }
     } else if (json.has("result") || json.has("error")) {
-      processResponse(json);
+      processResponse(json, length);
     } else {
       Logging.getLogger().logError("Malformed message");
     }
   }
 
+  /**
+   * Route the given message without parsing it as a whole.
+   *
+   * @return {@code true} if the message was handled, or {@code false} if the message must be
+   * decoded as a complete tree
+   */
+  boolean processMessageStreaming(String jsonText) {
+    MessageHeader header = MessageHeader.scan(jsonText);
+    if (header == null) {
+      return false;
+    }
+    String method = header.getMethod();
+    if (method != null) {
+      // Requests and non-stream notifications are rare and handled by the tree path
+      if (!"streamNotify".equals(method) || header.getId() != null || !header.hasParams()) {
+        return false;
+      }
+      String streamId = header.getStreamId();
+      if (streamId == null) {
+        return false;
+      }
+      if (vmListeners.isEmpty()) {
+        return true;
+      }
+      JsonElement eventElem = MessageHeader.extract(jsonText, PARAMS, EVENT);
+      if (eventElem == null || !eventElem.isJsonObject()) {
+        return false;
+      }
+      forwardEvent(streamId, new Event(eventElem.getAsJsonObject()));
+      return true;
+    }
+    if (header.hasResult() || header.hasError()) {
+      String id = header.getId();
+      if (id == null) {
+        return false;
+      }
+      PendingRequests.Request<Consumer> request = pendingRequests.remove(id);
+      if (request == null) {
+        Logging.getLogger().logError("No consumer associated with " + ID + ": " + id);
+        return true;
+      }
+      traceResponse(id, request, jsonText.length(), header.hasError());
+      Consumer consumer = request.getValue();
+      if (header.hasResult()) {
+        subscriptionChanged(request);
+        forwardResult(consumer, MessageHeader.extract(jsonText, RESULT));
+      } else {
+        forwardError(consumer, MessageHeader.extract(jsonText, ERROR));
+      }
+      return true;
+    }
+    return false;
+  }
+
   void processRequest(JsonObject json) {
     final JsonObject response = new JsonObject();
     response.addProperty(JSONRPC, JSONRPC_VERSION);
@@ -576,7 +975,10 @@ abstract class VmServiceBase implements VmServiceConst {
     return str.replaceAll("\r\n", " ").replaceAll("\n", " ");
   }
 
-  void processResponse(JsonObject json) {
+  /**
+   * @param length the number of characters in the message, or {@code -1} if unknown
+   */
+  void processResponse(JsonObject json, int length) {
     JsonElement idElem = json.get(ID);
     if (idElem == null) {
       Logging.getLogger().logError("Response missing " + ID);
@@ -591,49 +993,92 @@ abstract class VmServiceBase implements VmServiceConst {
       Logging.getLogger().logError("Response missing " + ID, e);
       return;
     }
-    Consumer consumer = consumerMap.remove(id);
-    if (consumer == null) {
+    PendingRequests.Request<Consumer> request = pendingRequests.remove(id);
+    if (request == null) {
       Logging.getLogger().logError("No consumer associated with " + ID + ": " + id);
       return;
     }
+    traceResponse(id, request, length, !json.has(RESULT));
+    Consumer consumer = request.getValue();
 
     // Forward the response if the request was successfully executed
     JsonElement resultElem = json.get(RESULT);
     if (resultElem != null) {
-      JsonObject result;
-      try {
-        result = resultElem.getAsJsonObject();
-      } catch (Exception e) {
-        Logging.getLogger().logError("Response has invalid " + RESULT, e);
-        return;
-      }
-      String responseType = "";
-      if (result.has(TYPE)) {
-        responseType = result.get(TYPE).getAsString();
-      }
-      // ServiceExtensionConsumers do not care about the response type.
-      else if (!(consumer instanceof ServiceExtensionConsumer)) {
-        Logging.getLogger().logError("Response missing " + TYPE + ": " + result.toString());
-        return;
-      }
-      forwardResponse(consumer, responseType, result);
+      subscriptionChanged(request);
+      forwardResult(consumer, resultElem);
       return;
     }
 
     // Forward an error if the request failed
     resultElem = json.get(ERROR);
     if (resultElem != null) {
-      JsonObject error;
-      try {
-        error = resultElem.getAsJsonObject();
-      } catch (Exception e) {
-        Logging.getLogger().logError("Response has invalid " + RESULT, e);
-        return;
-      }
-      consumer.onError(new RPCError(error));
+      forwardError(consumer, resultElem);
       return;
     }
 
     Logging.getLogger().logError("Response missing " + RESULT + " and " + ERROR);
+    consumer.onError(RPCError.malformed("Response missing " + RESULT + " and " + ERROR, json));
+  }
+
+  private void traceResponse(String id, PendingRequests.Request<Consumer> request, int length, boolean error) {
+    TraceSink traceSink = Logging.getTraceSink();
+    if (traceSink != TraceSink.NULL) {
+      long roundTripNanos = System.nanoTime() - request.getStartNanos();
+      traceSink.requestCompleted(id, request.getMethod(), length, roundTripNanos, error);
+    }
+  }
+
+  /**
+   * Track the subscribed streams once the VM has accepted a {@code streamListen} or
+   * {@code streamCancel} request, so that only accepted subscriptions are renewed on reconnect.
+   */
+  private void subscriptionChanged(PendingRequests.Request<Consumer> request) {
+    String method = request.getMethod();
+    if (!STREAM_LISTEN.equals(method) && !STREAM_CANCEL.equals(method)) {
+      return;
+    }
+    JsonObject params = request.getRequest().getAsJsonObject(PARAMS);
+    if (params == null || !params.has(STREAM_ID)) {
+      return;
+    }
+    if (STREAM_LISTEN.equals(method)) {
+      subscribedStreams.add(params.get(STREAM_ID).getAsString());
+    } else {
+      subscribedStreams.remove(params.get(STREAM_ID).getAsString());
+    }
+  }
+
+  private void forwardResult(Consumer consumer, JsonElement resultElem) {
+    JsonObject result;
+    try {
+      result = resultElem.getAsJsonObject();
+    } catch (Exception e) {
+      Logging.getLogger().logError("Response has invalid " + RESULT, e);
+      consumer.onError(RPCError.malformed("Response has invalid " + RESULT, resultElem));
+      return;
+    }
+    String responseType = "";
+    if (result.has(TYPE)) {
+      responseType = result.get(TYPE).getAsString();
+    }
+    // ServiceExtensionConsumers do not care about the response type.
+    else if (!(consumer instanceof ServiceExtensionConsumer)) {
+      Logging.getLogger().logError("Response missing " + TYPE + ": " + result.toString());
+      consumer.onError(RPCError.malformed("Response missing " + TYPE, result));
+      return;
+    }
+    forwardResponse(consumer, responseType, result);
+  }
+
+  private void forwardError(Consumer consumer, JsonElement errorElem) {
+    JsonObject error;
+    try {
+      error = errorElem.getAsJsonObject();
+    } catch (Exception e) {
+      Logging.getLogger().logError("Response has invalid " + ERROR, e);
+      consumer.onError(RPCError.malformed("Response has invalid " + ERROR, errorElem));
+      return;
+    }
+    consumer.onError(new RPCError(error));
   }
 }
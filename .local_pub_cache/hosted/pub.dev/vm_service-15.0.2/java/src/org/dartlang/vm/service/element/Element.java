@@ -56,6 +56,32 @@ public class Element {
     return jsonArrayToListInt(json.getAsJsonArray(memberName));
   }
 
+  /**
+   * Return a specific JSON member as an array of integers, or {@code null} if there is no such
+   * member. Unlike {@link #getListInt(String)} the values are not boxed.
+   */
+  public int[] getArrayInt(String memberName) {
+    JsonArray array = json.getAsJsonArray(memberName);
+    return array == null ? null : jsonArrayToArrayInt(array);
+  }
+
+  /**
+   * Return a specific JSON member as an array of arrays of integers, or {@code null} if there is no
+   * such member. Unlike {@link #getListListInt(String)} the values are not boxed.
+   */
+  public int[][] getArrayArrayInt(String memberName) {
+    JsonArray array = json.getAsJsonArray(memberName);
+    if (array == null) {
+      return null;
+    }
+    int size = array.size();
+    int[][] result = new int[size][];
+    for (int index = 0; index < size; ++index) {
+      result[index] = jsonArrayToArrayInt(array.get(index).getAsJsonArray());
+    }
+    return result;
+  }
+
   /**
    * Return a specific JSON member as a list of strings.
    */
@@ -72,7 +98,7 @@ public class Element {
       return null;
     }
     int size = array.size();
-    List<List<Integer>> result = new ArrayList<>();
+    List<List<Integer>> result = new ArrayList<>(size);
     for (int index = 0; index < size; ++index) {
       result.add(jsonArrayToListInt(array.get(index).getAsJsonArray()));
     }
@@ -81,16 +107,25 @@ public class Element {
 
   private List<Integer> jsonArrayToListInt(JsonArray array) {
     int size = array.size();
-    List<Integer> result = new ArrayList<>();
+    List<Integer> result = new ArrayList<>(size);
     for (int index = 0; index < size; ++index) {
       result.add(array.get(index).getAsInt());
     }
     return result;
   }
 
+  private int[] jsonArrayToArrayInt(JsonArray array) {
+    int size = array.size();
+    int[] result = new int[size];
+    for (int index = 0; index < size; ++index) {
+      result[index] = array.get(index).getAsInt();
+    }
+    return result;
+  }
+
   private List<String> jsonArrayToListString(JsonArray array) {
     int size = array.size();
-    List<String> result = new ArrayList<>();
+    List<String> result = new ArrayList<>(size);
     for (int index = 0; index < size; ++index) {
       final JsonElement elem = array.get(index);
       result.add(elem == JsonNull.INSTANCE ? null : elem.getAsString());
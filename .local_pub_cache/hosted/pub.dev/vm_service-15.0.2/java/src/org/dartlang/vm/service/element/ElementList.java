@@ -8,18 +8,36 @@ import java.util.Iterator;
 /**
  * Simple wrapper around a {@link JsonArray} which lazily converts {@link JsonObject} elements to
  * subclasses of {@link Element}. Subclasses need only implement {@link #basicGet(JsonArray, int)}
- * to return an {@link Element} subclass for the {@link JsonObject} at a given index.
+ * to return an {@link Element} subclass for the {@link JsonObject} at a given index. Each element
+ * is converted at most once and the result is returned by subsequent calls to {@link #get(int)}.
  */
 public abstract class ElementList<T> implements Iterable<T> {
 
   private final JsonArray array;
 
+  /**
+   * The elements converted so far, allocated on first access. Elements are immutable views of the
+   * JSON, so a concurrent conversion of the same element is harmless.
+   */
+  private Object[] elements;
+
   public ElementList(JsonArray array) {
     this.array = array;
   }
 
+  @SuppressWarnings("unchecked")
   public T get(int index) {
-    return basicGet(array, index);
+    Object[] cache = elements;
+    if (cache == null) {
+      cache = new Object[array.size()];
+      elements = cache;
+    }
+    Object element = cache[index];
+    if (element == null) {
+      element = basicGet(array, index);
+      cache[index] = element;
+    }
+    return (T) element;
   }
 
   public boolean isEmpty() {
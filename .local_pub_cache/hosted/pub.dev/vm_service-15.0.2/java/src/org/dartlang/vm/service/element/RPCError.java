@@ -59,6 +59,40 @@ public class RPCError extends Element implements VmServiceConst {
    */
   public static final int UNEXPECTED_RESPONSE = 5;
 
+  /**
+   * The response code used by the client when the server did not respond to a request before the
+   * request timeout expired.
+   */
+  public static final int REQUEST_TIMEOUT = 6;
+
+  /**
+   * The response code used by the client when the connection to the server was lost before the
+   * server responded to a request.
+   */
+  public static final int CONNECTION_LOST = 7;
+
+  public static RPCError connectionLost(String method) {
+    String errMsg = "Connection lost before a response to " + method + " was received";
+    JsonObject json = new JsonObject();
+    json.addProperty("code", CONNECTION_LOST);
+    json.addProperty("message", errMsg);
+    JsonObject data = new JsonObject();
+    data.addProperty("details", errMsg);
+    json.add("data", data);
+    return new RPCError(json);
+  }
+
+  public static RPCError timeout(String method, long timeoutMillis) {
+    String errMsg = "No response to " + method + " within " + timeoutMillis + " ms";
+    JsonObject json = new JsonObject();
+    json.addProperty("code", REQUEST_TIMEOUT);
+    json.addProperty("message", errMsg);
+    JsonObject data = new JsonObject();
+    data.addProperty("details", errMsg);
+    json.add("data", data);
+    return new RPCError(json);
+  }
+
   public static RPCError unexpected(String expectedType, Response response) {
     String errMsg = "Expected type " + expectedType + " but received " + response.getType();
     if (response instanceof Sentinel) {
@@ -74,6 +108,21 @@ public class RPCError extends Element implements VmServiceConst {
     return new RPCError(json);
   }
 
+  /**
+   * Returns the error for a response that the client cannot forward to the consumer, such as a result
+   * that is not an object or has no type.
+   */
+  public static RPCError malformed(String errMsg, JsonElement response) {
+    JsonObject json = new JsonObject();
+    json.addProperty("code", UNEXPECTED_RESPONSE);
+    json.addProperty("message", errMsg);
+    JsonObject data = new JsonObject();
+    data.addProperty("details", errMsg);
+    data.add("response", response);
+    json.add("data", data);
+    return new RPCError(json);
+  }
+
   public RPCError(JsonObject json) {
     super(json);
   }
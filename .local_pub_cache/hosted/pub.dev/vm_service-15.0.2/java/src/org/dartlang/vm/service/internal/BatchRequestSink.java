@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonArray;
+
+/**
+ * A {@link RequestSink} that can send several requests as a single JSON-RPC batch.
+ */
+public interface BatchRequestSink extends RequestSink {
+  /**
+   * Put a batch of requests into the sink as a single message.
+   *
+   * @param requests the requests to put, not {@code null} and not empty.
+   */
+  void addBatch(JsonArray requests);
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RequestSink} that coalesces the requests added within a short window into JSON-RPC batch
+ * arrays. A batch is sent as soon as it reaches the maximum batch size, or once the flush latency
+ * has elapsed since the first request of the batch was added.
+ */
+public class BatchingRequestSink implements RequestSink {
+  /**
+   * The base {@link BatchRequestSink}.
+   */
+  private final BatchRequestSink base;
+
+  private final int maxBatchSize;
+  private final long flushLatencyMillis;
+
+  /**
+   * The requests waiting to be sent. Synchronize against this field before accessing it or
+   * {@link #flushScheduled} and {@link #closed}.
+   */
+  private final ArrayDeque<JsonObject> queue = new ArrayDeque<>();
+
+  private boolean flushScheduled;
+  private boolean closed;
+
+  private final ScheduledExecutorService timer;
+
+  private final Runnable flushTask = new Runnable() {
+    @Override
+    public void run() {
+      try {
+        flush();
+      } catch (Throwable e) {
+        Logging.getLogger().logError("Failed to flush requests", e);
+      }
+    }
+  };
+
+  /**
+   * @param base               the sink to send batches to, not {@code null}
+   * @param maxBatchSize       the maximum number of requests in a single batch
+   * @param flushLatencyMillis the maximum time a request waits for other requests to join its batch
+   */
+  public BatchingRequestSink(BatchRequestSink base, int maxBatchSize, long flushLatencyMillis) {
+    if (base == null || maxBatchSize < 1 || flushLatencyMillis < 0) {
+      throw new IllegalArgumentException("Unexpected argument: " + base + " " + maxBatchSize + " "
+          + flushLatencyMillis);
+    }
+    this.base = base;
+    this.maxBatchSize = maxBatchSize;
+    this.flushLatencyMillis = flushLatencyMillis;
+    this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "VM service request batching");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  @Override
+  public void add(JsonObject request) {
+    boolean schedule = false;
+    synchronized (queue) {
+      if (closed) {
+        base.add(request);
+        return;
+      }
+      queue.add(request);
+      if (queue.size() >= maxBatchSize) {
+        sendQueued();
+      } else if (!flushScheduled) {
+        flushScheduled = true;
+        schedule = true;
+      }
+    }
+    if (schedule) {
+      timer.schedule(flushTask, flushLatencyMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Send all queued requests without waiting for the flush latency to elapse.
+   */
+  public void flush() {
+    synchronized (queue) {
+      sendQueued();
+      flushScheduled = false;
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (queue) {
+      sendQueued();
+      closed = true;
+    }
+    timer.shutdownNow();
+    base.close();
+  }
+
+  /**
+   * Send the queued requests in batches of at most {@link #maxBatchSize}. Sending while holding the
+   * lock keeps the batches in the order the requests were added.
+   */
+  private void sendQueued() {
+    while (!queue.isEmpty()) {
+      if (queue.size() == 1) {
+        base.add(queue.poll());
+        return;
+      }
+      JsonArray batch = new JsonArray();
+      for (int count = 0; count < maxBatchSize && !queue.isEmpty(); ++count) {
+        batch.add(queue.poll());
+      }
+      base.addBatch(batch);
+    }
+  }
+}
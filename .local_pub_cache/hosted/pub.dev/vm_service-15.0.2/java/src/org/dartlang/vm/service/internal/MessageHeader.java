@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * The routing information of a single JSON-RPC message, read with a {@link JsonReader} without
+ * building a tree for the message. Large members such as {@code result}, {@code error} and
+ * {@code params.event} are skipped during the scan and can be materialized on demand with
+ * {@link #extract(String, String...)} once the receiver of the message is known.
+ */
+public class MessageHeader implements VmServiceConst {
+  private String id;
+  private String method;
+  private String streamId;
+  private boolean hasParams;
+  private boolean hasResult;
+  private boolean hasError;
+
+  private MessageHeader() {
+  }
+
+  /**
+   * Return the {@code id} of the message, or {@code null} if the message does not have a scalar id.
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Return the {@code method} of the message, or {@code null} if the message is a response.
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * Return the {@code params.streamId} of the message, or {@code null} if there is none.
+   */
+  public String getStreamId() {
+    return streamId;
+  }
+
+  public boolean hasParams() {
+    return hasParams;
+  }
+
+  public boolean hasResult() {
+    return hasResult;
+  }
+
+  public boolean hasError() {
+    return hasError;
+  }
+
+  /**
+   * Scan the top level members of the given message.
+   *
+   * @return the header, or {@code null} if the text is not a well formed JSON object
+   */
+  public static MessageHeader scan(String jsonText) {
+    MessageHeader header = new MessageHeader();
+    JsonReader reader = new JsonReader(new StringReader(jsonText));
+    try {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (ID.equals(name)) {
+          header.id = nextScalar(reader);
+        } else if (METHOD.equals(name)) {
+          header.method = nextScalar(reader);
+        } else if (PARAMS.equals(name)) {
+          header.hasParams = true;
+          if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+              if (STREAM_ID.equals(reader.nextName())) {
+                header.streamId = nextScalar(reader);
+              } else {
+                reader.skipValue();
+              }
+            }
+            reader.endObject();
+          } else {
+            reader.skipValue();
+          }
+        } else if (RESULT.equals(name)) {
+          header.hasResult = true;
+          reader.skipValue();
+        } else if (ERROR.equals(name)) {
+          header.hasError = true;
+          reader.skipValue();
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      return header;
+    } catch (IOException | IllegalStateException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Materialize the member of the given message found by following the specified member names.
+   *
+   * @return the member, or {@code null} if the message does not contain the member
+   */
+  public static JsonElement extract(String jsonText, String... path) {
+    JsonReader reader = new JsonReader(new StringReader(jsonText));
+    try {
+      for (String memberName : path) {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+          return null;
+        }
+        reader.beginObject();
+        boolean found = false;
+        while (reader.hasNext()) {
+          if (memberName.equals(reader.nextName())) {
+            found = true;
+            break;
+          }
+          reader.skipValue();
+        }
+        if (!found) {
+          return null;
+        }
+      }
+      return new JsonParser().parse(reader);
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static String nextScalar(JsonReader reader) throws IOException {
+    JsonToken token = reader.peek();
+    if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+      return reader.nextString();
+    }
+    reader.skipValue();
+    return null;
+  }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free table of requests waiting for a response, keyed by the integer request id.
+ * <p>
+ * Request ids are allocated sequentially, so each request is stored directly in the slot
+ * {@code id & mask} of a ring. A request is only placed in the overflow map if its slot is still
+ * taken by a request that was issued a full ring earlier. Requests with a deadline are also placed
+ * in a hashed timer wheel and handed to the {@link ExpirationHandler} if no response arrives in
+ * time.
+ *
+ * @param <T> the type of object associated with each request
+ */
+public class PendingRequests<T> {
+  /**
+   * Notified when a request has not received a response before its deadline.
+   */
+  public interface ExpirationHandler<T> {
+    void expired(String id, String method, T value, long timeoutMillis);
+  }
+
+  /**
+   * A request waiting for a response.
+   */
+  public static final class Request<T> {
+    final int id;
+    final String method;
+    final JsonObject request;
+    final T value;
+    final long startNanos;
+    final long timeoutMillis;
+    final Timeout<T> timeout;
+
+    Request(int id, String method, JsonObject request, T value, long startNanos, long timeoutMillis,
+            Timeout<T> timeout) {
+      this.id = id;
+      this.method = method;
+      this.request = request;
+      this.value = value;
+      this.startNanos = startNanos;
+      this.timeoutMillis = timeoutMillis;
+      this.timeout = timeout;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    /**
+     * Return the request as it was sent.
+     */
+    public JsonObject getRequest() {
+      return request;
+    }
+
+    public T getValue() {
+      return value;
+    }
+
+    /**
+     * Return the {@link System#nanoTime()} at which the request was added.
+     */
+    public long getStartNanos() {
+      return startNanos;
+    }
+  }
+
+  /**
+   * The entry of a request in the timer wheel. It is cleared when the request is removed, so that a
+   * request which received a response is not kept until the timer visits its bucket.
+   */
+  static final class Timeout<T> {
+    final long deadline;
+    volatile Request<T> request;
+
+    Timeout(long deadline) {
+      this.deadline = deadline;
+    }
+  }
+
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final int WHEEL_SIZE = 512;
+  private static final long TICK_MILLIS = 100;
+
+  private final AtomicReferenceArray<Request<T>> slots;
+  private final int mask;
+  private final ConcurrentMap<Integer, Request<T>> overflow = new ConcurrentHashMap<>();
+  private final ExpirationHandler<T> expirationHandler;
+
+  private final AtomicInteger inFlightCount = new AtomicInteger();
+  private final AtomicLong expiredCount = new AtomicLong();
+
+  private final ConcurrentLinkedQueue<Timeout<T>>[] wheel;
+  private final long startNanos = System.nanoTime();
+  // Guards lastTick, so that an entry is never added to a bucket the timer has just drained
+  private final Object wheelLock = new Object();
+  private long lastTick = -1;
+  private ScheduledExecutorService timer;
+
+  public PendingRequests(ExpirationHandler<T> expirationHandler) {
+    this(DEFAULT_CAPACITY, expirationHandler);
+  }
+
+  /**
+   * @param capacity the number of ring slots, rounded up to a power of two
+   */
+  public PendingRequests(int capacity, ExpirationHandler<T> expirationHandler) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.expirationHandler = expirationHandler;
+    @SuppressWarnings("unchecked")
+    ConcurrentLinkedQueue<Timeout<T>>[] wheel =
+        (ConcurrentLinkedQueue<Timeout<T>>[]) new ConcurrentLinkedQueue<?>[WHEEL_SIZE];
+    this.wheel = wheel;
+    for (int index = 0; index < WHEEL_SIZE; ++index) {
+      wheel[index] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  /**
+   * Record a request waiting for a response.
+   *
+   * @param request       the request as it was sent
+   * @param timeoutMillis the time to wait for a response, or {@code 0} to wait forever
+   */
+  public void add(int id, String method, JsonObject request, T value, long timeoutMillis) {
+    long startNanos = System.nanoTime();
+    long deadline = timeoutMillis > 0 ? startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+    Timeout<T> timeout = deadline != 0 ? new Timeout<T>(deadline) : null;
+    Request<T> entry = new Request<>(id, method, request, value, startNanos, timeoutMillis, timeout);
+    if (timeout != null) {
+      timeout.request = entry;
+    }
+    if (!slots.compareAndSet(id & mask, null, entry)) {
+      overflow.put(id, entry);
+    }
+    inFlightCount.incrementAndGet();
+    if (timeout != null) {
+      ensureTimer();
+      // Visit the entry on the first tick at or after its deadline, but never on a tick the timer
+      // has already passed
+      synchronized (wheelLock) {
+        long tick = Math.max(tickOf(deadline) + 1, lastTick + 1);
+        wheel[(int) (tick % WHEEL_SIZE)].add(timeout);
+      }
+    }
+  }
+
+  /**
+   * Remove the request with the given id.
+   *
+   * @return the request, or {@code null} if there is no such request
+   */
+  public Request<T> remove(String id) {
+    int intId;
+    try {
+      intId = Integer.parseInt(id);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return remove(intId);
+  }
+
+  /**
+   * Remove the request with the given id.
+   *
+   * @return the request, or {@code null} if there is no such request
+   */
+  public Request<T> remove(int id) {
+    int slot = id & mask;
+    Request<T> entry = slots.get(slot);
+    if (entry != null && entry.id == id && slots.compareAndSet(slot, entry, null)) {
+      return removed(entry);
+    }
+    entry = overflow.remove(id);
+    if (entry != null) {
+      return removed(entry);
+    }
+    return null;
+  }
+
+  /**
+   * Return the requests waiting for a response, ordered by slot rather than by id.
+   */
+  public List<Request<T>> getAll() {
+    List<Request<T>> result = new ArrayList<>();
+    for (int slot = 0; slot <= mask; ++slot) {
+      Request<T> entry = slots.get(slot);
+      if (entry != null) {
+        result.add(entry);
+      }
+    }
+    result.addAll(overflow.values());
+    return result;
+  }
+
+  /**
+   * Remove all requests.
+   *
+   * @return the removed requests
+   */
+  public List<Request<T>> removeAll() {
+    List<Request<T>> result = new ArrayList<>();
+    for (int slot = 0; slot <= mask; ++slot) {
+      Request<T> entry = slots.getAndSet(slot, null);
+      if (entry != null) {
+        result.add(removed(entry));
+      }
+    }
+    for (Integer id : overflow.keySet()) {
+      Request<T> entry = overflow.remove(id);
+      if (entry != null) {
+        result.add(removed(entry));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of requests waiting for a response.
+   */
+  public int getInFlightCount() {
+    return inFlightCount.get();
+  }
+
+  /**
+   * Return the number of requests that did not receive a response before their deadline.
+   */
+  public long getExpiredCount() {
+    return expiredCount.get();
+  }
+
+  /**
+   * Stop checking deadlines. Requests that are still waiting for a response remain in the table.
+   */
+  public synchronized void close() {
+    if (timer != null) {
+      timer.shutdownNow();
+      timer = null;
+    }
+  }
+
+  private synchronized void ensureTimer() {
+    if (timer != null) {
+      return;
+    }
+    timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "VM service request timeout");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    timer.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          expireRequests();
+        } catch (Throwable e) {
+          Logging.getLogger().logError("Failed to expire requests", e);
+        }
+      }
+    }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private long tickOf(long nanos) {
+    return (nanos - startNanos) / TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+  }
+
+  /**
+   * Visit the wheel buckets for each tick elapsed since the last call. Entries of removed requests
+   * are dropped, and those whose deadline is a full revolution or more away are put back. Only
+   * called on the timer thread.
+   */
+  private void expireRequests() {
+    long now = System.nanoTime();
+    long currentTick = tickOf(now);
+    long firstTick;
+    synchronized (wheelLock) {
+      firstTick = Math.max(lastTick + 1, currentTick - WHEEL_SIZE + 1);
+    }
+    for (long tick = firstTick; tick <= currentTick; ++tick) {
+      ConcurrentLinkedQueue<Timeout<T>> bucket = wheel[(int) (tick % WHEEL_SIZE)];
+      List<Timeout<T>> drained = new ArrayList<>();
+      synchronized (wheelLock) {
+        // Advancing the tick and draining its bucket together means that add() either got its entry
+        // in before the drain, or puts it in the bucket of a later tick
+        lastTick = tick;
+        Timeout<T> timeout;
+        while ((timeout = bucket.poll()) != null) {
+          drained.add(timeout);
+        }
+      }
+      List<Timeout<T>> notDue = new ArrayList<>();
+      for (Timeout<T> timeout : drained) {
+        Request<T> entry = timeout.request;
+        if (entry == null) {
+          continue;
+        }
+        if (timeout.deadline - now > 0) {
+          notDue.add(timeout);
+        } else if (removeEntry(entry)) {
+          expiredCount.incrementAndGet();
+          expirationHandler.expired(Integer.toString(entry.id), entry.method, entry.value,
+              entry.timeoutMillis);
+        }
+      }
+      // Not due within this revolution, so they belong in the same bucket
+      bucket.addAll(notDue);
+    }
+  }
+
+  /**
+   * Remove the given entry if it has not already been removed by a response.
+   */
+  private boolean removeEntry(Request<T> entry) {
+    if (slots.compareAndSet(entry.id & mask, entry, null) || overflow.remove(entry.id, entry)) {
+      removed(entry);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Account for an entry that was just taken out of the table, and clear its timeout.
+   */
+  private Request<T> removed(Request<T> entry) {
+    inFlightCount.decrementAndGet();
+    if (entry.timeout != null) {
+      entry.timeout.request = null;
+    }
+    return entry;
+  }
+}
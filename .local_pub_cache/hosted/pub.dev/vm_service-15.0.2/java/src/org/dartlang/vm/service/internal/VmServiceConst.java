@@ -30,6 +30,8 @@ public interface VmServiceConst {
   static final String JSONRPC = "jsonrpc";
   static final String JSONRPC_VERSION = "2.0";
   static final String DATA = "data";
+  static final String STREAM_LISTEN = "streamListen";
+  static final String STREAM_CANCEL = "streamCancel";
 
   /**
    * Parse error	Invalid JSON was received by the server.
@@ -13,6 +13,8 @@
  */
 package org.dartlang.vm.service.internal;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import de.roderick.weberknecht.WebSocket;
 import de.roderick.weberknecht.WebSocketException;
@@ -21,7 +23,7 @@ import org.dartlang.vm.service.logging.Logging;
 /**
  * An {@link WebSocket} based implementation of {@link RequestSink}.
  */
-public class WebSocketRequestSink implements RequestSink {
+public class WebSocketRequestSink implements BatchRequestSink {
 
   private WebSocket webSocket;
 
@@ -31,12 +33,25 @@ public class WebSocketRequestSink implements RequestSink {
 
   @Override
   public void add(JsonObject json) {
+    send(json);
+  }
+
+  @Override
+  public void addBatch(JsonArray json) {
+    send(json);
+  }
+
+  private void send(JsonElement json) {
     String request = json.toString();
     if (webSocket == null) {
-      Logging.getLogger().logInformation("Dropped: " + request);
+      if (Logging.getLogger().isInformationEnabled()) {
+        Logging.getLogger().logInformation("Dropped: " + request);
+      }
       return;
     }
-    Logging.getLogger().logInformation("Sent: " + request);
+    if (Logging.getLogger().isInformationEnabled()) {
+      Logging.getLogger().logInformation("Sent: " + request);
+    }
     try {
       webSocket.send(request);
     } catch (WebSocketException e) {
@@ -24,6 +24,11 @@ public interface Logger {
    * Implementation of {@link Logger} that does nothing.
    */
   class NullLogger implements Logger {
+    @Override
+    public boolean isInformationEnabled() {
+      return false;
+    }
+
     @Override
     public void logError(String message) {
     }
@@ -43,6 +48,14 @@ public interface Logger {
 
   static final Logger NULL = new NullLogger();
 
+  /**
+   * Return {@code true} if informational messages are recorded. Callers should check this before
+   * building expensive messages, such as messages containing the text of a VM service message.
+   */
+  default boolean isInformationEnabled() {
+    return true;
+  }
+
   /**
    * Log the given message as an error.
    *
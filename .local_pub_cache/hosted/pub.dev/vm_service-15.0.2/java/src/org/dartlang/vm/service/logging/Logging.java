@@ -20,6 +20,8 @@ public class Logging {
 
   private static Logger logger = Logger.NULL;
 
+  private static TraceSink traceSink = TraceSink.NULL;
+
   public static Logger getLogger() {
     return logger;
   }
@@ -27,4 +29,12 @@ public class Logging {
   public static void setLogger(Logger logger) {
     Logging.logger = logger == null ? Logger.NULL : logger;
   }
+
+  public static TraceSink getTraceSink() {
+    return traceSink;
+  }
+
+  public static void setTraceSink(TraceSink traceSink) {
+    Logging.traceSink = traceSink == null ? TraceSink.NULL : traceSink;
+  }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2012, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.logging;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link TraceSink} that maintains a latency histogram for each VM service method. Round trip
+ * times are counted in power of two microsecond buckets, so percentiles are accurate to within a
+ * factor of two.
+ */
+public class MethodLatencyTraceSink implements TraceSink {
+
+  /**
+   * The statistics of a single method.
+   */
+  public static class MethodStats {
+    private static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong totalResponseLength = new AtomicLong();
+
+    void record(int responseLength, long roundTripNanos, boolean error) {
+      long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(roundTripNanos));
+      int bucket = Math.min(BUCKET_COUNT - 1, 63 - Long.numberOfLeadingZeros(micros));
+      buckets.incrementAndGet(bucket);
+      count.incrementAndGet();
+      totalNanos.addAndGet(roundTripNanos);
+      if (responseLength > 0) {
+        totalResponseLength.addAndGet(responseLength);
+      }
+      if (error) {
+        errorCount.incrementAndGet();
+      }
+    }
+
+    /**
+     * Return the number of responses received.
+     */
+    public long getCount() {
+      return count.get();
+    }
+
+    /**
+     * Return the number of error responses received.
+     */
+    public long getErrorCount() {
+      return errorCount.get();
+    }
+
+    /**
+     * Return the number of requests that did not receive a response before their timeout.
+     */
+    public long getExpiredCount() {
+      return expiredCount.get();
+    }
+
+    /**
+     * Return the average round trip time in microseconds.
+     */
+    public long getMeanMicros() {
+      long n = count.get();
+      return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get()) / n;
+    }
+
+    /**
+     * Return the total number of characters in the messages containing the responses.
+     */
+    public long getTotalResponseLength() {
+      return totalResponseLength.get();
+    }
+
+    /**
+     * Return the upper bound in microseconds of the bucket containing the given percentile.
+     *
+     * @param percentile a value between {@code 0} and {@code 100}
+     */
+    public long getPercentileMicros(double percentile) {
+      long n = count.get();
+      if (n == 0) {
+        return 0;
+      }
+      long target = (long) Math.ceil(n * percentile / 100);
+      long seen = 0;
+      for (int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+        seen += buckets.get(bucket);
+        if (seen >= Math.max(1, target)) {
+          return 1L << (bucket + 1);
+        }
+      }
+      return 1L << BUCKET_COUNT;
+    }
+
+    @Override
+    public String toString() {
+      return "count=" + getCount() + " errors=" + getErrorCount() + " expired=" + getExpiredCount()
+          + " mean=" + getMeanMicros() + "us p50<" + getPercentileMicros(50) + "us p99<"
+          + getPercentileMicros(99) + "us chars=" + getTotalResponseLength();
+    }
+  }
+
+  private final ConcurrentMap<String, MethodStats> stats = new ConcurrentHashMap<>();
+
+  @Override
+  public void requestCompleted(String id, String method, int responseLength, long roundTripNanos,
+                               boolean error) {
+    getOrCreate(method).record(responseLength, roundTripNanos, error);
+  }
+
+  @Override
+  public void requestExpired(String id, String method, long timeoutMillis) {
+    getOrCreate(method).expiredCount.incrementAndGet();
+  }
+
+  /**
+   * Return the statistics for the given method, or {@code null} if no request for the method has
+   * completed.
+   */
+  public MethodStats getStats(String method) {
+    return stats.get(method);
+  }
+
+  /**
+   * Return a snapshot of the statistics of all methods, sorted by method name.
+   */
+  public Map<String, MethodStats> getAllStats() {
+    return new TreeMap<>(stats);
+  }
+
+  /**
+   * Discard all statistics.
+   */
+  public void reset() {
+    stats.clear();
+  }
+
+  private MethodStats getOrCreate(String method) {
+    MethodStats result = stats.get(method);
+    if (result == null) {
+      MethodStats newStats = new MethodStats();
+      result = stats.putIfAbsent(method, newStats);
+      if (result == null) {
+        result = newStats;
+      }
+    }
+    return result;
+  }
+}
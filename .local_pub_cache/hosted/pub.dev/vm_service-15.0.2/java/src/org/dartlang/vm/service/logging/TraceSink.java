@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2012, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.logging;
+
+/**
+ * The interface {@code TraceSink} defines the behavior of objects that receive structured timing
+ * information about the requests made to the VM service, such as {@link MethodLatencyTraceSink}.
+ * Implementations are called on the thread receiving messages from the VM and should return quickly.
+ */
+public interface TraceSink {
+
+  /**
+   * Implementation of {@link TraceSink} that does nothing.
+   */
+  class NullTraceSink implements TraceSink {
+    @Override
+    public void requestCompleted(String id, String method, int responseLength, long roundTripNanos,
+                                 boolean error) {
+    }
+
+    @Override
+    public void requestExpired(String id, String method, long timeoutMillis) {
+    }
+  }
+
+  static final TraceSink NULL = new NullTraceSink();
+
+  /**
+   * Record that a response was received for a request.
+   *
+   * @param id             the request id
+   * @param method         the request method
+   * @param responseLength the number of characters in the message containing the response, or
+   *                       {@code -1} if unknown
+   * @param roundTripNanos the time between sending the request and receiving the response
+   * @param error          {@code true} if the response is an error
+   */
+  void requestCompleted(String id, String method, int responseLength, long roundTripNanos,
+                        boolean error);
+
+  /**
+   * Record that no response was received for a request before its timeout.
+   *
+   * @param id            the request id
+   * @param method        the request method
+   * @param timeoutMillis the timeout of the request
+   */
+  void requestExpired(String id, String method, long timeoutMillis);
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.internal.BatchRequestSink;
+import org.dartlang.vm.service.internal.RequestSink;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * A {@link Transport} that records the traffic of another transport for {@link ReplayTransport}.
+ * <p>
+ * Each message is written as one line holding a JSON object: {@code "dir"} is {@code "sent"} or
+ * {@code "received"} and {@code "frame"} is the message as it went over the connection, which is
+ * either a single JSON object or a JSON-RPC batch array.
+ */
+public class CapturingTransport implements Transport {
+  static final String DIRECTION = "dir";
+  static final String SENT = "sent";
+  static final String RECEIVED = "received";
+  static final String FRAME = "frame";
+
+  private final Transport base;
+  private final Writer capture;
+
+  /**
+   * @param base    the transport to record
+   * @param capture the writer the capture is written to. It is flushed after each message, but not
+   *                closed.
+   */
+  public CapturingTransport(Transport base, Writer capture) {
+    if (base == null || capture == null) {
+      throw new IllegalArgumentException("Unexpected null argument");
+    }
+    this.base = base;
+    this.capture = capture;
+  }
+
+  @Override
+  public RequestSink open(final Listener listener) throws IOException {
+    final RequestSink sink = base.open(new Listener() {
+      @Override
+      public void opened() {
+        listener.opened();
+      }
+
+      @Override
+      public void received(String message) {
+        write(RECEIVED, message);
+        listener.received(message);
+      }
+
+      @Override
+      public void received(JsonObject message) {
+        write(RECEIVED, message.toString());
+        listener.received(message);
+      }
+
+      @Override
+      public void disconnected() {
+        listener.disconnected();
+      }
+
+      @Override
+      public void reconnected(Collection<JsonObject> buffered) {
+        listener.reconnected(buffered);
+      }
+
+      @Override
+      public void closed() {
+        listener.closed();
+      }
+    });
+    if (sink instanceof BatchRequestSink) {
+      // Keep batching available to the client
+      return new BatchRequestSink() {
+        @Override
+        public void add(JsonObject request) {
+          write(SENT, request.toString());
+          sink.add(request);
+        }
+
+        @Override
+        public void addBatch(JsonArray requests) {
+          write(SENT, requests.toString());
+          ((BatchRequestSink) sink).addBatch(requests);
+        }
+
+        @Override
+        public void close() {
+          sink.close();
+        }
+      };
+    }
+    return new RequestSink() {
+      @Override
+      public void add(JsonObject request) {
+        write(SENT, request.toString());
+        sink.add(request);
+      }
+
+      @Override
+      public void close() {
+        sink.close();
+      }
+    };
+  }
+
+  private void write(String direction, String frame) {
+    // Line breaks can only be whitespace between JSON tokens, so replacing them keeps the frame
+    // valid while keeping it on one line
+    String line = "{\"" + DIRECTION + "\":\"" + direction + "\",\"" + FRAME + "\":"
+        + frame.replace('\n', ' ').replace('\r', ' ') + "}\n";
+    synchronized (capture) {
+      try {
+        capture.write(line);
+        capture.flush();
+      } catch (IOException e) {
+        Logging.getLogger().logError("Failed to write capture", e);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return base.toString();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.internal.RequestSink;
+import org.dartlang.vm.service.logging.Logging;
+
+/**
+ * An in-process {@link Transport} that passes {@link JsonObject}s between the client and a
+ * {@link RequestHandler} in the same process without serializing them. Messages are delivered
+ * synchronously on the sending thread.
+ * <p>
+ * Objects are passed by reference: neither side may modify a message once it has been sent.
+ */
+public class LoopbackTransport implements Transport {
+  /**
+   * Handles the requests sent by the client, answering through {@link #send(JsonObject)}.
+   */
+  public interface RequestHandler {
+    void handle(JsonObject request, LoopbackTransport transport);
+  }
+
+  private final RequestHandler handler;
+  private volatile Listener listener;
+
+  public LoopbackTransport(RequestHandler handler) {
+    if (handler == null) {
+      throw new IllegalArgumentException("Unexpected null argument");
+    }
+    this.handler = handler;
+  }
+
+  @Override
+  public RequestSink open(Listener listener) {
+    this.listener = listener;
+    listener.opened();
+    return new RequestSink() {
+      @Override
+      public void add(JsonObject request) {
+        try {
+          handler.handle(request, LoopbackTransport.this);
+        } catch (Exception e) {
+          Logging.getLogger().logError("Exception handling request: " + request, e);
+        }
+      }
+
+      @Override
+      public void close() {
+        LoopbackTransport.this.close();
+      }
+    };
+  }
+
+  /**
+   * Send a response or event to the client.
+   *
+   * @return {@code true} if the message was delivered, or {@code false} if the transport is closed
+   */
+  public boolean send(JsonObject message) {
+    Listener current = listener;
+    if (current == null) {
+      return false;
+    }
+    current.received(message);
+    return true;
+  }
+
+  /**
+   * Close the transport, notifying the client.
+   */
+  public void close() {
+    Listener current = listener;
+    listener = null;
+    if (current != null) {
+      current.closed();
+    }
+  }
+}
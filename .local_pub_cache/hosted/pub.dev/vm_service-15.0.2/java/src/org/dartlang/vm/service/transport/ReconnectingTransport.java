@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.internal.RequestSink;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Transport} that reopens a new delegate transport when the connection is lost, retrying
+ * with exponential backoff. Requests sent while reconnecting are buffered and sent once the new
+ * connection is open. The {@link Listener} is told about the lost connection through
+ * {@link Listener#disconnected()} and about the new connection through
+ * {@link Listener#reconnected(java.util.Collection)}, and is only told that the connection is closed
+ * when the transport is closed or all attempts to reconnect have failed.
+ */
+public class ReconnectingTransport implements Transport {
+  /**
+   * Creates the transport for each connection attempt.
+   */
+  public interface Factory {
+    Transport create() throws IOException;
+  }
+
+  private final Factory factory;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final int maxAttempts;
+
+  private Listener listener;
+
+  /**
+   * The state below is guarded by {@link #lock}.
+   */
+  private final Object lock = new Object();
+  private RequestSink delegateSink;
+  private final ArrayDeque<JsonObject> buffer = new ArrayDeque<>();
+  private boolean reconnecting;
+  private boolean closed;
+
+  /**
+   * The thread notifying the listener of the new connection, whose requests are sent ahead of the
+   * buffered ones.
+   */
+  private Thread reconnectedThread;
+
+  /**
+   * Incremented when a connection is lost and for each attempt to reconnect, so that notifications
+   * from lost connections and failed attempts are ignored.
+   */
+  private final AtomicInteger generation = new AtomicInteger();
+
+  private final AtomicLong reconnectCount = new AtomicLong();
+  private final AtomicLong failedAttemptCount = new AtomicLong();
+
+  /**
+   * @param factory              creates the transport for each connection attempt
+   * @param initialBackoffMillis the delay before the first attempt to reconnect
+   * @param maxBackoffMillis     the maximum delay between attempts
+   * @param maxAttempts          the number of attempts before giving up, or {@code 0} to retry forever
+   */
+  public ReconnectingTransport(Factory factory, long initialBackoffMillis, long maxBackoffMillis,
+                               int maxAttempts) {
+    if (factory == null || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis
+        || maxAttempts < 0) {
+      throw new IllegalArgumentException("Unexpected argument: " + factory + " " + initialBackoffMillis
+          + " " + maxBackoffMillis + " " + maxAttempts);
+    }
+    this.factory = factory;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.maxAttempts = maxAttempts;
+  }
+
+  @Override
+  public RequestSink open(Listener listener) throws IOException {
+    this.listener = listener;
+    RequestSink sink = factory.create().open(new DelegateListener(generation.get(), true));
+    synchronized (lock) {
+      delegateSink = sink;
+    }
+    return new RequestSink() {
+      @Override
+      public void add(JsonObject request) {
+        RequestSink sink;
+        synchronized (lock) {
+          if (reconnecting && Thread.currentThread() != reconnectedThread) {
+            buffer.add(request);
+            return;
+          }
+          sink = delegateSink;
+        }
+        sink.add(request);
+      }
+
+      @Override
+      public void close() {
+        RequestSink sink;
+        synchronized (lock) {
+          closed = true;
+          sink = delegateSink;
+          // Wakes up a reconnect waiting to retry
+          lock.notifyAll();
+        }
+        sink.close();
+      }
+    };
+  }
+
+  /**
+   * Return the number of times the connection has been reestablished.
+   */
+  public long getReconnectCount() {
+    return reconnectCount.get();
+  }
+
+  /**
+   * Return the number of attempts to reconnect that failed.
+   */
+  public long getFailedAttemptCount() {
+    return failedAttemptCount.get();
+  }
+
+  /**
+   * Return the number of requests waiting for the connection to be reestablished.
+   */
+  public int getBufferedCount() {
+    synchronized (lock) {
+      return buffer.size();
+    }
+  }
+
+  private void connectionLost(int lostGeneration) {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      if (reconnecting || !generation.compareAndSet(lostGeneration, lostGeneration + 1)) {
+        return;
+      }
+      reconnecting = true;
+    }
+    Logging.getLogger().logInformation("VM connection lost, reconnecting");
+    listener.disconnected();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        reconnect();
+      }
+    }, "VM service reconnect");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void reconnect() {
+    long backoffMillis = initialBackoffMillis;
+    for (int attempt = 1; maxAttempts == 0 || attempt <= maxAttempts; ++attempt) {
+      try {
+        if (waitUntilClosed(backoffMillis)) {
+          closedWhileReconnecting();
+          return;
+        }
+      } catch (InterruptedException e) {
+        break;
+      }
+      RequestSink sink;
+      try {
+        sink = factory.create().open(new DelegateListener(generation.incrementAndGet(), false));
+      } catch (IOException e) {
+        failedAttemptCount.incrementAndGet();
+        Logging.getLogger().logInformation("Reconnect attempt " + attempt + " failed", e);
+        backoffMillis = Math.min(maxBackoffMillis, Math.max(1, backoffMillis * 2));
+        continue;
+      }
+      List<JsonObject> buffered;
+      synchronized (lock) {
+        if (closed) {
+          // Closed while opening, after the previous sink was closed, so the new one is closed here
+          generation.incrementAndGet();
+          buffered = null;
+        } else {
+          delegateSink = sink;
+          buffered = new ArrayList<>(buffer);
+          reconnectedThread = Thread.currentThread();
+        }
+      }
+      if (buffered == null) {
+        sink.close();
+        closedWhileReconnecting();
+        return;
+      }
+      reconnectCount.incrementAndGet();
+      Logging.getLogger().logInformation("VM connection reestablished");
+
+      // Requests re-issued by the listener are sent ahead of the requests already waiting
+      try {
+        listener.reconnected(Collections.unmodifiableList(buffered));
+      } finally {
+        flushBuffer(sink);
+      }
+      return;
+    }
+
+    Logging.getLogger().logError("Failed to reconnect to the VM");
+    synchronized (lock) {
+      closed = true;
+      buffer.clear();
+    }
+    listener.closed();
+  }
+
+  /**
+   * Wait for the given time unless the transport is closed first, and return whether it is closed.
+   */
+  private boolean waitUntilClosed(long millis) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    synchronized (lock) {
+      while (!closed) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+          return false;
+        }
+        lock.wait(remainingMillis);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Called when the transport is closed before a new connection is established. No connection is
+   * current then, so the listener is told here rather than by a delegate.
+   */
+  private void closedWhileReconnecting() {
+    synchronized (lock) {
+      buffer.clear();
+      reconnecting = false;
+    }
+    listener.closed();
+  }
+
+  /**
+   * Send the buffered requests in order, outside of the lock so that {@link RequestSink#add} is not
+   * blocked by the network. Requests added meanwhile are buffered behind them until the buffer is
+   * empty.
+   */
+  private void flushBuffer(RequestSink sink) {
+    while (true) {
+      JsonObject request;
+      synchronized (lock) {
+        reconnectedThread = null;
+        if (closed) {
+          buffer.clear();
+        }
+        request = buffer.poll();
+        if (request == null) {
+          reconnecting = false;
+          return;
+        }
+      }
+      sink.add(request);
+    }
+  }
+
+  /**
+   * Forwards the notifications of one connection while it is the current connection.
+   */
+  private class DelegateListener implements Listener {
+    private final int connectionGeneration;
+    private final boolean initial;
+
+    DelegateListener(int connectionGeneration, boolean initial) {
+      this.connectionGeneration = connectionGeneration;
+      this.initial = initial;
+    }
+
+    private boolean isCurrent() {
+      return generation.get() == connectionGeneration;
+    }
+
+    @Override
+    public void opened() {
+      if (initial && isCurrent()) {
+        listener.opened();
+      }
+    }
+
+    @Override
+    public void received(String message) {
+      if (isCurrent()) {
+        listener.received(message);
+      }
+    }
+
+    @Override
+    public void received(JsonObject message) {
+      if (isCurrent()) {
+        listener.received(message);
+      }
+    }
+
+    @Override
+    public void closed() {
+      boolean userClosed;
+      synchronized (lock) {
+        userClosed = closed;
+      }
+      if (userClosed) {
+        if (isCurrent()) {
+          listener.closed();
+        }
+      } else {
+        connectionLost(connectionGeneration);
+      }
+    }
+  }
+}
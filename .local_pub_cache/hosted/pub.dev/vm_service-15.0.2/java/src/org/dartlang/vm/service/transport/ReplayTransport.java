@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.internal.RequestSink;
+import org.dartlang.vm.service.internal.VmServiceConst;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Transport} that answers requests from traffic captured earlier, so that tooling and load
+ * tests can run without a VM. The capture is written by a {@link CapturingTransport}; the requests,
+ * responses and events of batches are replayed like those sent on their own.
+ * <p>
+ * Each request is answered with the next recorded response to a request with the same method,
+ * followed by the events that were received after that response. Events received before the first
+ * response are delivered after the first answer. A request without a remaining recorded response
+ * receives an error.
+ */
+public class ReplayTransport implements Transport, VmServiceConst {
+  /**
+   * A recorded response and the events received after it.
+   */
+  private static class Exchange {
+    final JsonObject response;
+    final List<JsonObject> events = new ArrayList<>();
+
+    Exchange(JsonObject response) {
+      this.response = response;
+    }
+  }
+
+  private final Map<String, ArrayDeque<Exchange>> exchanges = new HashMap<>();
+  private List<JsonObject> initialEvents = new ArrayList<>();
+  private final LoopbackTransport loopback;
+
+  /**
+   * Read the captured traffic from the given reader. The reader is not closed.
+   */
+  public ReplayTransport(Reader capture) throws IOException {
+    Map<String, String> recordedMethods = new HashMap<>();
+    List<JsonObject> events = initialEvents;
+    BufferedReader reader = new BufferedReader(capture);
+    JsonParser parser = new JsonParser();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      JsonObject record = parseObject(parser, line);
+      if (record == null || !record.has(CapturingTransport.DIRECTION)
+          || !record.has(CapturingTransport.FRAME)) {
+        continue;
+      }
+      boolean sent = CapturingTransport.SENT.equals(
+          record.get(CapturingTransport.DIRECTION).getAsString());
+      for (JsonObject message : messagesOf(record.get(CapturingTransport.FRAME))) {
+        if (sent) {
+          if (message.has(ID) && message.has(METHOD)) {
+            recordedMethods.put(message.get(ID).getAsString(), message.get(METHOD).getAsString());
+          }
+        } else if (message.has(METHOD)) {
+          events.add(message);
+        } else if (message.has(ID)) {
+          String method = recordedMethods.remove(message.get(ID).getAsString());
+          if (method != null) {
+            Exchange exchange = new Exchange(message);
+            ArrayDeque<Exchange> queue = exchanges.get(method);
+            if (queue == null) {
+              queue = new ArrayDeque<>();
+              exchanges.put(method, queue);
+            }
+            queue.add(exchange);
+            events = exchange.events;
+          }
+        }
+      }
+    }
+    loopback = new LoopbackTransport(new LoopbackTransport.RequestHandler() {
+      @Override
+      public void handle(JsonObject request, LoopbackTransport transport) {
+        replay(request, transport);
+      }
+    });
+  }
+
+  @Override
+  public RequestSink open(Listener listener) {
+    return loopback.open(listener);
+  }
+
+  /**
+   * Return the number of recorded responses that have not been replayed.
+   */
+  public synchronized int getRemainingCount() {
+    int count = 0;
+    for (ArrayDeque<Exchange> queue : exchanges.values()) {
+      count += queue.size();
+    }
+    return count;
+  }
+
+  private void replay(JsonObject request, LoopbackTransport transport) {
+    String id = request.get(ID).getAsString();
+    String method = request.get(METHOD).getAsString();
+    Exchange exchange;
+    List<JsonObject> pendingEvents;
+    synchronized (this) {
+      ArrayDeque<Exchange> queue = exchanges.get(method);
+      exchange = queue != null ? queue.poll() : null;
+      pendingEvents = initialEvents;
+      initialEvents = new ArrayList<>();
+    }
+    if (exchange == null) {
+      JsonObject error = new JsonObject();
+      error.addProperty(CODE, METHOD_NOT_FOUND);
+      error.addProperty(MESSAGE, "No recorded response for " + method);
+      JsonObject response = new JsonObject();
+      response.addProperty(JSONRPC, JSONRPC_VERSION);
+      response.addProperty(ID, id);
+      response.add(ERROR, error);
+      transport.send(response);
+    } else {
+      // Each recorded response is replayed once, so it can take the id of the live request
+      exchange.response.addProperty(ID, id);
+      transport.send(exchange.response);
+      pendingEvents.addAll(exchange.events);
+    }
+    for (JsonObject event : pendingEvents) {
+      transport.send(event);
+    }
+  }
+
+  /**
+   * Return the messages of a frame, which is a single message or a batch of them.
+   */
+  private static List<JsonObject> messagesOf(JsonElement frame) {
+    List<JsonObject> messages = new ArrayList<>();
+    if (frame.isJsonObject()) {
+      messages.add(frame.getAsJsonObject());
+    } else if (frame.isJsonArray()) {
+      for (JsonElement element : frame.getAsJsonArray()) {
+        if (element.isJsonObject()) {
+          messages.add(element.getAsJsonObject());
+        }
+      }
+    }
+    return messages;
+  }
+
+  private static JsonObject parseObject(JsonParser parser, String text) {
+    try {
+      JsonElement element = parser.parse(text);
+      return element.isJsonObject() ? element.getAsJsonObject() : null;
+    } catch (Exception e) {
+      Logging.getLogger().logError("Failed to parse captured message: " + text, e);
+      return null;
+    }
+  }
+}
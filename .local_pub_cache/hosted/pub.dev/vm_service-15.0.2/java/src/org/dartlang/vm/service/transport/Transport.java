@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.internal.RequestSink;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A {@code Transport} carries messages between a {@code VmService} and the VM service it is
+ * connected to.
+ */
+public interface Transport {
+  /**
+   * Receives the messages and connection state changes of a {@link Transport}.
+   */
+  interface Listener {
+    void opened();
+
+    /**
+     * Called when a message has been received as JSON text.
+     */
+    void received(String message);
+
+    /**
+     * Called when a message has been received as an already decoded JSON object. The receiver may
+     * keep a reference to the object, so the sender must not modify it afterwards.
+     */
+    void received(JsonObject message);
+
+    /**
+     * Called when a transport that recovers from a lost connection has lost it. Requests sent from
+     * now on are buffered until the connection is reestablished, and the requests still waiting for
+     * a response are those that were in flight on the lost connection.
+     */
+    default void disconnected() {
+    }
+
+    /**
+     * Called when a transport that recovers from a lost connection has connected again, before the
+     * requests buffered while reconnecting are sent. Requests sent from the calling thread before
+     * this call returns are sent ahead of them. The VM does not remember the requests and stream
+     * subscriptions of the lost connection.
+     *
+     * @param buffered the requests buffered while reconnecting, which are sent after this call
+     *                 returns
+     */
+    default void reconnected(Collection<JsonObject> buffered) {
+    }
+
+    void closed();
+  }
+
+  /**
+   * Open the connection, delivering received messages to the given listener.
+   *
+   * @return the sink through which requests are sent (not {@code null}).
+   */
+  RequestSink open(Listener listener) throws IOException;
+}
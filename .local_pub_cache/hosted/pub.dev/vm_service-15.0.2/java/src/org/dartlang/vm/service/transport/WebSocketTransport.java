@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import de.roderick.weberknecht.WebSocket;
+import de.roderick.weberknecht.WebSocketEventHandler;
+import de.roderick.weberknecht.WebSocketException;
+import de.roderick.weberknecht.WebSocketMessage;
+import org.dartlang.vm.service.internal.RequestSink;
+import org.dartlang.vm.service.internal.WebSocketRequestSink;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * A {@link WebSocket} based implementation of {@link Transport}.
+ */
+public class WebSocketTransport implements Transport {
+  private final String url;
+  private final WebSocket webSocket;
+
+  /**
+   * @param url the {@code ws} or {@code wss} URL of the VM service
+   */
+  public WebSocketTransport(final String url) throws IOException {
+    // Validate URL
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (URISyntaxException e) {
+      throw new IOException("Invalid URL: " + url, e);
+    }
+    String wsScheme = uri.getScheme();
+    if (!"ws".equals(wsScheme) && !"wss".equals(wsScheme)) {
+      throw new IOException("Unsupported URL scheme: " + wsScheme);
+    }
+
+    // Create web socket
+    try {
+      webSocket = new WebSocket(uri);
+    } catch (WebSocketException e) {
+      throw new IOException("Failed to create websocket: " + url, e);
+    }
+    this.url = url;
+  }
+
+  @Override
+  public RequestSink open(final Listener listener) throws IOException {
+    // Setup event handler for forwarding responses
+    webSocket.setEventHandler(new WebSocketEventHandler() {
+      @Override
+      public void onClose() {
+        Logging.getLogger().logInformation("VM connection closed: " + url);
+
+        listener.closed();
+      }
+
+      @Override
+      public void onMessage(WebSocketMessage message) {
+        if (Logging.getLogger().isInformationEnabled()) {
+          Logging.getLogger().logInformation("VM message: " + message.getText());
+        }
+        try {
+          listener.received(message.getText());
+        } catch (Exception e) {
+          Logging.getLogger().logError(e.getMessage(), e);
+        }
+      }
+
+      @Override
+      public void onOpen() {
+        listener.opened();
+
+        Logging.getLogger().logInformation("VM connection open: " + url);
+      }
+
+      @Override
+      public void onPing() {
+      }
+
+      @Override
+      public void onPong() {
+      }
+    });
+
+    // Establish WebSocket Connection
+    //noinspection TryWithIdenticalCatches
+    try {
+      webSocket.connect();
+    } catch (WebSocketException e) {
+      throw new IOException("Failed to connect: " + url, e);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      // The weberknecht can occasionally throw an array index exception if a connect terminates on initial connect
+      // (de.roderick.weberknecht.WebSocket.connect, WebSocket.java:126).
+      throw new IOException("Failed to connect: " + url, e);
+    }
+    return new WebSocketRequestSink(webSocket);
+  }
+
+  @Override
+  public String toString() {
+    return url;
+  }
+}
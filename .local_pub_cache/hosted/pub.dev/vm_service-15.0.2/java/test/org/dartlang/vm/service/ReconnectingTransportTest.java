@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.consumer.VersionConsumer;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Version;
+import org.dartlang.vm.service.transport.LoopbackTransport;
+import org.dartlang.vm.service.transport.ReconnectingTransport;
+import org.dartlang.vm.service.transport.Transport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that closing a {@link ReconnectingTransport} while it waits to reconnect fails both the
+ * requests that were sent and those that were buffered, without waiting for the backoff.
+ */
+public class ReconnectingTransportTest {
+  private static final long BACKOFF_MILLIS = 60000;
+
+  public static void main(String[] args) {
+    closeWhileReconnecting();
+    System.out.println("Test Complete");
+  }
+
+  private static void closeWhileReconnecting() {
+    final List<LoopbackTransport> connections = new ArrayList<>();
+    final boolean[] versionChecked = new boolean[1];
+    ReconnectingTransport transport = new ReconnectingTransport(new ReconnectingTransport.Factory() {
+      @Override
+      public Transport create() throws IOException {
+        synchronized (connections) {
+          if (!connections.isEmpty()) {
+            throw new IOException("Only the first connection succeeds");
+          }
+          LoopbackTransport connection = new LoopbackTransport(new LoopbackTransport.RequestHandler() {
+            @Override
+            public void handle(JsonObject request, LoopbackTransport transport) {
+              // Only answer the version check of connect, so that later requests stay pending.
+              if (!versionChecked[0]) {
+                versionChecked[0] = true;
+                JsonObject result = new JsonObject();
+                result.addProperty("type", "Version");
+                JsonObject response = new JsonObject();
+                response.add("result", result);
+                response.add("id", request.get("id"));
+                transport.send(response);
+              }
+            }
+          });
+          connections.add(connection);
+          return connection;
+        }
+      }
+    }, BACKOFF_MILLIS, BACKOFF_MILLIS, 1);
+
+    VmService vmService;
+    try {
+      vmService = VmServiceBase.connect(transport, 5, TimeUnit.SECONDS);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to connect", e);
+    }
+    final OpLatch closedLatch = new OpLatch();
+    vmService.addVmServiceListener(new VmServiceListener() {
+      @Override
+      public void connectionOpened() {
+      }
+
+      @Override
+      public void received(String streamId, Event event) {
+      }
+
+      @Override
+      public void connectionClosed() {
+        closedLatch.opComplete();
+      }
+    });
+
+    // One request is sent before the connection is lost, the other is buffered while reconnecting.
+    ConnectionLostConsumer sent = new ConnectionLostConsumer("sent");
+    vmService.getVersion(sent);
+    synchronized (connections) {
+      connections.get(0).close();
+    }
+    ConnectionLostConsumer buffered = new ConnectionLostConsumer("buffered");
+    vmService.getVersion(buffered);
+
+    vmService.disconnect();
+    sent.latch.waitAndAssertOpComplete();
+    buffered.latch.waitAndAssertOpComplete();
+    closedLatch.waitAndAssertOpComplete();
+    if (vmService.getPendingRequestCount() != 0) {
+      throw new RuntimeException("Expected no pending requests: " + vmService.getPendingRequestCount());
+    }
+  }
+
+  /**
+   * A consumer that expects its request to fail with {@link RPCError#CONNECTION_LOST}.
+   */
+  private static class ConnectionLostConsumer implements VersionConsumer {
+    final OpLatch latch = new OpLatch();
+    private final String name;
+
+    ConnectionLostConsumer(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void received(Version response) {
+      throw new RuntimeException("Unexpected response to the " + name + " request");
+    }
+
+    @Override
+    public void onError(RPCError error) {
+      if (error.getCode() != RPCError.CONNECTION_LOST) {
+        System.out.println(">>> Unexpected error for the " + name + " request: " + error.getMessage());
+        return;
+      }
+      latch.opComplete();
+    }
+  }
+}